@@ -0,0 +1,95 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The AlgorithmBenchmark class compares the pheromone update algorithms by the wall-clock time they need to reach a
+ * solution quality on a random instance of 200 cities. The setup finds the reference tour of the Benchmark harness,
+ * which also warms up the solver, and every measured solve stops at the target length within 2% of it. Each single
+ * shot is one solve, with the seeds 1 to 5 of the harness in turn, and the mean tour length and the number of solves
+ * that reached the target are reported as secondary results: a solve that misses the target runs until its time limit.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 5)
+@Fork(1)
+public class AlgorithmBenchmark {
+
+    /** The algorithm: ANT_SYSTEM, MAX_MIN_ANT_SYSTEM or ANT_COLONY_SYSTEM. */
+    @Param({"ANT_SYSTEM", "MAX_MIN_ANT_SYSTEM", "ANT_COLONY_SYSTEM"})
+    public String algorithm;
+
+    /** The solves of the algorithm. */
+    private Supplier<Object> body;
+
+    /**
+     * The Outcome class reports the results of the solves as secondary results. JMH sums event counters over the
+     * measured solves, so every solve reports its share of the mean tour length, and reached sums to the number of solves
+     * that reached the target.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Outcome {
+
+        /** The share of the tour length of the solve in the mean. */
+        public double length;
+
+        /** 1 if the solve reached the target length, 0 otherwise. */
+        public int reached;
+
+        /** The share of one solve in the sums of JMH. */
+        private double share;
+
+        /**
+         * Finds the share of one solve.
+         *
+         * @param params The parameters of the run, which give the number of measured solves.
+         */
+        @Setup
+        public void setUp(BenchmarkParams params) {
+            share = 1.0 / (params.getMeasurement().getCount() * Math.max(1, params.getForks()) * params.getThreads());
+        }
+    }
+
+    /**
+     * Finds the reference tour and creates the solves.
+     *
+     * @throws Exception If the body cannot be created.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.of("algorithm", algorithm);
+    }
+
+    /**
+     * Solves the instance once, until the target length or the time limit.
+     *
+     * @param outcome Receives the tour length and whether it reached the target.
+     * @param blackhole Receives the result.
+     */
+    @Benchmark
+    public void solve(Outcome outcome, Blackhole blackhole) {
+        Object result = body.get();
+        outcome.length = outcome.share * Bodies.length(result);
+        outcome.reached = "TARGET_LENGTH".equals(Bodies.termination(result)) ? 1 : 0;
+        blackhole.consume(result);
+    }
+}
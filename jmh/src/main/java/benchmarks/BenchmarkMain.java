@@ -0,0 +1,33 @@
+package benchmarks;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.openjdk.jmh.Main;
+
+/**
+ * The BenchmarkMain class runs the JMH benchmarks with the usual JMH command line, adding the GC profiler unless a
+ * profiler is given. The profiler reports the bytes allocated per operation and the collections next to the operations
+ * per second.
+ */
+public class BenchmarkMain {
+
+    private BenchmarkMain() {
+    }
+
+    /**
+     * Runs the benchmarks selected by the command line, e.g. "ColonyBenchmark -p cities=1000", or lists them with -l.
+     *
+     * @param args The JMH command-line options.
+     * @throws Exception If the options are invalid or a benchmark fails.
+     */
+    public static void main(String[] args) throws Exception {
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        if (!options.contains("-prof")) {
+            options.add("-prof");
+            options.add("gc");
+        }
+        Main.main(options.toArray(new String[0]));
+    }
+}
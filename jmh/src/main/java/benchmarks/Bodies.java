@@ -0,0 +1,69 @@
+package benchmarks;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.util.function.Supplier;
+
+/**
+ * The Bodies class looks up the benchmark bodies of the solver. The solver classes are in the default package, which
+ * classes of a named package such as the JMH benchmarks cannot import, so Benchmark.body is called by reflection, once
+ * per trial, and the measured calls go through the returned Supplier.
+ */
+final class Bodies {
+
+    private Bodies() {
+    }
+
+    /**
+     * Creates the body of a benchmark.
+     *
+     * @param operation The operation, as accepted by Benchmark.body.
+     * @param argument The number of cities, or the input file.
+     * @return The benchmark body.
+     * @throws Exception If the body cannot be created, e.g. because an input file is missing.
+     */
+    @SuppressWarnings("unchecked")
+    static Supplier<Object> of(String operation, String argument) throws Exception {
+        try {
+            return (Supplier<Object>) Class.forName("Benchmark").getMethod("body", String.class, String.class)
+                    .invoke(null, operation, argument);
+        } catch (InvocationTargetException e) {
+            throw (Exception) e.getCause();
+        }
+    }
+
+    /**
+     * Returns the tour length of a solve result.
+     *
+     * @param result A SolverResult returned by a solve body.
+     * @return The length of the tour.
+     */
+    static double length(Object result) {
+        try {
+            return field(result, "length").getDouble(result);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns why a solve stopped.
+     *
+     * @param result A SolverResult returned by a solve body.
+     * @return The name of its termination, e.g. TARGET_LENGTH.
+     */
+    static String termination(Object result) {
+        try {
+            return String.valueOf(field(result, "termination").get(result));
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Looks up a public field of an object.
+     */
+    private static Field field(Object object, String name) throws NoSuchFieldException {
+        return object.getClass().getField(name);
+    }
+}
@@ -0,0 +1,63 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The ColonyBenchmark class measures the hot paths of the colony and the distance setup on random instances in the unit
+ * square: the traversal of one ant, the refresh of every edge value, the evaporation of the Ant System (degrade) and
+ * creating the distances from the coordinates. The colonies have one ant, no candidate lists and the default
+ * parameters of the main method, with packed float matrices above 2000 cities.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx3g")
+public class ColonyBenchmark {
+
+    /** The number of cities. */
+    @Param({"10", "100", "1000", "10000"})
+    public int cities;
+
+    /** The operation: traverse, edgevalues, degrade or distances. */
+    @Param({"traverse", "edgevalues", "degrade", "distances"})
+    public String operation;
+
+    /** The body of the operation on its own instance. */
+    private Supplier<Object> body;
+
+    /**
+     * Creates the instance and colony of the operation.
+     *
+     * @throws Exception If the body cannot be created.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.of(operation, Integer.toString(cities));
+    }
+
+    /**
+     * Runs the operation once.
+     *
+     * @param blackhole Receives the result, so the JIT cannot remove the work.
+     */
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        blackhole.consume(body.get());
+    }
+}
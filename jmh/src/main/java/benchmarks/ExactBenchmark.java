@@ -0,0 +1,57 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The ExactBenchmark class measures the parallel brute force search on random instances. Its time grows with (n - 1)!,
+ * so it only runs on the small sizes of the exact methods.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class ExactBenchmark {
+
+    /** The number of cities. */
+    @Param({"8", "10", "12"})
+    public int cities;
+
+    /** The brute force search on the instance. */
+    private Supplier<Object> body;
+
+    /**
+     * Creates the instance.
+     *
+     * @throws Exception If the body cannot be created.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.of("bruteforce", Integer.toString(cities));
+    }
+
+    /**
+     * Solves the instance once.
+     *
+     * @param blackhole Receives the shortest route.
+     */
+    @Benchmark
+    public void bruteForce(Blackhole blackhole) {
+        blackhole.consume(body.get());
+    }
+}
@@ -0,0 +1,67 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The KernelBenchmark class compares the scalar and the vector kernels of the colony on random matrices of n x n
+ * entries: the edge values as the product of powers (powerproduct), the evaporation with its clamp to the bounds
+ * (scaleclamp) and the roulette over the unvisited cities of every row (maskedroulette). The forks add the incubator vector module, so the vector kernel runs with
+ * the Vector API instead of falling back to the scalar one.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = {"-Xmx3g", "--add-modules", "jdk.incubator.vector"})
+public class KernelBenchmark {
+
+    /** The number of cities, the length of the rows and columns. */
+    @Param({"1000", "2000", "4000"})
+    public int cities;
+
+    /** The kernel: scalar or vector. */
+    @Param({"scalar", "vector"})
+    public String kernel;
+
+    /** The operation: powerproduct, scaleclamp or maskedroulette. */
+    @Param({"powerproduct", "scaleclamp", "maskedroulette"})
+    public String operation;
+
+    /** The body of the operation on its own matrix. */
+    private Supplier<Object> body;
+
+    /**
+     * Creates the matrix of the operation.
+     *
+     * @throws Exception If the body cannot be created.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.of(operation, cities + "," + kernel);
+    }
+
+    /**
+     * Runs the operation once over the whole matrix.
+     *
+     * @param blackhole Receives the result, so the JIT cannot remove the work.
+     */
+    @Benchmark
+    public void run(Blackhole blackhole) {
+        blackhole.consume(body.get());
+    }
+}
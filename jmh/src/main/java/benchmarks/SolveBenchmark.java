@@ -0,0 +1,126 @@
+package benchmarks;
+
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The SolveBenchmark class measures the whole solve of an input file with the default parameters of the main method,
+ * reading the instance once per trial. The files are looked up in the directory of the system property tsp.inputs,
+ * the working directory by default, so the benchmarks run from the directory of the input files. Besides the solves per
+ * second it reports the mean tour length and its gap in percent to the optimum, as the solveBenchmark of the Benchmark
+ * harness does. The optimum is only known up to 20 cities, and the gap is NaN above. The solves cycle through the seeds of the Benchmark harness, so both harnesses measure the same
+ * tours.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SolveBenchmark {
+
+    /** The input file. */
+    @Param({"input01.txt", "input02.txt", "input03.txt", "input04.txt", "input05.txt", "input06.txt"})
+    public String file;
+
+    /** The solve of the instance. */
+    private Supplier<Object> body;
+
+    /** The length of the optimal tour, NaN if the instance is too large to solve exactly. */
+    private double optimum;
+
+    /**
+     * The Quality class reports the tour quality of the solves as secondary results. JMH sums event counters over the
+     * measured iterations, forks and threads, so every iteration reports its share of the mean, and the sums are the
+     * mean tour length and the mean gap of the iterations.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Quality {
+
+        /** The share of the mean tour length of the iteration. */
+        public double length;
+
+        /** The share of the gap in percent of the mean tour length of the iteration to the optimum. */
+        public double gap;
+
+        /** The sum of the tour lengths of the iteration. */
+        private double sum;
+
+        /** The number of solves of the iteration. */
+        private int count;
+
+        /** The share of one iteration in the sums of JMH. */
+        private double share;
+
+        /**
+         * Starts a new iteration.
+         *
+         * @param params The parameters of the run, which give the number of measured iterations.
+         */
+        @Setup(Level.Iteration)
+        public void reset(BenchmarkParams params) {
+            length = 0;
+            gap = 0;
+            sum = 0;
+            count = 0;
+            share = 1.0 / (params.getMeasurement().getCount() * Math.max(1, params.getForks()) * params.getThreads());
+        }
+
+        /**
+         * Adds a tour to the iteration.
+         *
+         * @param tourLength The length of the tour.
+         * @param optimum The length of the optimal tour, or NaN.
+         */
+        void add(double tourLength, double optimum) {
+            sum += tourLength;
+            count++;
+            double mean = sum / count;
+            length = share * mean;
+            gap = share * Math.max(0, 100 * (mean - optimum) / optimum);
+        }
+    }
+
+    /**
+     * Reads the instance.
+     *
+     * @throws Exception If the file cannot be read.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        String path = Path.of(System.getProperty("tsp.inputs", "."), file).toString();
+        body = Bodies.of("solve", path);
+        optimum = (Double) Bodies.of("optimum", path).get();
+    }
+
+    /**
+     * Solves the instance once.
+     *
+     * @param quality Receives the tour length.
+     * @param blackhole Receives the result.
+     */
+    @Benchmark
+    public void solve(Quality quality, Blackhole blackhole) {
+        Object result = body.get();
+        quality.add(Bodies.length(result), optimum);
+        blackhole.consume(result);
+    }
+}
@@ -0,0 +1,81 @@
+package benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The StorageBenchmark class compares the layouts and precisions of the colony matrices on a random instance of 2000
+ * cities: the traversal of one ant with its edge value refresh (storageconstruction) and one pass over the pheromone
+ * matrix (storagepass). The bytes of the distance, pheromone and edge value matrices are reported as a secondary
+ * result, so the memory side of each storage is checked next to its speed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 2, jvmArgsAppend = "-Xmx3g")
+public class StorageBenchmark {
+
+    /** The storage: the layout, the precision and whether the matrices are off heap. */
+    @Param({"FULL-double", "TRIANGULAR-double", "TRIANGULAR-float", "FULL-double-offheap", "TRIANGULAR-float-offheap"})
+    public String storage;
+
+    /** The operation: storageconstruction or storagepass. */
+    @Param({"storageconstruction", "storagepass"})
+    public String operation;
+
+    /** The body of the operation on its own colony. */
+    private Supplier<Object> body;
+
+    /** The bytes of the matrices of the colony. */
+    private long bytes;
+
+    /**
+     * The Memory class reports the size of the matrices as a secondary result.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Memory {
+
+        /** The megabytes of the distance, pheromone and edge value matrices. */
+        public double matrixMegabytes;
+    }
+
+    /**
+     * Creates the colony of the operation.
+     *
+     * @throws Exception If the body cannot be created.
+     */
+    @Setup
+    public void setUp() throws Exception {
+        body = Bodies.of(operation, storage);
+        bytes = (Long) Bodies.of("storagebytes", storage).get();
+    }
+
+    /**
+     * Runs the operation once.
+     *
+     * @param memory Receives the size of the matrices.
+     * @param blackhole Receives the result, so the JIT cannot remove the work.
+     */
+    @Benchmark
+    public void run(Memory memory, Blackhole blackhole) {
+        memory.matrixMegabytes = bytes / 1e6;
+        blackhole.consume(body.get());
+    }
+}
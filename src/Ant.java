@@ -0,0 +1,281 @@
+/**
+ * The Ant class holds the buffers a single ant needs to construct a tour, so no memory is allocated while the tour is built.
+ * Unvisited cities are kept in a compact list; a visited city is removed by swapping it with the last unvisited city.
+ * Each step is a single pass over the unvisited cities followed by a binary search roulette on the cumulative edge values.
+ * With candidate lists, an ant only chooses among the unvisited candidates of its current city and moves to the nearest
+ * unvisited city when every candidate is visited.
+ * With a positive exploitation probability, as in Ant Colony System, a step takes the edge with the highest value instead
+ * of the roulette with that probability.
+ * With the vector kernels and a full double edge value matrix, a step without candidate lists instead scans the whole row
+ * of the current city with the visited cities masked out, which is cheaper than gathering the unvisited entries while
+ * most cities are still unvisited.
+ */
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+public class Ant {
+
+    /** Cities not visited yet, only the first unvisitedCount entries are valid. */
+    private final int[] unvisited;
+
+    /** Position of each city in the unvisited list. */
+    private final int[] position;
+
+    /** Number of unvisited cities. */
+    private int unvisitedCount;
+
+    /** Cumulative edge values of the unvisited cities, in the order of the unvisited list. */
+    private final double[] cumulative;
+
+    /** Predecessor of each city in the last constructed cycle. */
+    private final int[] predecessors;
+
+    /** Candidate lists of the cities, or null if every unvisited city is considered. */
+    private final CandidateLists candidateLists;
+
+    /** Unvisited candidates of the current city, in the order of the cumulative edge values. */
+    private final int[] choices;
+
+    /** Search for the nearest unvisited city, used when no candidate is left. */
+    private final KdTree.Search nearestSearch;
+
+    /** True for every visited city, or null if steps never scan whole rows. */
+    private final boolean[] visited;
+
+    /** Sums of the unvisited edge values of the current row, block by block, or null if steps never scan whole rows. */
+    private final double[] blockSums;
+
+    /** A step scans the whole row while more than 1 / ROW_SCAN_DIVISOR of the cities are unvisited, later steps gather the few left. */
+    private static final int ROW_SCAN_DIVISOR = 4;
+
+    /**
+     * Creates an ant for the given number of cities that considers every unvisited city.
+     *
+     * @param numberOfCities The number of cities of the instance.
+     */
+    public Ant(int numberOfCities) {
+        this(numberOfCities, null);
+    }
+
+    /**
+     * Creates an ant for the given number of cities.
+     *
+     * @param numberOfCities The number of cities of the instance.
+     * @param candidateLists The candidate lists of the cities, or null to consider every unvisited city.
+     */
+    public Ant(int numberOfCities, CandidateLists candidateLists) {
+        unvisited = new int[numberOfCities];
+        position = new int[numberOfCities];
+        cumulative = new double[numberOfCities];
+        predecessors = new int[numberOfCities];
+        this.candidateLists = candidateLists;
+        choices = candidateLists == null ? null : new int[candidateLists.k];
+        nearestSearch = candidateLists == null ? null : candidateLists.tree.search();
+        visited = candidateLists == null && Kernels.ACTIVE.vectorized() ? new boolean[numberOfCities] : null;
+        blockSums = visited == null ? null : new double[Kernels.blocks(numberOfCities)];
+    }
+
+    /**
+     * Returns the number of cities this ant was created for.
+     *
+     * @return The number of cities.
+     */
+    public int size() {
+        return unvisited.length;
+    }
+
+    /**
+     * Constructs a cycle starting from the given city.
+     * The returned array is reused by the next call, so it has to be copied if it is kept.
+     *
+     * @param startCity The index of the starting city.
+     * @param edgeValueMatrix The edge values the choice probabilities are based on.
+     * @param random The random number generator of the ant.
+     * @return An array representing the predecessors of each city in the cycle.
+     */
+    public int[] traverse(int startCity, SymmetricMatrix edgeValueMatrix, RandomGenerator random) {
+        return traverse(startCity, edgeValueMatrix, 0, random);
+    }
+
+    /**
+     * Constructs a cycle starting from the given city, taking the best edge of a step with the given probability.
+     * The returned array is reused by the next call, so it has to be copied if it is kept.
+     *
+     * @param startCity The index of the starting city.
+     * @param edgeValueMatrix The edge values the choice probabilities are based on.
+     * @param exploitation The probability of taking the edge with the highest value, 0 to always use the roulette.
+     * @param random The random number generator of the ant.
+     * @return An array representing the predecessors of each city in the cycle.
+     */
+    public int[] traverse(int startCity, SymmetricMatrix edgeValueMatrix, double exploitation, RandomGenerator random) {
+        unvisitedCount = unvisited.length;
+        for (int i = 0; i < unvisitedCount; i++) {
+            unvisited[i] = i;
+            position[i] = i;
+        }
+        if (nearestSearch != null)
+            nearestSearch.reset();
+        if (visited != null)
+            Arrays.fill(visited, false);
+        double[] rows = visited == null ? null : edgeValueMatrix.fullRows();
+        visit(startCity);
+        int currentCity = startCity;
+        while (unvisitedCount > 0) {
+            int afterCity;
+            if (exploitation > 0 && random.nextDouble() < exploitation)
+                afterCity = bestCity(currentCity, edgeValueMatrix);
+            else if (rows != null && unvisitedCount > unvisited.length / ROW_SCAN_DIVISOR)
+                afterCity = nextCityInRow(currentCity, rows, edgeValueMatrix, random);
+            else if (candidateLists == null)
+                afterCity = nextCity(currentCity, edgeValueMatrix, random);
+            else
+                afterCity = nextCandidate(currentCity, edgeValueMatrix, random);
+            visit(afterCity);
+            predecessors[afterCity] = currentCity;
+            currentCity = afterCity;
+        }
+        predecessors[startCity] = currentCity; // close the cycle
+        return predecessors;
+    }
+
+    /**
+     * Chooses the next city among the unvisited cities with probability proportional to its edge value.
+     *
+     * @param currentCity The index of the current city.
+     * @param edgeValues The edge values the choice probabilities are based on.
+     * @param random The random number generator of the ant.
+     * @return The index of the next city to visit.
+     */
+    private int nextCity(int currentCity, SymmetricMatrix edgeValues, RandomGenerator random) {
+        double total = 0;
+        for (int k = 0; k < unvisitedCount; k++) {
+            total += edgeValues.get(currentCity, unvisited[k]);
+            cumulative[k] = total;
+        }
+        if (!(total > 0)) // every edge value underflowed, choose uniformly
+            return unvisited[random.nextInt(unvisitedCount)];
+        return unvisited[roulette(unvisitedCount, random.nextDouble() * total)];
+    }
+
+    /**
+     * Chooses the next city among the unvisited cities with probability proportional to its edge value, scanning the
+     * row of the current city with the kernels.
+     *
+     * @param currentCity The index of the current city.
+     * @param rows The edge values as a full row-major store.
+     * @param edgeValues The edge values, used if rounding leaves the roulette without a city.
+     * @param random The random number generator of the ant.
+     * @return The index of the next city to visit.
+     */
+    private int nextCityInRow(int currentCity, double[] rows, SymmetricMatrix edgeValues, RandomGenerator random) {
+        int offset = currentCity * unvisited.length;
+        double total = Kernels.ACTIVE.maskedBlockSums(rows, offset, visited, unvisited.length, blockSums);
+        if (total > 0) {
+            int city = Kernels.maskedSearch(rows, offset, visited, unvisited.length, blockSums, random.nextDouble() * total);
+            if (city >= 0)
+                return city;
+        }
+        return nextCity(currentCity, edgeValues, random);
+    }
+
+    /**
+     * Chooses the next city among the unvisited candidates of the current city with probability proportional to its edge value.
+     * If every candidate is visited, the nearest unvisited city is chosen.
+     *
+     * @param currentCity The index of the current city.
+     * @param edgeValues The edge values the choice probabilities are based on.
+     * @param random The random number generator of the ant.
+     * @return The index of the next city to visit.
+     */
+    private int nextCandidate(int currentCity, SymmetricMatrix edgeValues, RandomGenerator random) {
+        int[] neighbours = candidateLists.neighbours;
+        int count = 0;
+        double total = 0;
+        for (int s = currentCity * candidateLists.k, end = s + candidateLists.k; s < end; s++) {
+            int city = neighbours[s];
+            if (position[city] < unvisitedCount) { // the city is still in the unvisited part of the list
+                total += edgeValues.candidateEntry(s, currentCity, city);
+                choices[count] = city;
+                cumulative[count++] = total;
+            }
+        }
+        if (count == 0)
+            return nearestSearch.nearest(currentCity);
+        if (!(total > 0))
+            return choices[random.nextInt(count)];
+        return choices[roulette(count, random.nextDouble() * total)];
+    }
+
+    /**
+     * Chooses the unvisited city, or unvisited candidate, with the highest edge value.
+     * If every candidate is visited, the nearest unvisited city is chosen.
+     *
+     * @param currentCity The index of the current city.
+     * @param edgeValues The edge values of the edges.
+     * @return The index of the next city to visit.
+     */
+    private int bestCity(int currentCity, SymmetricMatrix edgeValues) {
+        int best = -1;
+        double bestValue = -1;
+        if (candidateLists == null) {
+            for (int k = 0; k < unvisitedCount; k++) {
+                double value = edgeValues.get(currentCity, unvisited[k]);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = unvisited[k];
+                }
+            }
+            return best;
+        }
+        int[] neighbours = candidateLists.neighbours;
+        for (int s = currentCity * candidateLists.k, end = s + candidateLists.k; s < end; s++) {
+            int city = neighbours[s];
+            if (position[city] < unvisitedCount) {
+                double value = edgeValues.candidateEntry(s, currentCity, city);
+                if (value > bestValue) {
+                    bestValue = value;
+                    best = city;
+                }
+            }
+        }
+        return best >= 0 ? best : nearestSearch.nearest(currentCity);
+    }
+
+    /**
+     * Finds the first position whose cumulative edge value exceeds the random number.
+     *
+     * @param count The number of valid cumulative values.
+     * @param randomNumber A random number between 0 and the last cumulative value.
+     * @return The chosen position.
+     */
+    private int roulette(int count, double randomNumber) {
+        int low = 0;
+        int high = count - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cumulative[middle] > randomNumber)
+                high = middle;
+            else
+                low = middle + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Removes a city from the unvisited list by swapping it with the last unvisited city.
+     *
+     * @param city The index of the visited city.
+     */
+    private void visit(int city) {
+        int index = position[city];
+        int last = unvisited[--unvisitedCount];
+        unvisited[index] = last;
+        position[last] = index;
+        unvisited[unvisitedCount] = city;
+        position[city] = unvisitedCount;
+        if (visited != null)
+            visited[city] = true;
+        if (nearestSearch != null)
+            nearestSearch.remove(city);
+    }
+}
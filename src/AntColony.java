@@ -1,127 +1,930 @@
 /**
  * The AntColony class contains methods to perform Ant Colony Optimization (ACO) for solving the Traveling Salesman Problem (TSP).
  * It initializes and manages the pheromone matrix, edge value matrix, and other parameters required for the ACO algorithm.
+ * A colony holds the state of one solve of one instance, so colonies on different instances can run at the same time.
  */
 import java.awt.*;
-import java.io.File;
 import java.io.IOException;
-import java.util.Scanner;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 public class AntColony {
 
-    /** Represents the data object containing information about cities. */
-    public static Data data;
+    /** The instance the colony solves. */
+    public final Instance instance;
 
-    /** Initial pheromone level on the edges. */
-    public static double initialPheromone;
+    /** The configuration the colony was created with. */
+    public final SolverConfig config;
 
-    /** Matrix storing the pheromone levels on the edges between cities. */
-    public static double[][] pheromoneMatrix;
+    /** Number of cities. */
+    public final int numberOfCities;
 
-    /** Matrix storing the edge values based on pheromone levels and distances between cities. */
-    public static double[][] edgeValueMatrix;
+    /** Initial pheromone level on the edges, chosen by the pheromone update. */
+    public double initialPheromone;
+
+    /** How pheromone is laid and evaporates. */
+    public final PheromoneUpdate pheromoneUpdate;
+
+    /** Matrix storing the pheromone levels on the edges between cities, relative to pheromoneScale. */
+    public SymmetricMatrix pheromoneMatrix;
+
+    /** Global factor applied to every entry of the pheromone matrix, evaporation only lowers this factor. */
+    public double pheromoneScale = 1;
+
+    /** Once the pheromone scale drops below this value, it is folded back into the pheromone matrix. */
+    public static final double RENORMALIZATION_THRESHOLD = 1e-30;
+
+    /** Renormalization threshold of single precision matrices, whose range is much smaller. */
+    public static final double SINGLE_PRECISION_RENORMALIZATION_THRESHOLD = 1e-4;
+
+    /**
+     * Largest factor pheromoneScale^-alpha may put on the edge values, so the stored levels to the power alpha stay far
+     * from overflowing for any alpha. With a large alpha the scale is folded back before it reaches RENORMALIZATION_THRESHOLD.
+     */
+    public static final double MAX_EDGE_VALUE_GROWTH = 1e150;
+
+    /** Largest factor pheromoneScale^-alpha may put on the edge values of single precision matrices. */
+    public static final double SINGLE_PRECISION_MAX_EDGE_VALUE_GROWTH = 1e30;
+
+    /** Pheromone scale below which degrade folds the scale back into the matrix, derived from alpha and the precision. */
+    public final double renormalizationThreshold;
+
+    /** Matrix storing the heuristic term distance^-beta of each edge, computed once. */
+    public SymmetricMatrix heuristicMatrix;
+
+    /**
+     * Matrix storing the edge values based on pheromone levels and distances between cities.
+     * The values leave out the common factor pheromoneScale^alpha, which does not change the choice probabilities of the ants.
+     */
+    public SymmetricMatrix edgeValueMatrix;
 
     /** Number of iterations for ant traversal. */
-    public static int n;
+    public final int n;
 
     /** Number of ants in the colony. */
-    public static int m;
+    public final int m;
 
     /** Pheromone degradation factor. */
-    public static double degradationFactor;
+    public final double degradationFactor;
 
     /** Pheromone update factor. */
-    public static double q;
+    public final double q;
 
     /** Pheromone importance factor. */
-    public static double alpha;
+    public final double alpha;
 
     /** Heuristic information importance factor. */
-    public static double beta;
+    public final double beta;
+
+    /** Seed of the random number generators used by the ants. */
+    public final long seed;
+
+    /** Number of nearest neighbours the ants choose from, 0 to consider every unvisited city. */
+    public final int candidates;
+
+    /** Candidate lists of the cities, null if candidates is 0. */
+    public CandidateLists candidateLists;
+
+    /** Construction buffers of the ants, one per ant. */
+    public Ant[] ants;
+
+    /** Which tours are improved by local search before their pheromone is deposited. */
+    public final LocalSearch.Mode localSearch;
+
+    /** Local search buffers, one per ant, null if local search is off. */
+    public LocalSearch[] localSearches;
+
+    /** Best tour found so far by the running or last solve, published at the end of each iteration. */
+    private volatile SolverResult bestSoFar;
+
+    /** Length of the best tour of the running solve, including tours received by immigrate. */
+    private double minDistance;
+
+    /** Predecessors array of the best tour of the running solve, null before the first tour. */
+    private int[] bestRoute;
+
+    /** Measurements of the running or last solve, null if telemetry is off. */
+    private Telemetry telemetry;
+
+    /** Time spent in full edge value refreshes during the current evaporation step, measured only with telemetry. */
+    private long edgeValueNanos;
+
+    /** Checkpoint the next solve starts from, null to start from scratch. */
+    private Checkpoint startFrom;
+
+    /** True if the next solve continues the run of startFrom, false if it only takes over its pheromone and best tour. */
+    private boolean resume;
+
+    /** Colony of the instance this colony's instance was derived from, whose matrices the next solve takes over, or null. */
+    private AntColony previous;
+
+    /** For each city, its index in the instance of the previous colony, or -1 for an added city. */
+    private int[] previousIndex;
+
+    /** Tour the next solve starts with as its best tour, or null. */
+    private int[] startRoute;
+
+    /** Length of startRoute. */
+    private double startLength;
+
+    /** Worker pool for parallel tour construction, created on first use and shut down at the end of solve. */
+    private ForkJoinPool pool;
+
+    /**
+     * Creates a colony for an instance. The matrices and ants are created by initialize.
+     *
+     * @param instance The instance to solve.
+     * @param config The parameters of the colony.
+     */
+    public AntColony(Instance instance, SolverConfig config) {
+        this.instance = instance;
+        this.config = config;
+        numberOfCities = instance.numberOfCities;
+        pheromoneUpdate = PheromoneUpdate.create(config);
+        n = config.iterations;
+        m = config.ants;
+        degradationFactor = config.degradationFactor;
+        q = config.q;
+        alpha = config.alpha;
+        beta = config.beta;
+        seed = config.seed;
+        renormalizationThreshold = config.singlePrecision
+                ? Math.max(SINGLE_PRECISION_RENORMALIZATION_THRESHOLD, Math.pow(SINGLE_PRECISION_MAX_EDGE_VALUE_GROWTH, -1 / alpha))
+                : Math.max(RENORMALIZATION_THRESHOLD, Math.pow(MAX_EDGE_VALUE_GROWTH, -1 / alpha));
+        candidates = config.candidates;
+        localSearch = config.localSearch;
+    }
+
+    /**
+     * Creates the matrices, candidate lists and ants, resetting any earlier search of this colony.
+     */
+    public void initialize() {
+        setCandidateLists(); // k nearest neighbours of each city, if enabled
+        initialPheromoneMatrix(); // creating a pheromone matrix  numberOfCities * numberOfCities
+        setEdgeValueMatrix(); // creating an edgeValueMatrix  numberOfCities * numberOfCities
+        initialAnts(); // creating the construction buffers of the ants
+    }
+
+    /**
+     * Creates the matrices, candidate lists and ants from those of a colony on the instance this instance was derived from.
+     * Entries of the remaining edges are copied; only the edges of added cities get a new heuristic value, and they start
+     * with the mean pheromone level of the copied edges, so an added city is neither preferred nor avoided.
+     *
+     * @param previous The colony on the other instance, with the same alpha and beta.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     */
+    public void initializeFrom(AntColony previous, int[] previousIndex) {
+        CandidateLists lists = previous.candidateLists;
+        if (candidates > 0 && lists != null && lists.k == Math.min(candidates, numberOfCities - 1))
+            candidateLists = new CandidateLists(lists, previousIndex, instance.tree(), instance.distances);
+        else
+            setCandidateLists();
+        initialPheromone = pheromoneUpdate.initialPheromone(this);
+        pheromoneMatrix = createMatrix();
+        pheromoneScale = previous.pheromoneScale;
+        if (candidateLists != null) {
+            initializeCandidatesFrom(previous, previousIndex);
+            return;
+        }
+        heuristicMatrix = createMatrix();
+        edgeValueMatrix = createMatrix();
+        double total = 0;
+        long copied = 0;
+        for (int i = 0; i < numberOfCities; i++) {
+            int pi = previousIndex[i];
+            for (int j = 0; j < i; j++) {
+                int pj = previousIndex[j];
+                if (pi < 0 || pj < 0)
+                    continue; // an edge of an added city, set below
+                double level = previous.pheromoneMatrix.get(pi, pj);
+                pheromoneMatrix.set(i, j, level);
+                heuristicMatrix.set(i, j, previous.heuristicMatrix.get(pi, pj));
+                edgeValueMatrix.set(i, j, previous.edgeValueMatrix.get(pi, pj));
+                total += level;
+                copied++;
+            }
+        }
+        double level = copied > 0 ? total / copied : initialPheromone / pheromoneScale;
+        for (int i = 0; i < numberOfCities; i++) {
+            if (previousIndex[i] >= 0)
+                continue; // only the rows of added cities are new
+            for (int j = 0; j < numberOfCities; j++) {
+                if (j == i || previousIndex[j] < 0 && j > i)
+                    continue; // an edge between two added cities is set from the larger index
+                heuristicMatrix.set(i, j, 1 / Math.pow(instance.distances.distance(i, j),beta));
+                pheromoneMatrix.set(i, j, level);
+                updateEdgeValue(i, j);
+            }
+        }
+        initialAnts();
+    }
+
+    /**
+     * Takes over the pheromone of the remaining candidate edges from a colony on the instance this instance was derived
+     * from, as initializeFrom does for every edge. The edges of added cities and the other new candidate edges start with
+     * the mean level of the copied edges, and the heuristic values are computed again, which takes one pass over the slots.
+     *
+     * @param previous The colony on the other instance, with the same alpha and beta.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     */
+    private void initializeCandidatesFrom(AntColony previous, int[] previousIndex) {
+        int[] neighbours = candidateLists.neighbours;
+        double total = 0;
+        long copied = 0;
+        for (int s = 0; s < neighbours.length; s++) {
+            int pi = previousIndex[s / candidateLists.k];
+            int pj = previousIndex[neighbours[s]];
+            if (pi >= 0 && pj >= 0) {
+                total += previous.pheromoneMatrix.get(pi, pj);
+                copied++;
+            }
+        }
+        pheromoneMatrix.fill(copied > 0 ? total / copied : initialPheromone / pheromoneScale);
+        for (int s = 0; s < neighbours.length; s++) {
+            int i = s / candidateLists.k;
+            int pi = previousIndex[i];
+            int pj = previousIndex[neighbours[s]];
+            if (pi >= 0 && pj >= 0)
+                pheromoneMatrix.set(i, neighbours[s], previous.pheromoneMatrix.get(pi, pj));
+        }
+        setEdgeValueMatrix();
+        initialAnts();
+    }
+
+    /**
+     * Initializes the pheromone matrix with the initial pheromone level of the pheromone update.
+     */
+    public void initialPheromoneMatrix() {
+        initialPheromone = pheromoneUpdate.initialPheromone(this);
+        pheromoneMatrix = createMatrix();
+        pheromoneMatrix.fill(initialPheromone);
+        pheromoneScale = 1;
+    }
+
+    /**
+     * Creates a numberOfCities * numberOfCities matrix with the configured storage, or with candidate lists a matrix that
+     * only stores the candidate edges.
+     *
+     * @return A matrix filled with zeros.
+     */
+    public SymmetricMatrix createMatrix() {
+        if (candidateLists != null)
+            return new CandidateMatrix(numberOfCities, candidateLists);
+        return SymmetricMatrix.create(numberOfCities, config.matrixLayout, config.singlePrecision, config.offHeap);
+    }
+
+    /**
+     * Returns the pheromone level on the edge between two cities.
+     *
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     * @return The pheromone level on the edge.
+     */
+    public double pheromone(int i, int j) {
+        return pheromoneMatrix.get(i, j) * pheromoneScale;
+    }
+
+    /**
+     * Sets the pheromone level on the edge between two cities, in both directions, and refreshes its edge value.
+     *
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     * @param level The new pheromone level.
+     */
+    public void setPheromone(int i, int j, double level) {
+        pheromoneMatrix.set(i, j, level / pheromoneScale);
+        updateEdgeValue(i, j);
+    }
+
+    /**
+     * Multiplies the pheromone level of every edge by a factor, keeps it between the bounds and refreshes every edge value.
+     *
+     * @param factor The factor, e.g. 1 - evaporation.
+     * @param min The lowest pheromone level.
+     * @param max The highest pheromone level.
+     */
+    public void scalePheromone(double factor, double min, double max) {
+        pheromoneMatrix.scaleClamp(factor, min / pheromoneScale, max / pheromoneScale);
+        updateEdgeValueMatrix();
+    }
+
+    /**
+     * Sets the pheromone level of every edge and refreshes every edge value.
+     *
+     * @param level The new pheromone level.
+     */
+    public void resetPheromone(double level) {
+        pheromoneMatrix.fill(level);
+        pheromoneScale = 1;
+        updateEdgeValueMatrix();
+    }
+
+    /**
+     * Finds the length of the tour that always moves to the nearest unvisited city, starting from city 0.
+     *
+     * @return The length of the nearest neighbour tour.
+     */
+    public double nearestNeighbourLength() {
+        KdTree.Search search = instance.tree().search();
+        int city = 0;
+        double length = 0;
+        search.remove(city);
+        for (int k = 1; k < numberOfCities; k++) {
+            int next = search.nearest(city);
+            search.remove(next);
+            length += instance.distances.distance(city, next);
+            city = next;
+        }
+        return length + instance.distances.distance(city, 0);
+    }
 
     /**
-     * Initializes the pheromone matrix with initial pheromone level.
+     * Initializes the heuristic matrix and the edge value matrix based on pheromone levels and distances between cities.
+     * With candidate lists only the candidate slots get a heuristic value.
      */
-    public static void initialPheromoneMatrix() {
-        pheromoneMatrix = new double[Data.numberOfCities][Data.numberOfCities];
-        for (int i = 0; i < Data.numberOfCities; i++) {
-            for (int j = 0 ; j < Data.numberOfCities; j++ ) {
-                pheromoneMatrix[i][j] = initialPheromone;
+    public void setEdgeValueMatrix() {
+        heuristicMatrix = createMatrix();
+        if (candidateLists != null) {
+            int[] neighbours = candidateLists.neighbours;
+            for (int s = 0; s < neighbours.length; s++) {
+                int i = s / candidateLists.k;
+                heuristicMatrix.set(i, neighbours[s], 1 / Math.pow(instance.distances.distance(i, neighbours[s]), beta));
+            }
+        } else {
+            for (int i = 0; i < numberOfCities; i++) {
+                for (int j = 0 ; j < i; j++ ) { // the matrices are symmetric, each edge is set once
+                    heuristicMatrix.set(i, j, 1 / Math.pow(instance.distances.distance(i, j),beta));
+                }
             }
         }
+        edgeValueMatrix = createMatrix();
+        updateEdgeValueMatrix();
+    }
+
+    /**
+     * Recomputes the edge value of a single edge, in both directions, from its pheromone level.
+     *
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     */
+    private void updateEdgeValue(int i, int j) {
+        if (i != j)
+            edgeValueMatrix.set(i, j, Math.pow(pheromoneMatrix.get(i, j),alpha) * heuristicMatrix.get(i, j));
     }
 
     /**
-     * Initializes the edge value matrix based on pheromone levels and distances between cities.
+     * Takes the candidate lists of the cities from the instance, which builds them once, if candidates is positive.
      */
-    public static void setEdgeValueMatrix() {
-        edgeValueMatrix = new double[Data.numberOfCities][Data.numberOfCities];
-        for (int i = 0; i < Data.numberOfCities; i++) {
-            for (int j = 0 ; j < Data.numberOfCities; j++ ) {
-                if (i != j)
-                    edgeValueMatrix[i][j] = Math.pow(pheromoneMatrix[i][j],alpha) / Math.pow(Data.distanceMatrix[i][j],beta);
+    public void setCandidateLists() {
+        if (candidates > 0)
+            candidateLists = instance.candidateLists(candidates);
+        else
+            candidateLists = null;
+    }
+
+    /**
+     * Creates the construction buffers of every ant in the colony.
+     */
+    public void initialAnts() {
+        ants = new Ant[m];
+        for (int j = 0; j < m; j++) {
+            ants[j] = new Ant(numberOfCities, candidateLists);
+        }
+        localSearches = null;
+        if (localSearch != LocalSearch.Mode.NONE) {
+            CandidateLists neighbours = candidateLists != null ? candidateLists
+                    : instance.candidateLists(LocalSearch.DEFAULT_NEIGHBOURS);
+            localSearches = new LocalSearch[m];
+            for (int j = 0; j < m; j++) {
+                localSearches[j] = new LocalSearch(instance.distances, neighbours);
             }
         }
     }
 
     /**
-     * Traverses from a start city to find a path (cycle) using ant agents.
+     * Finds the distance of an ant tour, improving the tour first if every ant tour is improved by local search.
+     *
+     * @param ant The index of the ant.
+     * @param predecessors An array representing predecessors of each city in the cycle, improved in place.
+     * @return The total distance of the cycle.
+     */
+    public double evaluateTour(int ant, int[] predecessors) {
+        if (localSearch == LocalSearch.Mode.ALL_ANTS)
+            return localSearches[ant].improve(predecessors);
+        return findCycleDistance(predecessors);
+    }
+
+    /**
+     * Improves the best tour of an iteration by local search, if only iteration-best tours are improved.
+     *
+     * @param tours An array holding the predecessors array of each ant.
+     * @param distances The total distance of each tour, updated for the improved tour.
+     */
+    public void improveIterationBest(int[][] tours, double[] distances) {
+        if (localSearch != LocalSearch.Mode.ITERATION_BEST)
+            return;
+        int best = 0;
+        for (int j = 1; j < tours.length; j++) {
+            if (distances[j] < distances[best])
+                best = j;
+        }
+        distances[best] = localSearches[best].improve(tours[best]);
+    }
+
+    /**
+     * Lets an ant traverse from a start city to find a path (cycle).
+     * The returned array belongs to the ant and is overwritten by its next traversal.
      *
+     * @param ant The index of the ant.
      * @param startCity The index of the starting city.
+     * @param random The random number generator of the ant.
      * @return An array representing the predecessors of each city in the cycle.
      */
-    public static int[] traverse(int startCity) { // returns the path of the cycle
-        boolean[] visited = new boolean[Data.numberOfCities];
-        int[] predecessors = new int[Data.numberOfCities];
-        visited[startCity] = true;
-        int startCityInitial = startCity; // to complete cycle keep the first city info
-        int counter = 0;
-        while (counter < Data.numberOfCities-1) {  // finding the path of the current ant
-            if ( nextCity(startCity,visited) == -1)
-                break;
-            int afterCity = nextCity(startCity,visited);
-            visited[afterCity] = true;
-            predecessors[afterCity] = startCity;
-            startCity = afterCity; // at last iteration of while start city is also the last city to connect to original start city
-            counter++;
+    public int[] traverse(int ant, int startCity, RandomGenerator random) {
+        return ants[ant].traverse(startCity, edgeValueMatrix, pheromoneUpdate.exploitation(), random);
+    }
+
+    /**
+     * Creates one random number generator per ant for the given iteration.
+     * The generators only depend on the seed and the iteration, so a fixed seed gives the same tours for any number of threads.
+     *
+     * @param iteration The index of the iteration.
+     * @return An array holding the random number generator of each ant.
+     */
+    public SplittableRandom[] antRandoms(int iteration) {
+        SplittableRandom iterationRandom = new SplittableRandom(seed + iteration * 0x9E3779B97F4A7C15L);
+        SplittableRandom[] randoms = new SplittableRandom[m];
+        for (int j = 0; j < m; j++) {
+            randoms[j] = iterationRandom.split();
         }
-        predecessors[startCityInitial] = startCity;
-        return predecessors;
+        return randoms;
+    }
+
+    /**
+     * Lets all ants of an iteration construct their tours in parallel.
+     * The ants only read the edge value matrix, which does not change until the tours are deposited.
+     * The returned arrays belong to the ants and are overwritten in the next iteration.
+     *
+     * @param iteration The index of the iteration.
+     * @param distances The array the total distance of each tour is written to.
+     * @return An array holding the predecessors array of each ant.
+     */
+    public int[][] constructTours(int iteration, double[] distances) {
+        SplittableRandom[] randoms = antRandoms(iteration);
+        int[][] tours = new int[m][];
+        if (pool == null) {
+            Telemetry counted = telemetry;
+            pool = new ForkJoinPool(config.threads, p -> { // the allocations of the workers count for the telemetry
+                ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(p);
+                if (counted != null)
+                    counted.countThread(worker);
+                return worker;
+            }, null, false);
+        }
+        pool.submit(() -> IntStream.range(0, m).parallel().forEach(j -> {
+            int startCity = randoms[j].nextInt(numberOfCities);
+            tours[j] = traverse(j, startCity, randoms[j]);
+            distances[j] = evaluateTour(j, tours[j]);
+        })).join();
+        return tours;
+    }
+
+    /**
+     * Passes all tours of an iteration to the pheromone update in one step.
+     * Tours are deposited in ant order so the result does not depend on the number of threads.
+     *
+     * @param tours An array holding the predecessors array of each ant.
+     * @param distances The total distance of each tour.
+     */
+    public void depositTours(int[][] tours, double[] distances) {
+        for (int j = 0; j < tours.length; j++) {
+            pheromoneUpdate.afterTour(this, tours[j], distances[j]);
+        }
+    }
+
+    /**
+     * Makes the next solve continue the run that wrote a checkpoint: it starts after the last completed iteration, with the
+     * stored pheromone levels, best tour, counters and pheromone update state. With the configuration of that run, the
+     * resumed solve constructs the same tours as an uninterrupted one, since the random numbers only depend on the seed
+     * and the iteration. Telemetry and the time limit start over.
+     *
+     * @param checkpoint A checkpoint of a colony on the same instance.
+     */
+    public void resume(Checkpoint checkpoint) {
+        startFrom(checkpoint, true);
+    }
+
+    /**
+     * Makes the next solve start from the pheromone levels and the best tour of a checkpoint, e.g. of an earlier run with
+     * other parameters, instead of the initial pheromone level. The solve runs all of its iterations.
+     *
+     * @param checkpoint A checkpoint of a colony on the same instance.
+     */
+    public void warmStart(Checkpoint checkpoint) {
+        startFrom(checkpoint, false);
+    }
+
+    /**
+     * Sets the checkpoint the next solve starts from.
+     *
+     * @param checkpoint A checkpoint of a colony on the same instance.
+     * @param resume True to continue the run, false for a warm start.
+     */
+    private void startFrom(Checkpoint checkpoint, boolean resume) {
+        if (checkpoint.numberOfCities != numberOfCities || checkpoint.fingerprint != instance.fingerprint)
+            throw new IllegalArgumentException("Checkpoint was written for another instance than " + instance.name);
+        startFrom = checkpoint;
+        this.resume = resume;
+    }
+
+    /**
+     * Makes the next solve continue the search of a colony on the instance this colony's instance was derived from by
+     * adding and removing cities: it takes over the pheromone of the remaining edges and starts with a repaired tour as its
+     * best tour, so it only needs a few iterations to adapt the tour to the changed cities.
+     *
+     * @param previous The colony on the other instance, with the same alpha and beta.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     * @param route The repaired tour as a permutation of the cities.
+     * @param length The length of the repaired tour.
+     */
+    public void continueFrom(AntColony previous, int[] previousIndex, int[] route, double length) {
+        if (previous.pheromoneMatrix == null)
+            throw new IllegalArgumentException("The previous colony has not solved yet");
+        if (previous.alpha != alpha || previous.beta != beta)
+            throw new IllegalArgumentException("The previous colony has other edge values: alpha " + previous.alpha
+                    + ", beta " + previous.beta);
+        if (previousIndex.length != numberOfCities || route.length != numberOfCities)
+            throw new IllegalArgumentException("Got " + previousIndex.length + " indices and a route of " + route.length
+                    + " cities for " + numberOfCities + " cities");
+        this.previous = previous;
+        this.previousIndex = previousIndex;
+        startRoute = route;
+        startLength = length;
+    }
+
+    /**
+     * Runs the Ant Colony Optimization: creates the matrices and the ants, then lets the ants search for n iterations.
+     *
+     * @return The best cycle found, as a route starting with city 0.
+     */
+    public SolverResult solve() {
+        return solve(null);
     }
 
     /**
-     * Finds the next city to visit based on the current city and pheromone levels.
+     * Runs the Ant Colony Optimization until n iterations are done or a termination limit of the configuration is reached:
+     * the time limit, the number of iterations without improvement or the target length.
+     * The time limit is checked before every ant, or before every iteration when the ants construct in parallel,
+     * so a solve overruns it by at most one tour construction or one iteration.
+     * With a checkpoint file, the state is written every checkpointInterval iterations and at the end of the solve.
      *
-     * @param currentCity The index of the current city.
-     * @param visited An array indicating visited cities.
-     * @return The index of the next city to visit.
+     * @param listener Receives every new best tour at the end of its iteration, or null.
+     * @return The best cycle found, as a route starting with city 0.
      */
-    public static int nextCity(int currentCity, boolean[] visited) {
-        double totalEdgeValues = 0;
-        double[][] probabilities;
-        int counter = 0;
-        for (int i = 0; i < edgeValueMatrix.length; i++) {
-            if (!visited[i]) {
-                totalEdgeValues += edgeValueMatrix[currentCity][i];
-                counter++;
+    public SolverResult solve(ImprovementListener listener) {
+        return solve(listener, null);
+    }
+
+    /**
+     * Runs the Ant Colony Optimization like solve(listener), calling an iteration listener at the end of every iteration
+     * that does not stop the solve. The iteration listener may change the pheromone, e.g. by immigrate, or stop the solve.
+     *
+     * @param listener Receives every new best tour at the end of its iteration, or null.
+     * @param iterationListener Called at the end of every iteration on the thread running the solve, or null.
+     * @return The best cycle found, as a route starting with city 0.
+     */
+    public SolverResult solve(ImprovementListener listener, IterationListener iterationListener) {
+        long start = System.nanoTime();
+        long deadline = start + config.timeLimitMillis * 1_000_000L;
+        boolean timed = config.timeLimitMillis > 0;
+        minDistance = Double.MAX_VALUE;
+        bestRoute = null;
+        SolverResult.Termination termination = SolverResult.Termination.COMPLETED;
+        int iterations = 0;
+        int lastImprovement = 0;
+        bestSoFar = null;
+        telemetry = config.telemetry ? new Telemetry(instance.name, config.telemetrySampleInterval) : null;
+        if (previous != null) {
+            initializeFrom(previous, previousIndex);
+            minDistance = startLength;
+            bestRoute = predecessorsOf(startRoute);
+            bestSoFar = new SolverResult(instance, SolverConfig.Method.ANT_COLONY, routeOf(bestRoute), minDistance,
+                    0, 0, null, null);
+            previous = null; // the matrices of the other colony can be collected
+            previousIndex = null;
+            startRoute = null;
+        } else {
+            initialize();
+        }
+        int first = 0;
+        if (startFrom != null) { // the pheromone and best tour of a checkpoint replace the initial state
+            startFrom.readPheromone(pheromoneMatrix);
+            pheromoneScale = startFrom.pheromoneScale;
+            updateEdgeValueMatrix();
+            minDistance = startFrom.bestLength;
+            bestRoute = startFrom.bestRoute();
+            if (resume) {
+                pheromoneUpdate.restore(startFrom.state());
+                first = startFrom.iteration + 1;
+                iterations = startFrom.iterations;
+                lastImprovement = startFrom.lastImprovement;
+            }
+            bestSoFar = new SolverResult(instance, SolverConfig.Method.ANT_COLONY, routeOf(bestRoute), minDistance,
+                    iterations, 0, null, null);
+            startFrom = null;
+        }
+        CheckpointWriter checkpoints = null;
+        int lastIteration = first - 1;
+        int checkpointed = lastIteration;
+        int[] iterationBestTour = new int[numberOfCities];
+        try {
+            if (config.checkpointFile != null)
+                checkpoints = new CheckpointWriter(config.checkpointFile, instance, pheromoneMatrix.storedEdges(),
+                        config.singlePrecision);
+            for (int i = first; i < n; i++) {
+                if (timed && i > first && System.nanoTime() - deadline >= 0) { // the first iteration always runs, so there is a tour
+                    termination = SolverResult.Termination.TIME_LIMIT;
+                    break;
+                }
+                iterations++;
+                lastIteration = i;
+                double previousMinDistance = minDistance;
+                IterationStats stats = telemetry != null ? new IterationStats(i) : null;
+                long[] allocated = telemetry != null ? telemetry.allocatedBytes() : null;
+                double iterationBest = Double.MAX_VALUE;
+                double totalDistance = 0;
+                int tourCount = 0;
+                long constructionNanos = 0;
+                long depositNanos = 0;
+                if (config.parallelConstruction || localSearch == LocalSearch.Mode.ITERATION_BEST) { // all ants construct, then deposit together
+                    long constructionStart = clock();
+                    double[] distances = new double[m];
+                    int[][] tours;
+                    if (config.parallelConstruction) {
+                        tours = constructTours(i, distances);
+                    } else { // one ant after another on this thread; every ant keeps its own array until the deposit
+                        SplittableRandom[] randoms = antRandoms(i);
+                        tours = new int[m][];
+                        for (int j = 0; j < m; j++) {
+                            if (timed && j > 0 && System.nanoTime() - deadline >= 0) {
+                                termination = SolverResult.Termination.TIME_LIMIT;
+                                tours = Arrays.copyOf(tours, j);
+                                distances = Arrays.copyOf(distances, j);
+                                break;
+                            }
+                            int startCity = randoms[j].nextInt(numberOfCities);
+                            tours[j] = traverse(j, startCity, randoms[j]);
+                            distances[j] = evaluateTour(j, tours[j]);
+                        }
+                    }
+                    improveIterationBest(tours, distances);
+                    long depositStart = clock();
+                    for (int j = 0; j < tours.length; j++) {
+                        if (distances[j] < minDistance) {
+                            minDistance = distances[j];
+                            bestRoute = tours[j].clone();
+                        }
+                        if (distances[j] < iterationBest) {
+                            iterationBest = distances[j];
+                            iterationBestTour = tours[j];
+                        }
+                        totalDistance += distances[j];
+                    }
+                    tourCount = tours.length;
+                    depositTours(tours, distances);
+                    constructionNanos = depositStart - constructionStart;
+                    depositNanos = clock() - depositStart;
+                } else {
+                    SplittableRandom[] randoms = antRandoms(i);
+                    for (int j = 0; j < m; j++) {
+                        if (timed && j > 0 && System.nanoTime() - deadline >= 0) {
+                            termination = SolverResult.Termination.TIME_LIMIT;
+                            break;
+                        }
+                        long constructionStart = clock();
+                        int startCity = randoms[j].nextInt(numberOfCities);
+                        int[] predecessors = traverse(j, startCity, randoms[j]); // keeping track of route
+                        double cycleDistance = evaluateTour(j, predecessors); // improved first if local search is on
+                        long depositStart = clock();
+                        pheromoneUpdate.afterTour(this, predecessors, cycleDistance);
+                        constructionNanos += depositStart - constructionStart;
+                        depositNanos += clock() - depositStart;
+                        if (cycleDistance < minDistance) {
+                            minDistance = cycleDistance;
+                            bestRoute = predecessors.clone(); // the ant reuses its array in the next traversal
+                        }
+                        if (cycleDistance < iterationBest) {
+                            iterationBest = cycleDistance;
+                            System.arraycopy(predecessors, 0, iterationBestTour, 0, numberOfCities);
+                        }
+                        totalDistance += cycleDistance;
+                        tourCount++;
+                    }
+                }
+                edgeValueNanos = 0;
+                long evaporationStart = clock();
+                pheromoneUpdate.afterIteration(this, i, iterationBestTour, iterationBest, bestRoute, minDistance);
+                if (stats != null) {
+                    stats.constructionNanos = constructionNanos;
+                    stats.depositNanos = depositNanos;
+                    stats.edgeValueNanos = edgeValueNanos;
+                    stats.evaporationNanos = clock() - evaporationStart - edgeValueNanos;
+                    stats.bestLength = minDistance;
+                    stats.iterationBestLength = iterationBest;
+                    stats.meanLength = totalDistance / tourCount;
+                    if (telemetry.samples(i))
+                        measureConvergence(stats);
+                    stats.allocatedBytes = telemetry.allocatedSince(allocated);
+                    telemetry.record(stats);
+                }
+                if (minDistance < previousMinDistance) { // publish the new best tour
+                    lastImprovement = i;
+                    bestSoFar = new SolverResult(instance, SolverConfig.Method.ANT_COLONY, routeOf(bestRoute), minDistance,
+                            iterations, System.nanoTime() - start, null, null);
+                    if (listener != null)
+                        listener.improved(bestSoFar);
+                }
+                if (termination != SolverResult.Termination.COMPLETED)
+                    break;
+                if (checkpoints != null && (i + 1) % config.checkpointInterval == 0
+                        && checkpoints.write(this, i, iterations, lastImprovement, bestRoute, minDistance))
+                    checkpointed = i;
+                if (minDistance <= config.targetLength) {
+                    termination = SolverResult.Termination.TARGET_LENGTH;
+                    break;
+                }
+                if (config.stagnationLimit > 0 && i - lastImprovement >= config.stagnationLimit) {
+                    termination = SolverResult.Termination.STAGNATION;
+                    break;
+                }
+                if (iterationListener != null && !iterationListener.iterationEnded(this, i)) {
+                    termination = SolverResult.Termination.STOPPED;
+                    break;
+                }
+            }
+            if (checkpoints != null && bestRoute != null && checkpointed != lastIteration) { // the final state
+                checkpoints.awaitFlush();
+                checkpoints.write(this, lastIteration, iterations, lastImprovement, bestRoute, minDistance);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (checkpoints != null)
+                checkpoints.close();
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
         }
-        probabilities = new double[counter+1][2]; // to keep the index too, create a 2-dimensional array
-        double probability;
-        int counterForProbabilityList = 0;
-        for (int i = 0; i < edgeValueMatrix.length; i++) {
-            if (!visited[i]) {
-                probability = edgeValueMatrix[currentCity][i] / totalEdgeValues;
-                probabilities[counterForProbabilityList+1][0] = probabilities[counterForProbabilityList][0] + probability;
-                probabilities[counterForProbabilityList+1][1] = i;
-                counterForProbabilityList++;
+        int[] route = bestRoute != null ? routeOf(bestRoute) : identityRoute(numberOfCities); // without iterations, the file order
+        double length = bestRoute != null ? minDistance : instance.routeLength(route);
+        return new SolverResult(instance, SolverConfig.Method.ANT_COLONY, route, length, iterations, System.nanoTime() - start,
+                termination, telemetry);
+    }
+
+    /**
+     * Returns the current time in nanoseconds if telemetry is on, so the phase timings cost nothing when it is off.
+     *
+     * @return The value of System.nanoTime, or 0 without telemetry.
+     */
+    private long clock() {
+        return telemetry != null ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Computes how far the pheromone has converged: the mean entropy of the pheromone on the edges of each city, scaled so
+     * that 1 is uniform pheromone and 0 a single edge, and the mean lambda-branching factor, the number of edges of a city
+     * whose pheromone is above its smallest level plus lambda times its range. With candidate lists only candidate edges count.
+     *
+     * @param stats The measurements the results are written to.
+     */
+    public void measureConvergence(IterationStats stats) {
+        double entropy = 0;
+        double branches = 0;
+        int k = candidateLists != null ? candidateLists.k : numberOfCities - 1;
+        if (k < 2)
+            return;
+        double[] levels = new double[k];
+        for (int i = 0; i < numberOfCities; i++) {
+            int count = 0;
+            if (candidateLists != null) {
+                for (int s = i * k, end = s + k; s < end; s++) {
+                    levels[count++] = pheromoneMatrix.candidateEntry(s, i, candidateLists.neighbours[s]);
+                }
+            } else {
+                for (int j = 0; j < numberOfCities; j++) {
+                    if (j != i)
+                        levels[count++] = pheromoneMatrix.get(i, j);
+                }
+            }
+            double total = 0;
+            double min = Double.MAX_VALUE;
+            double max = 0;
+            for (int c = 0; c < count; c++) {
+                total += levels[c];
+                min = Math.min(min, levels[c]);
+                max = Math.max(max, levels[c]);
             }
+            double cityEntropy = 0;
+            double cutoff = min + Telemetry.BRANCHING_LAMBDA * (max - min);
+            for (int c = 0; c < count; c++) {
+                double p = levels[c] / total;
+                if (p > 0)
+                    cityEntropy -= p * Math.log(p);
+                if (levels[c] >= cutoff)
+                    branches++;
+            }
+            entropy += cityEntropy / Math.log(count);
+        }
+        stats.entropy = entropy / numberOfCities;
+        stats.branchingFactor = branches / numberOfCities;
+    }
+
+    /**
+     * Reinforces a tour found elsewhere, e.g. by another colony of an island model: every edge of the tour receives the
+     * deposit q / length, and the tour becomes the best tour of the running solve if it is shorter.
+     * The length is computed on this colony's instance, since the tour may come from another process.
+     * It must be called between iterations on the thread running the solve, i.e. from an iteration listener.
+     *
+     * @param route The tour as a permutation of the cities.
+     * @throws IllegalArgumentException If the route is not a permutation of the cities.
+     */
+    public void immigrate(int[] route) {
+        if (route.length != numberOfCities)
+            throw new IllegalArgumentException("Got a route of " + route.length + " cities for " + numberOfCities + " cities");
+        boolean[] seen = new boolean[numberOfCities];
+        for (int city : route) {
+            if (city < 0 || city >= numberOfCities || seen[city])
+                throw new IllegalArgumentException("Route is not a permutation of " + numberOfCities + " cities, city " + city);
+            seen[city] = true;
+        }
+        double length = instance.routeLength(route);
+        int[] predecessors = predecessorsOf(route);
+        double deposit = q / length;
+        for (int k = 0; k < numberOfCities; k++) {
+            setPheromone(k, predecessors[k], pheromone(k, predecessors[k]) + deposit);
+        }
+        if (length < minDistance) { // the iteration-best and best-tour deposits of the next iterations use it
+            minDistance = length;
+            bestRoute = predecessors;
+        }
+    }
+
+    /**
+     * Converts a route into a predecessors array.
+     *
+     * @param route The permutation of cities, the last city is connected back to the first.
+     * @return An array holding the predecessor of each city in the cycle.
+     */
+    public static int[] predecessorsOf(int[] route) {
+        int[] predecessors = new int[route.length];
+        for (int i = 0; i < route.length; i++) {
+            predecessors[route[i]] = route[i == 0 ? route.length - 1 : i - 1];
+        }
+        return predecessors;
+    }
+
+    /**
+     * Returns the best tour found so far by the running or last solve. It can be called from any thread.
+     *
+     * @return The best tour so far, or null if no tour has been completed yet.
+     */
+    public SolverResult bestSoFar() {
+        return bestSoFar;
+    }
+
+    /**
+     * Converts a predecessors array into a route starting with city 0, following the predecessors.
+     *
+     * @param predecessors An array representing predecessors of each city in the cycle.
+     * @return The cycle as a permutation of the cities starting with city 0.
+     */
+    public static int[] routeOf(int[] predecessors) {
+        int[] route = new int[predecessors.length];
+        int city = 0;
+        for (int k = 0; k < route.length; k++) {
+            route[k] = city;
+            city = predecessors[city];
         }
-        double randomNumber = Math.random();
-        for (int i = 0; i < counter; i++) {
-            if (probabilities[i][0] < randomNumber &&  randomNumber < probabilities[i+1][0])
-                return (int) probabilities[i+1][1];
+        return route;
+    }
+
+    /**
+     * Returns the cities in index order.
+     *
+     * @param numberOfCities The number of cities.
+     * @return The route 0, 1, ..., numberOfCities - 1.
+     */
+    public static int[] identityRoute(int numberOfCities) {
+        int[] route = new int[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            route[i] = i;
         }
-        return -1; // if all cities are visited
+        return route;
     }
 
     /**
@@ -130,50 +933,46 @@ public class AntColony {
      * @param predecessors An array representing predecessors of each city in the cycle.
      * @return The total distance of the cycle.
      */
-    public static double findCycleDistance(int[] predecessors) {
-        int numberOfCities = Data.distanceMatrix.length;
-        double cycleLength = 0;
-        for (int k = 0; k < numberOfCities; k++) { // calculating the total cycle distance
-            int index = predecessors[k];
-            cycleLength += Data.distanceMatrix[index][k];
-        }
-        return cycleLength;
+    public double findCycleDistance(int[] predecessors) {
+        return instance.cycleLength(predecessors);
     }
 
     /**
      * Updates the pheromone matrix based on the cycle found by an ant.
+     * Only the edge values of the edges on the cycle are refreshed, and with candidate lists only candidate edges are updated.
      *
      * @param predecessors An array representing predecessors of each city in the cycle.
      * @param distance The total distance of the cycle.
      */
-    public static void updatePheromoneMatrix(int[] predecessors, double distance) {
+    public void updatePheromoneMatrix(int[] predecessors, double distance) {
+        double deposit = q / distance / pheromoneScale; // stored values are relative to the scale
         for (int i = 0; i < predecessors.length; i++) {
-            pheromoneMatrix[i][predecessors[i]] += q/distance;
-            pheromoneMatrix[predecessors[i]][i] += q/distance;
+            if (candidateLists != null && !candidateLists.isCandidateEdge(i, predecessors[i]))
+                continue;
+            pheromoneMatrix.add(i, predecessors[i], deposit); // also adds to the mirrored entry
+            updateEdgeValue(i, predecessors[i]);
         }
     }
 
     /**
-     * Updates the edge value matrix based on the updated pheromone levels.
+     * Recomputes the whole edge value matrix from the pheromone levels.
      */
-    public static void updateEdgeValueMatrix() {
-        for (int i = 0; i < Data.numberOfCities; i++) {
-            for (int j = 0 ; j < Data.numberOfCities; j++ ) {
-                if (i != j)
-                    edgeValueMatrix[i][j] = Math.pow(pheromoneMatrix[i][j],alpha) / Math.pow(Data.distanceMatrix[i][j],beta);
-            }
-        }
+    public void updateEdgeValueMatrix() {
+        long refreshStart = clock();
+        edgeValueMatrix.setPowerProduct(pheromoneMatrix, alpha, heuristicMatrix); // one pass over the stores with the kernels
+        edgeValueNanos += clock() - refreshStart;
     }
 
     /**
      * Degrades pheromone levels on edges based on the degradation factor.
+     * Evaporation only lowers the global pheromone scale, the matrices are rewritten only when the scale gets too small.
      */
-    public static void degrade() {
-        for (int i = 0; i < Data.numberOfCities; i++) {
-            for (int j = 0 ; j < Data.numberOfCities; j++ ) {
-                pheromoneMatrix[i][j] *= degradationFactor;
-                edgeValueMatrix[i][j] = Math.pow(pheromoneMatrix[i][j],alpha) / Math.pow(Data.distanceMatrix[i][j],beta);
-            }
+    public void degrade() {
+        pheromoneScale *= degradationFactor;
+        if (pheromoneScale < renormalizationThreshold) { // fold the scale into the matrix before it underflows or the edge values overflow
+            pheromoneMatrix.scale(pheromoneScale);
+            pheromoneScale = 1;
+            updateEdgeValueMatrix();
         }
     }
 
@@ -198,25 +997,28 @@ public class AntColony {
     }
 
     /**
-     * Draws the pheromone map.
+     * Draws the pheromone map. The edges are culled like those of the headless images, so only the edges among the
+     * HeadlessRenderer.DEFAULT_TOP_K with the most pheromone of a city and above HeadlessRenderer.DEFAULT_THRESHOLD of
+     * the highest level are drawn.
      */
-    public static void printPheromoneMap() {
-        int n = Data.numberOfCities;
+    public void printPheromoneMap() {
+        HeadlessRenderer.Snapshot snapshot = HeadlessRenderer.pheromoneSnapshot(this, HeadlessRenderer.DEFAULT_THRESHOLD,
+                HeadlessRenderer.DEFAULT_TOP_K);
         StdDraw.enableDoubleBuffering();
         StdDraw.setCanvasSize(1000,1000);
-        for (int i = 0; i < n;  i++) {
-            for (int j = 0; j <= i ; j++) {
-                double thickness = pheromoneMatrix[i][j];
-                StdDraw.setPenRadius(thickness);
-                StdDraw.line(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1], Data.cityCoordinates[j][0],Data.cityCoordinates[j][1]);
-            }
+        for (int e = 0; e < snapshot.edges(); e++) {
+            int i = snapshot.from(e);
+            int j = snapshot.to(e);
+            double thickness = pheromone(i, j);
+            StdDraw.setPenRadius(thickness);
+            StdDraw.line(instance.x(i),instance.y(i), instance.x(j),instance.y(j));
         }
-        for (int i = 0; i < Data.numberOfCities; i++) {
+        for (int i = 0; i < numberOfCities; i++) {
             StdDraw.setPenColor(Color.LIGHT_GRAY);
             if (i == 0) StdDraw.setPenColor(StdDraw.PRINCETON_ORANGE);
-            StdDraw.filledCircle(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1],0.02);
+            StdDraw.filledCircle(instance.x(i),instance.y(i),0.02);
             StdDraw.setPenColor(Color.BLACK);
-            StdDraw.text(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1]-0.001, String.valueOf(i+1));
+            StdDraw.text(instance.x(i),instance.y(i)-0.001, String.valueOf(i+1));
         }
         StdDraw.show();
     }
@@ -224,12 +1026,12 @@ public class AntColony {
     /**
      * Draws the best route found during optimization.
      *
-     * @param bestRoute An array representing the best route.
+     * @param bestRoute An array representing the best route, cities numbered from 1 as printed.
      */
-    public static void printBestRoute(int[] bestRoute) {
+    public void printBestRoute(int[] bestRoute) {
         int city1 = 0;
         int city2 = 0;
-        int n = Data.numberOfCities;
+        int n = numberOfCities;
         StdDraw.enableDoubleBuffering();
         StdDraw.setCanvasSize(1000,1000);
         StdDraw.setPenColor(Color.BLACK);
@@ -239,18 +1041,21 @@ public class AntColony {
                 city1 = bestRoute[i] - 1;
                 city2 = bestRoute[i + 1] - 1;
             }
+            else if (bestRoute[i] != bestRoute[0]) { // a route that does not end with its first city is closed here
+                city1 = bestRoute[i] - 1;
+                city2 = bestRoute[0] - 1;
+            }
             else {
-                city1 = bestRoute[i];
-                city2 = bestRoute[0];
+                continue;
             }
-            StdDraw.line(Data.cityCoordinates[city1][0],Data.cityCoordinates[city1][1], Data.cityCoordinates[city2][0],Data.cityCoordinates[city2][1]);
+            StdDraw.line(instance.x(city1),instance.y(city1), instance.x(city2),instance.y(city2));
         }
-        for (int i = 0; i < Data.numberOfCities; i++) {
+        for (int i = 0; i < numberOfCities; i++) {
             StdDraw.setPenColor(Color.LIGHT_GRAY);
             if (i == 0) StdDraw.setPenColor(StdDraw.PRINCETON_ORANGE);
-            StdDraw.filledCircle(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1],0.02);
+            StdDraw.filledCircle(instance.x(i),instance.y(i),0.02);
             StdDraw.setPenColor(Color.BLACK);
-            StdDraw.text(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1]-0.001, String.valueOf(i+1));
+            StdDraw.text(instance.x(i),instance.y(i)-0.001, String.valueOf(i+1));
         }
         StdDraw.show();
     }
@@ -1,14 +1,20 @@
 /**
  * The AntColonyOptimized-TSP class contains the main method to execute either the Brute-Force method or the Ant Colony Optimization method
  * to find the shortest path in a given set of cities represented as coordinates.
- * The chosen method is specified by setting the value of the 'chosenMethod' variable to either 1 (Brute-Force method) or 2 (Ant Colony Optimization method).
+ * The chosen method is specified by setting the value of the 'chosenMethod' variable to either 1 (Brute-Force method), 2 (Ant Colony Optimization method)
+ * or 3 (Held-Karp method).
  * The class initializes necessary parameters for both methods and executes the chosen method accordingly.
  * If the Brute-Force method is chosen, it generates all possible permutations of the cities to find the shortest path.
  * If the Ant Colony Optimization method is chosen, it utilizes ant agents to explore the search space and update pheromone levels to find the shortest path.
+ * If the Held-Karp method is chosen, it finds the exact shortest path by dynamic programming over subsets of cities, which is feasible up to about 24 cities.
  * The class also provides functionality to draw the best route or the pheromone map based on the specified parameters.
  * @author Omer Taha Ornek ,Student ID: 2022400117
  * @since 30.04.2024
  */
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Arrays;
 public class AntColonyOptimizedTSP{
     /**
@@ -18,74 +24,77 @@ public class AntColonyOptimizedTSP{
      * @param args The command-line arguments passed to the program.
      */
     public static void main(String[] args) {
-        int chosenMethod = 1; // if 1 Brute-Force method , else if 2 Ant Colony Optimization method
-        AntColony.m = 50;
-        AntColony.n = 100;
-        AntColony.degradationFactor = 0.8;
-        AntColony.q = 0.0001;
-        AntColony.initialPheromone = 0.001;
-        AntColony.alpha = 1.1;
-        AntColony.beta = 1.6;
+        int chosenMethod = 1; // if 1 Brute-Force method , else if 2 Ant Colony Optimization method, else if 3 Held-Karp method
+        SolverConfig config = SolverConfig.builder()
+                .algorithm(SolverConfig.Algorithm.ANT_SYSTEM) // or MAX_MIN_ANT_SYSTEM or ANT_COLONY_SYSTEM
+                .ants(50)
+                .iterations(100)
+                .degradationFactor(0.8)
+                .q(0.0001)
+                .initialPheromone(0.001)
+                .alpha(1.1)
+                .beta(1.6)
+                .seed(42)
+                .parallelConstruction(false)
+                .candidates(0) // if positive, ants only choose among this many nearest neighbours of each city
+                .localSearch(LocalSearch.Mode.NONE) // 2-opt and Or-opt on every ant tour or on the best tour of each iteration
+                .timeLimitMillis(0) // if positive, the search stops after this many milliseconds
+                .stagnationLimit(0) // if positive, the search stops after this many iterations without a shorter tour
+                .targetLength(0) // if positive, the search stops once a tour is at most this long
+                .telemetry(false) // if true, each iteration is measured and written to a CSV file next to the input file
+                .checkpointFile(null) // if set, the colony state is written to this file every checkpointInterval iterations
+                .build();
         String fileName = "input01.txt";
-        Data.setNumberOfCities(fileName);
-        Data.setCityCoordinates(fileName);
-        Data.setDistanceMatrix();
-        double minDistance = Double.MAX_VALUE;
-        int[] bestRoute = new int[1];
+        Instance instance;
+        try {
+            instance = Instance.read(fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
 
-        if (chosenMethod == 1) { // Brute-Force method
-            int[] initialRoute = new int[Data.numberOfCities];
-            for (int i = 0; i < Data.numberOfCities; i++) {
-                initialRoute[i] = i;
-            }
-            long start = System.currentTimeMillis();
-            BruteForce.permute(initialRoute, 1); // assign k to 1 to reduce complexity since we always start from Migros.
-            long end = System.currentTimeMillis();
-            bestRoute = BruteForce.bestRoute;
-            minDistance = BruteForce.minDistance;
-            bestRoute = BruteForce.editedRoute(bestRoute);  // transforms predecessors  array into route.
-            BruteForce.drawRoute(bestRoute);
-            System.out.println("Method: Brute-Force Method");
-            System.out.printf("Shortest Distance: " + "%.4f\n", minDistance);
+        if (chosenMethod == 1 || chosenMethod == 3) { // Brute-Force method or Held-Karp method
+            SolverConfig.Method method = chosenMethod == 1 ? SolverConfig.Method.BRUTE_FORCE : SolverConfig.Method.HELD_KARP;
+            SolverResult result = new Solver(config.toBuilder().method(method).build()).solve(instance); // the route always starts from Migros.
+            int[] bestRoute = result.cycle(); // transforms the route into a cycle starting from Migros.
+            BruteForce.drawRoute(instance, bestRoute);
+            System.out.println(chosenMethod == 1 ? "Method: Brute-Force Method" : "Method: Held-Karp Method");
+            System.out.printf("Shortest Distance: " + "%.4f\n", result.length);
             System.out.println("Shortest Path: " + Arrays.toString(bestRoute));
-            System.out.println("Time it takes to find the shortest path: " + (end - start) / 1000.0);
+            System.out.println("Time it takes to find the shortest path: " + result.nanos / 1e9);
         }
 
         else if (chosenMethod == 2) { // Ant colony optimization method
 
-            int whatToDraw = 1; // if 1 draw pheromone map, else if 2 draws the best route
+            int whatToDraw = 1; // if 1 draw pheromone map, else if 2 draws the best route, else if 3 writes both to a PNG file without a window
 
-            long start = System.currentTimeMillis();
-            AntColony.initialPheromoneMatrix(); // creating a pheromone matrix  numberOfCities * numberOfCities
-            AntColony.setEdgeValueMatrix(); // creating an edgeValueMatrix  numberOfCities * numberOfCities
-            for (int i = 0; i < AntColony.n; i++) {
-                for (int j = 0; j < AntColony.m; j++) {
-                    int startCity = (int) (Math.random() * Data.numberOfCities);
-                    int[] predecessors = AntColony.traverse(startCity); // keeping track of route
-                    double cycleDistance = AntColony.findCycleDistance(predecessors);
-                    AntColony.updatePheromoneMatrix(predecessors, cycleDistance);
-                    AntColony.updateEdgeValueMatrix();
-                    if (cycleDistance < minDistance) {
-                        bestRoute = null;  // to reset the array
-                        bestRoute = new int[predecessors.length];
-                        minDistance = cycleDistance;
-                        bestRoute = predecessors;
-                    }
-                }
-                AntColony.degrade();
-                //System.out.println(minDistance);
-            }
-            bestRoute = AntColony.findRoute(bestRoute);
-            long end = System.currentTimeMillis();
+            AntColony colony = new AntColony(instance, config);
+            SolverResult result = colony.solve(); // keeping track of the best cycle
+            int[] bestRoute = result.cycle();
             System.out.println("Method: Ant Colony Optimization Method");
-            System.out.printf("Shortest Distance: " + "%.4f\n", minDistance);
+            System.out.printf("Shortest Distance: " + "%.4f\n", result.length);
             System.out.println("Shortest Path: " + Arrays.toString(bestRoute));
-            System.out.println("Time it takes to find the shortest path: " + (end - start) / 1000.0);
+            System.out.println("Time it takes to find the shortest path: " + result.nanos / 1e9);
+            if (result.telemetry != null) {
+                try (Writer out = Files.newBufferedWriter(Path.of(fileName + ".telemetry.csv"))) {
+                    result.telemetry.writeCsv(out);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
             if (whatToDraw == 1) { // draws pheromone matrix
-                AntColony.printPheromoneMap();
+                colony.printPheromoneMap();
             }
             else if (whatToDraw == 2) { // draws the best route
-                AntColony.printBestRoute(bestRoute);
+                colony.printBestRoute(bestRoute);
+            }
+            else if (whatToDraw == 3) { // headless, for machines without a display
+                try (HeadlessRenderer renderer = new HeadlessRenderer(1000, 1000)) {
+                    renderer.write(HeadlessRenderer.pheromoneSnapshot(colony,
+                            HeadlessRenderer.DEFAULT_THRESHOLD, HeadlessRenderer.DEFAULT_TOP_K), Path.of(fileName + ".png"));
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
         }
     }
@@ -0,0 +1,76 @@
+/**
+ * The AntColonySystemUpdate class is the pheromone update of Ant Colony System.
+ * Ants take the best edge with probability exploitation and use the roulette otherwise. After its tour, an ant moves the
+ * pheromone of its edges towards tau0 (the local update), which makes the following ants of the iteration try other edges.
+ * At the end of each iteration only the edges of the best tour so far evaporate and receive pheromone (the global update),
+ * so no pass over the whole matrix is needed. tau0 is q / (n * L), with L the length of a nearest neighbour tour.
+ * When all ants construct at once, the local updates are applied after every tour is built.
+ */
+public class AntColonySystemUpdate implements PheromoneUpdate {
+
+    /** Share of the pheromone of a best-tour edge that evaporates in the global update. */
+    private final double evaporation;
+
+    /** Share of the pheromone of an edge moved towards tau0 in the local update. */
+    private final double localEvaporation;
+
+    /** Probability of taking the edge with the highest value. */
+    private final double exploitation;
+
+    /** Pheromone update factor. */
+    private final double q;
+
+    /** Pheromone level the local update moves towards, also the initial level. */
+    private double tau0;
+
+    /**
+     * Creates the update with the parameters of a configuration.
+     *
+     * @param config The configuration of the colony.
+     */
+    public AntColonySystemUpdate(SolverConfig config) {
+        evaporation = 1 - config.degradationFactor;
+        localEvaporation = config.localEvaporation;
+        exploitation = config.exploitation;
+        q = config.q;
+    }
+
+    @Override
+    public double initialPheromone(AntColony colony) {
+        tau0 = q / (colony.numberOfCities * colony.nearestNeighbourLength());
+        return tau0;
+    }
+
+    @Override
+    public double exploitation() {
+        return exploitation;
+    }
+
+    @Override
+    public double[] state() {
+        return new double[] {tau0};
+    }
+
+    @Override
+    public void restore(double[] state) {
+        tau0 = state[0];
+    }
+
+    @Override
+    public void afterTour(AntColony colony, int[] predecessors, double distance) {
+        for (int i = 0; i < predecessors.length; i++) {
+            double level = colony.pheromone(i, predecessors[i]);
+            colony.setPheromone(i, predecessors[i], (1 - localEvaporation) * level + localEvaporation * tau0);
+        }
+    }
+
+    @Override
+    public void afterIteration(AntColony colony, int iteration, int[] iterationBest, double iterationBestLength,
+            int[] globalBest, double globalBestLength) {
+        double deposit = q / globalBestLength;
+        for (int i = 0; i < globalBest.length; i++) {
+            double level = colony.pheromone(i, globalBest[i]);
+            colony.setPheromone(i, globalBest[i], (1 - evaporation) * level + evaporation * deposit);
+        }
+    }
+}
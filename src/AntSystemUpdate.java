@@ -0,0 +1,22 @@
+/**
+ * The AntSystemUpdate class is the pheromone update of the basic Ant System: every ant deposits q / distance on its tour
+ * right after constructing it, and every edge evaporates by the degradation factor at the end of each iteration.
+ */
+public class AntSystemUpdate implements PheromoneUpdate {
+
+    @Override
+    public double initialPheromone(AntColony colony) {
+        return colony.config.initialPheromone;
+    }
+
+    @Override
+    public void afterTour(AntColony colony, int[] predecessors, double distance) {
+        colony.updatePheromoneMatrix(predecessors, distance);
+    }
+
+    @Override
+    public void afterIteration(AntColony colony, int iteration, int[] iterationBest, double iterationBestLength,
+            int[] globalBest, double globalBestLength) {
+        colony.degrade();
+    }
+}
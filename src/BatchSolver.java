@@ -0,0 +1,139 @@
+/**
+ * The BatchSolver class solves many instances in one JVM, running at most a fixed number of solves at the same time.
+ * Solves run on a fixed thread pool, or on virtual threads when the JVM provides them (Java 21 and later); the number of
+ * concurrent solves is bounded either way, because every colony holds its matrices until its solve ends.
+ * For many small instances, parallel tour construction should be off, since the batch already keeps every core busy.
+ */
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+public class BatchSolver implements AutoCloseable {
+
+    /** The solver every instance is solved with. */
+    public final Solver solver;
+
+    /** Largest number of solves running at the same time. */
+    public final int parallelism;
+
+    /** True if the solves run on virtual threads. */
+    public final boolean virtualThreads;
+
+    /** The executor the solves run on. */
+    private final ExecutorService executor;
+
+    /** Permits for running solves, only used with virtual threads, which are not pooled. */
+    private final Semaphore permits;
+
+    /**
+     * Creates a batch solver on a fixed pool with one thread per processor.
+     *
+     * @param solver The solver every instance is solved with.
+     */
+    public BatchSolver(Solver solver) {
+        this(solver, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * Creates a batch solver.
+     *
+     * @param solver The solver every instance is solved with.
+     * @param parallelism The largest number of solves running at the same time.
+     * @param preferVirtualThreads If true, solves run on virtual threads if the JVM provides them.
+     */
+    public BatchSolver(Solver solver, int parallelism, boolean preferVirtualThreads) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be positive: " + parallelism);
+        this.solver = solver;
+        this.parallelism = parallelism;
+        ExecutorService virtual = preferVirtualThreads ? virtualThreadExecutor() : null;
+        virtualThreads = virtual != null;
+        executor = virtualThreads ? virtual : Executors.newFixedThreadPool(parallelism);
+        permits = virtualThreads ? new Semaphore(parallelism) : null;
+    }
+
+    /**
+     * Creates an executor that starts a virtual thread per task, looked up by reflection so the class also runs on Java 17.
+     *
+     * @return The executor, or null if the JVM has no virtual threads.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException | UnsupportedOperationException e) { // before Java 21, or a preview feature that is off
+            return null;
+        }
+    }
+
+    /**
+     * Submits an instance to be solved.
+     *
+     * @param instance The instance to solve.
+     * @return A future completed with the result of the solve.
+     */
+    public CompletableFuture<SolverResult> submit(Instance instance) {
+        return submit(instance, null);
+    }
+
+    /**
+     * Submits an instance to be solved, publishing every new best tour while it is solved.
+     *
+     * @param instance The instance to solve.
+     * @param listener Receives every new best tour on the thread of the solve, or null.
+     * @return A future completed with the result of the solve.
+     */
+    public CompletableFuture<SolverResult> submit(Instance instance, ImprovementListener listener) {
+        return CompletableFuture.supplyAsync(() -> {
+            if (permits == null)
+                return solver.solve(instance, listener);
+            permits.acquireUninterruptibly();
+            try {
+                return solver.solve(instance, listener);
+            } finally {
+                permits.release();
+            }
+        }, executor);
+    }
+
+    /**
+     * Solves every instance and waits until all solves have ended.
+     *
+     * @param instances The instances to solve.
+     * @return The results, in the order of the instances.
+     * @throws java.util.concurrent.CompletionException If a solve failed, after every other solve has ended.
+     */
+    public List<SolverResult> solveAll(List<Instance> instances) {
+        List<CompletableFuture<SolverResult>> futures = new ArrayList<>(instances.size());
+        for (Instance instance : instances) {
+            futures.add(submit(instance));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).exceptionally(e -> null).join();
+        List<SolverResult> results = new ArrayList<>(instances.size());
+        for (CompletableFuture<SolverResult> future : futures) {
+            results.add(future.join());
+        }
+        return results;
+    }
+
+    /**
+     * Waits for the submitted solves to end and stops the executor.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                // a long batch, keep waiting
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
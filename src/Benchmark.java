@@ -0,0 +1,685 @@
+/**
+ * The Benchmark class measures the hot paths of the solver on random instances and the whole solve on the input files.
+ * Every benchmark is warmed up for a fixed time before it is measured for at least a second. Next to the time of a single
+ * operation it reports the memory allocated by the benchmark thread and the garbage collections during the measurement.
+ * The groups to run can be given as arguments: construction, deposit, evaporation, edgevalues, distances, storage, exact,
+ * solve, algorithms and kernels. Without arguments every group runs.
+ */
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Supplier;
+
+public class Benchmark {
+
+    /** Thread bean used to read the number of bytes allocated by the benchmark thread. */
+    private static final com.sun.management.ThreadMXBean threadBean =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    /** Every benchmark group, in the order they run. */
+    public static final String[] GROUPS = {"construction", "deposit", "evaporation", "edgevalues", "distances", "storage", "exact", "solve", "algorithms", "kernels"};
+
+    /** Numbers of cities of the random instances. */
+    public static final int[] SIZES = {10, 100, 1000, 10000};
+
+    /** Input files of the end-to-end benchmark. */
+    public static final String[] INPUT_FILES = {"input01.txt", "input02.txt", "input03.txt", "input04.txt", "input05.txt", "input06.txt"};
+
+    /** Number of seeds each input file is solved with. */
+    public static final int SOLVE_RUNS = 5;
+
+    /** Largest instance whose optimum is computed to report the gap of the end-to-end benchmark. */
+    public static final int MAX_EXACT_CITIES = 20;
+
+    /** Number of cities of the instance the pheromone update algorithms are compared on. */
+    public static final int ALGORITHM_CITIES = 200;
+
+    /** Time each algorithm run may take in milliseconds. */
+    public static final long ALGORITHM_TIME_LIMIT_MILLIS = 5000;
+
+    /** Gap to the reference length that counts as reaching the target. */
+    public static final double TARGET_GAP = 0.02;
+
+    /** Numbers of cities the scalar and vector kernels are compared on. */
+    public static final int[] KERNEL_SIZES = {1000, 2000, 4000};
+
+    /** Instances larger than this use packed float matrices, so the matrices of 10000 cities fit the heap. */
+    public static final int PACKED_STORAGE_CITIES = 2000;
+
+    /** Number of cities the matrix storages are compared on. */
+    public static final int STORAGE_CITIES = 2000;
+
+    /** The compared matrix storages: layout, precision and optionally off-heap. */
+    public static final String[] STORAGES = {"FULL-double", "TRIANGULAR-double", "TRIANGULAR-float", "FULL-double-offheap", "TRIANGULAR-float-offheap"};
+
+    /** Shortest tour any algorithm finds on the instance of the algorithm comparison, computed on first use. */
+    private static double algorithmReference = Double.NaN;
+
+    /** Fingerprint of the instance algorithmReference was computed on. */
+    private static long algorithmReferenceFingerprint;
+
+    /** Minimum warm up time of a benchmark in nanoseconds. */
+    private static final long WARM_UP_NANOS = 300_000_000L;
+
+    /** Minimum measurement time of a benchmark in nanoseconds. */
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    /** Receives benchmark results so the JIT cannot remove the measured code. */
+    private static double sink;
+
+    /**
+     * Runs the benchmark groups given as arguments, or every group.
+     *
+     * @param args The command-line arguments passed to the program.
+     */
+    public static void main(String[] args) {
+        List<String> groups = Arrays.asList(args.length > 0 ? args : GROUPS);
+        for (String group : groups) {
+            if (!Arrays.asList(GROUPS).contains(group))
+                throw new IllegalArgumentException("Unknown benchmark group: " + group + ", expected one of " + Arrays.toString(GROUPS));
+        }
+        for (int numberOfCities : SIZES) {
+            if (groups.contains("construction")) {
+                constructionBenchmark(numberOfCities, 50, 0);
+                if (numberOfCities >= 100)
+                    constructionBenchmark(numberOfCities, 50, 20);
+            }
+            if (groups.contains("deposit"))
+                depositBenchmark(numberOfCities);
+            if (groups.contains("evaporation"))
+                evaporationBenchmark(numberOfCities);
+            if (groups.contains("edgevalues"))
+                edgeValueBenchmark(numberOfCities);
+            if (groups.contains("distances"))
+                distanceBenchmark(numberOfCities);
+        }
+        if (groups.contains("storage")) {
+            for (String storage : STORAGES) {
+                storageBenchmark(storage);
+            }
+        }
+        if (groups.contains("exact")) {
+            exactBenchmark(10);
+            exactBenchmark(12);
+        }
+        if (groups.contains("solve")) {
+            for (String fileName : INPUT_FILES) {
+                solveBenchmark(fileName);
+            }
+        }
+        if (groups.contains("algorithms"))
+            algorithmBenchmark(ALGORITHM_CITIES);
+        if (groups.contains("kernels")) {
+            for (int numberOfCities : KERNEL_SIZES) {
+                kernelBenchmark(numberOfCities);
+            }
+        }
+    }
+
+    /**
+     * Creates a random instance with cities in the unit square.
+     *
+     * @param numberOfCities The number of cities.
+     * @param seed The seed of the random coordinates.
+     * @return The instance.
+     */
+    public static Instance randomInstance(int numberOfCities, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        double[] x = new double[numberOfCities];
+        double[] y = new double[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            x[i] = random.nextDouble();
+            y[i] = random.nextDouble();
+        }
+        return new Instance("random" + numberOfCities, x, y);
+    }
+
+    /**
+     * Returns the default parameters of the main method for an instance.
+     * Instances larger than PACKED_STORAGE_CITIES use packed float matrices.
+     *
+     * @param instance The instance.
+     * @param ants The number of ants.
+     * @param candidates The number of candidates per city, 0 to consider every city.
+     * @return A builder holding the parameters.
+     */
+    public static SolverConfig.Builder parameters(Instance instance, int ants, int candidates) {
+        boolean packed = instance.numberOfCities > PACKED_STORAGE_CITIES;
+        return SolverConfig.builder()
+                .ants(ants)
+                .candidates(candidates)
+                .matrixLayout(packed ? SymmetricMatrix.Layout.TRIANGULAR : SymmetricMatrix.Layout.FULL)
+                .singlePrecision(packed);
+    }
+
+    /**
+     * Creates a colony with the default parameters of the main method on a random instance, with its matrices and ants.
+     *
+     * @param numberOfCities The number of cities.
+     * @param ants The number of ants.
+     * @param candidates The number of candidates per city, 0 to consider every city.
+     * @return The initialized colony.
+     */
+    public static AntColony setUpColony(int numberOfCities, int ants, int candidates) {
+        Instance instance = randomInstance(numberOfCities, 1);
+        AntColony colony = new AntColony(instance, parameters(instance, ants, candidates).build());
+        colony.initialize();
+        return colony;
+    }
+
+    /**
+     * Measures tour construction, reporting the time of a single construction step.
+     *
+     * @param numberOfCities The number of cities.
+     * @param ants The number of ants constructing a tour per iteration.
+     * @param candidates The number of candidates per city, 0 to consider every city.
+     */
+    public static void constructionBenchmark(int numberOfCities, int ants, int candidates) {
+        AntColony colony = setUpColony(numberOfCities, ants, candidates);
+        measure("construction n=" + numberOfCities + " m=" + ants + " k=" + candidates, "step",
+                (long) ants * numberOfCities, constructionRun(colony));
+    }
+
+    /**
+     * Measures the pheromone deposit of one tour, including the refresh of the edge values it changes.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void depositBenchmark(int numberOfCities) {
+        AntColony colony = setUpColony(numberOfCities, 1, 0);
+        int[] tour = colony.traverse(0, 0, new SplittableRandom(1)).clone();
+        double distance = colony.findCycleDistance(tour);
+        measure("deposit n=" + numberOfCities, "tour", 1, () -> colony.updatePheromoneMatrix(tour, distance));
+    }
+
+    /**
+     * Measures evaporation, which only lowers the pheromone scale, and the pass over the matrices that folds the scale
+     * back into the entries once it gets too small.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void evaporationBenchmark(int numberOfCities) {
+        AntColony colony = setUpColony(numberOfCities, 1, 0);
+        measure("evaporation n=" + numberOfCities, "call", 1, colony::degrade);
+        measure("renormalization n=" + numberOfCities, "entry", (long) numberOfCities * numberOfCities, () -> {
+            colony.pheromoneMatrix.scale(1);
+            colony.updateEdgeValueMatrix();
+        });
+    }
+
+    /**
+     * Measures the refresh of every edge value.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void edgeValueBenchmark(int numberOfCities) {
+        AntColony colony = setUpColony(numberOfCities, 1, 0);
+        measure("edge values n=" + numberOfCities, "entry", (long) numberOfCities * numberOfCities, colony::updateEdgeValueMatrix);
+    }
+
+    /**
+     * Compares the scalar kernels with the active kernels on full double matrices: the edge value refresh, clamped
+     * evaporation and the masked roulette over the rows with half of the cities visited. Tour construction uses the
+     * active kernels only, so its scalar time comes from a run without the vector module or with -Dtsp.scalar=true.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void kernelBenchmark(int numberOfCities) {
+        long entries = (long) numberOfCities * numberOfCities;
+        List<String> kernels = Kernels.ACTIVE.vectorized() ? List.of("scalar", "vector") : List.of("scalar");
+        for (String kernel : kernels) {
+            String argument = numberOfCities + "," + kernel;
+            String suffix = " n=" + numberOfCities + " " + kernel(kernel).name();
+            measure("edge values" + suffix, "entry", entries, run(kernelBody("powerproduct", argument)));
+            measure("clamped evaporation" + suffix, "entry", entries, run(kernelBody("scaleclamp", argument)));
+            measure("masked roulette" + suffix, "entry", entries, run(kernelBody("maskedroulette", argument)));
+        }
+        Instance instance = randomInstance(numberOfCities, 1);
+        AntColony colony = new AntColony(instance, SolverConfig.builder().ants(10).build()); // full double matrices
+        colony.initialize();
+        measure("construction n=" + numberOfCities + " m=10 " + Kernels.ACTIVE.name(), "step", 10L * numberOfCities,
+                constructionRun(colony));
+    }
+
+    /**
+     * Measures creating the distances of an instance and looking them up in a scattered order.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void distanceBenchmark(int numberOfCities) {
+        Instance instance = randomInstance(numberOfCities, 1);
+        double[] x = new double[numberOfCities];
+        double[] y = new double[numberOfCities];
+        for (int i = 0; i < numberOfCities; i++) {
+            x[i] = instance.x(i);
+            y[i] = instance.y(i);
+        }
+        DistanceProvider distances = instance.distances;
+        String provider = distances.getClass().getSimpleName();
+        measure("distance setup n=" + numberOfCities + " " + provider, "call", 1, () -> DistanceProvider.forCoordinates(x, y));
+        int lookups = 64;
+        measure("distance lookup n=" + numberOfCities + " " + provider, "lookup", (long) numberOfCities * lookups, () -> {
+            double total = 0;
+            for (int i = 0; i < numberOfCities; i++) {
+                for (int j = 0; j < lookups; j++) {
+                    total += distances.distance(i, (int) ((i * 31L + j * 977L) % numberOfCities));
+                }
+            }
+            sink += total;
+        });
+    }
+
+    /**
+     * Measures the memory of the colony matrices, tour construction and a full pass over the pheromone matrix
+     * for one storage of the matrices on STORAGE_CITIES cities.
+     *
+     * @param storage One of STORAGES.
+     */
+    public static void storageBenchmark(String storage) {
+        AntColony colony = storageColony(storage);
+        System.out.printf("%-44s %12.1f MB matrices%n", "storage " + storage, matrixBytes(colony) / 1e6);
+        measure("  construction", "step", (long) colony.m * STORAGE_CITIES, constructionRun(colony));
+        measure("  evaporation pass", "entry", (long) STORAGE_CITIES * STORAGE_CITIES, () -> colony.pheromoneMatrix.scale(1));
+    }
+
+    /**
+     * Creates a colony of 50 ants on STORAGE_CITIES random cities whose matrices use one of the compared storages.
+     *
+     * @param storage One of STORAGES, e.g. "TRIANGULAR-float-offheap".
+     * @return The initialized colony.
+     */
+    public static AntColony storageColony(String storage) {
+        String[] parts = storage.split("-");
+        if (parts.length < 2 || parts.length > 3 || (parts.length == 3 && !parts[2].equals("offheap"))
+                || !(parts[1].equals("double") || parts[1].equals("float")))
+            throw new IllegalArgumentException("Unknown storage: " + storage + ", expected one of " + Arrays.toString(STORAGES));
+        Instance instance = randomInstance(STORAGE_CITIES, 1);
+        AntColony colony = new AntColony(instance, parameters(instance, 50, 0).matrixLayout(SymmetricMatrix.Layout.valueOf(parts[0]))
+                .singlePrecision(parts[1].equals("float")).offHeap(parts.length == 3).build());
+        colony.initialize();
+        return colony;
+    }
+
+    /**
+     * Returns the memory of the pheromone, heuristic and edge value matrices of a colony.
+     *
+     * @param colony The initialized colony.
+     * @return The number of bytes.
+     */
+    public static long matrixBytes(AntColony colony) {
+        return colony.pheromoneMatrix.bytes() + colony.heuristicMatrix.bytes() + colony.edgeValueMatrix.bytes();
+    }
+
+    /**
+     * Measures the exact methods on a random instance.
+     *
+     * @param numberOfCities The number of cities.
+     */
+    public static void exactBenchmark(int numberOfCities) {
+        Instance instance = randomInstance(numberOfCities, 1);
+        measure("brute force n=" + numberOfCities, "solve", 1, () -> BruteForce.solve(instance.distances));
+        measure("held-karp n=" + numberOfCities, "solve", 1, () -> HeldKarp.solve(instance.distances));
+    }
+
+    /**
+     * Solves an input file with the default parameters for several seeds and reports the time and the tour lengths.
+     * For small instances the gap of the mean length to the optimum of the Held-Karp method is reported as well.
+     *
+     * @param fileName The name of the file containing city coordinates.
+     */
+    public static void solveBenchmark(String fileName) {
+        Instance instance;
+        try {
+            instance = Instance.read(fileName);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        SolverConfig config = parameters(instance, 50, 0).build();
+        double optimum = optimum(instance);
+        new Solver(config).solve(instance); // warm up
+        double totalLength = 0;
+        double bestLength = Double.MAX_VALUE;
+        long nanos = 0;
+        for (int run = 0; run < SOLVE_RUNS; run++) {
+            SolverResult result = new Solver(config.toBuilder().seed(run).build()).solve(instance);
+            nanos += result.nanos;
+            totalLength += result.length;
+            bestLength = Math.min(bestLength, result.length);
+        }
+        double meanLength = totalLength / SOLVE_RUNS;
+        String gap = Double.isNaN(optimum) ? "n/a" : String.format("%.2f%%", Math.max(0, 100 * (meanLength - optimum) / optimum));
+        System.out.printf("%-44s %12.1f ms/solve   mean %.4f   best %.4f   gap %s%n",
+                "solve " + fileName + " n=" + instance.numberOfCities, nanos / 1e6 / SOLVE_RUNS, meanLength, bestLength, gap);
+    }
+
+    /**
+     * Returns the optimum tour length of an instance with at most MAX_EXACT_CITIES cities.
+     *
+     * @param instance The instance.
+     * @return The length of the Held-Karp tour, or NaN for larger instances.
+     */
+    public static double optimum(Instance instance) {
+        if (instance.numberOfCities > MAX_EXACT_CITIES)
+            return Double.NaN;
+        return instance.routeLength(HeldKarp.solve(instance.distances));
+    }
+
+    /**
+     * Returns the configuration the pheromone update algorithms are compared with, stopping at the time limit.
+     *
+     * @param instance The instance of the comparison.
+     * @param algorithm The pheromone update algorithm.
+     * @param seed The seed.
+     * @return The configuration.
+     */
+    private static SolverConfig algorithmConfig(Instance instance, SolverConfig.Algorithm algorithm, long seed) {
+        return parameters(instance, 50, 20).iterations(Integer.MAX_VALUE).timeLimitMillis(ALGORITHM_TIME_LIMIT_MILLIS)
+                .algorithm(algorithm).seed(seed).build();
+    }
+
+    /**
+     * Returns the shortest tour any algorithm finds within the time limit with seed 0, computed once per instance.
+     *
+     * @param instance The instance of the comparison.
+     * @return The reference length.
+     */
+    private static synchronized double algorithmReference(Instance instance) {
+        if (Double.isNaN(algorithmReference) || algorithmReferenceFingerprint != instance.fingerprint) {
+            double reference = Double.MAX_VALUE;
+            for (SolverConfig.Algorithm algorithm : SolverConfig.Algorithm.values()) {
+                reference = Math.min(reference, new Solver(algorithmConfig(instance, algorithm, 0)).solve(instance).length);
+            }
+            algorithmReference = reference;
+            algorithmReferenceFingerprint = instance.fingerprint;
+        }
+        return algorithmReference;
+    }
+
+    /**
+     * Compares the pheromone update algorithms by the wall-clock time they need to reach a solution quality.
+     * The reference is the shortest tour any algorithm finds within the time limit with seed 0; every algorithm then runs
+     * with several other seeds until it finds a tour within TARGET_GAP of the reference or the time limit ends.
+     *
+     * @param numberOfCities The number of cities of the random instance.
+     */
+    public static void algorithmBenchmark(int numberOfCities) {
+        Instance instance = randomInstance(numberOfCities, 7);
+        double reference = algorithmReference(instance);
+        double target = reference * (1 + TARGET_GAP);
+        System.out.printf("%-44s reference %.4f   target %.4f%n", "algorithms n=" + numberOfCities, reference, target);
+        for (SolverConfig.Algorithm algorithm : SolverConfig.Algorithm.values()) {
+            int reached = 0;
+            long nanos = 0;
+            double totalLength = 0;
+            for (int run = 1; run <= SOLVE_RUNS; run++) {
+                SolverResult result = new Solver(algorithmConfig(instance, algorithm, run).toBuilder().targetLength(target).build())
+                        .solve(instance);
+                if (result.termination == SolverResult.Termination.TARGET_LENGTH) {
+                    reached++;
+                    nanos += result.nanos;
+                }
+                totalLength += result.length;
+            }
+            System.out.printf("  %-42s %12s ms to target   reached %d/%d   mean %.4f%n", algorithm,
+                    reached > 0 ? String.format("%.1f", nanos / 1e6 / reached) : "-", reached, SOLVE_RUNS, totalLength / SOLVE_RUNS);
+        }
+    }
+
+    /**
+     * Returns the body of one benchmark of the JMH module in the jmh directory. Its classes are in a named package and
+     * cannot refer to the classes of the default package, so they look this method up by name. Every call of the body
+     * runs the operation once and returns a result for the JMH blackhole.
+     * The solves return their SolverResult: solve cycles through the seeds 0 to SOLVE_RUNS - 1 of solveBenchmark, and
+     * algorithm through the seeds 1 to SOLVE_RUNS of algorithmBenchmark, stopping at the target length.
+     *
+     * @param operation traverse, edgevalues, degrade, distances, bruteforce, solve, optimum (the Held-Karp length of an
+     *        input file, or NaN), algorithm, storageconstruction, storagepass, storagebytes, powerproduct, scaleclamp
+     *        or maskedroulette.
+     * @param argument The number of cities; the input file for solve and optimum; the algorithm for algorithm; one of
+     *        STORAGES for the storage operations; the number of cities and the kernel, "1000,scalar" or "1000,vector",
+     *        for the kernel operations.
+     * @return The benchmark body.
+     * @throws IOException If the input file cannot be read.
+     */
+    public static Supplier<Object> body(String operation, String argument) throws IOException {
+        switch (operation) {
+            case "solve": {
+                Instance instance = Instance.read(argument);
+                SolverConfig config = parameters(instance, 50, 0).build();
+                int[] run = new int[1];
+                return () -> new Solver(config.toBuilder().seed(run[0]++ % SOLVE_RUNS).build()).solve(instance);
+            }
+            case "optimum": {
+                Instance instance = Instance.read(argument);
+                return () -> optimum(instance);
+            }
+            case "algorithm": {
+                Instance instance = randomInstance(ALGORITHM_CITIES, 7);
+                SolverConfig.Algorithm algorithm = SolverConfig.Algorithm.valueOf(argument);
+                double target = algorithmReference(instance) * (1 + TARGET_GAP);
+                int[] run = new int[1];
+                return () -> new Solver(algorithmConfig(instance, algorithm, 1 + run[0]++ % SOLVE_RUNS).toBuilder()
+                        .targetLength(target).build()).solve(instance);
+            }
+            case "storageconstruction": {
+                Runnable construction = constructionRun(storageColony(argument));
+                return () -> {
+                    construction.run();
+                    return construction;
+                };
+            }
+            case "storagepass": {
+                AntColony colony = storageColony(argument);
+                return () -> {
+                    colony.pheromoneMatrix.scale(1);
+                    return colony.pheromoneMatrix;
+                };
+            }
+            case "storagebytes": {
+                long bytes = matrixBytes(storageColony(argument));
+                return () -> bytes;
+            }
+            case "powerproduct":
+            case "scaleclamp":
+            case "maskedroulette":
+                return kernelBody(operation, argument);
+            default:
+                break;
+        }
+        int numberOfCities = Integer.parseInt(argument);
+        switch (operation) {
+            case "traverse": {
+                AntColony colony = setUpColony(numberOfCities, 1, 0);
+                SplittableRandom random = new SplittableRandom(1);
+                return () -> colony.traverse(0, random.nextInt(numberOfCities), random);
+            }
+            case "edgevalues": {
+                AntColony colony = setUpColony(numberOfCities, 1, 0);
+                return () -> {
+                    colony.updateEdgeValueMatrix();
+                    return colony.edgeValueMatrix;
+                };
+            }
+            case "degrade": {
+                AntColony colony = setUpColony(numberOfCities, 1, 0);
+                return () -> {
+                    colony.degrade();
+                    return colony;
+                };
+            }
+            case "distances": {
+                Instance instance = randomInstance(numberOfCities, 1);
+                double[] x = new double[numberOfCities];
+                double[] y = new double[numberOfCities];
+                for (int i = 0; i < numberOfCities; i++) {
+                    x[i] = instance.x(i);
+                    y[i] = instance.y(i);
+                }
+                return () -> DistanceProvider.forCoordinates(x, y);
+            }
+            case "bruteforce": {
+                Instance instance = randomInstance(numberOfCities, 1);
+                return () -> BruteForce.solve(instance.distances);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown benchmark operation: " + operation);
+        }
+    }
+
+    /**
+     * Returns the kernels of a name.
+     *
+     * @param name scalar, or vector for the vector kernels, which need --add-modules jdk.incubator.vector.
+     * @return The kernels.
+     */
+    private static Kernels kernel(String name) {
+        switch (name) {
+            case "scalar":
+                return new ScalarKernels();
+            case "vector":
+                if (!Kernels.ACTIVE.vectorized())
+                    throw new IllegalArgumentException("The vector kernels need --add-modules jdk.incubator.vector");
+                return Kernels.ACTIVE;
+            default:
+                throw new IllegalArgumentException("Unknown kernels: " + name + ", expected scalar or vector");
+        }
+    }
+
+    /**
+     * Returns the body of a kernel operation on random n * n arrays: the edge value refresh (powerproduct), clamped
+     * evaporation (scaleclamp), or the masked roulette over every row with about half of the cities visited.
+     *
+     * @param operation powerproduct, scaleclamp or maskedroulette.
+     * @param argument The number of cities and the kernels, e.g. "1000,scalar".
+     * @return The benchmark body.
+     */
+    private static Supplier<Object> kernelBody(String operation, String argument) {
+        String[] parts = argument.split(",");
+        if (parts.length != 2)
+            throw new IllegalArgumentException("Expected the number of cities and the kernels, e.g. 1000,scalar: " + argument);
+        int numberOfCities = Integer.parseInt(parts[0]);
+        Kernels kernel = kernel(parts[1]);
+        SplittableRandom random = new SplittableRandom(1);
+        int entries = numberOfCities * numberOfCities;
+        double[] base = random.doubles(entries, 0.001, 1).toArray();
+        switch (operation) {
+            case "powerproduct": {
+                double[] factor = random.doubles(entries, 0.001, 1).toArray();
+                double[] result = new double[entries];
+                return () -> {
+                    kernel.powerProduct(base, 1.1, factor, result, entries);
+                    return result;
+                };
+            }
+            case "scaleclamp":
+                return () -> {
+                    kernel.scaleClamp(base, 0.98, 0.001, 1, entries);
+                    return base;
+                };
+            case "maskedroulette": {
+                boolean[] visited = new boolean[numberOfCities];
+                double[] blockSums = new double[Kernels.blocks(numberOfCities)];
+                for (int i = 0; i < numberOfCities; i++) {
+                    visited[i] = random.nextBoolean();
+                }
+                double[] total = new double[1]; // returned instead of a boxed sum
+                return () -> {
+                    for (int i = 0; i < numberOfCities; i++) {
+                        int offset = i * numberOfCities;
+                        double rowSum = kernel.maskedBlockSums(base, offset, visited, numberOfCities, blockSums);
+                        total[0] += Kernels.maskedSearch(base, offset, visited, numberOfCities, blockSums, 0.5 * rowSum);
+                    }
+                    return total;
+                };
+            }
+            default:
+                throw new IllegalArgumentException("Unknown kernel operation: " + operation);
+        }
+    }
+
+    /**
+     * Turns a benchmark body into a run of measure, which adds its results to the sink.
+     *
+     * @param body The benchmark body.
+     * @return The run.
+     */
+    private static Runnable run(Supplier<Object> body) {
+        return () -> sink += body.get().hashCode();
+    }
+
+    /**
+     * Returns a benchmark body that lets every ant of a colony construct a tour, one iteration per run.
+     *
+     * @param colony The initialized colony.
+     * @return The benchmark body.
+     */
+    private static Runnable constructionRun(AntColony colony) {
+        int[] iteration = new int[1];
+        return () -> {
+            SplittableRandom[] randoms = colony.antRandoms(iteration[0]++);
+            for (int j = 0; j < colony.m; j++) {
+                colony.traverse(j, randoms[j].nextInt(colony.numberOfCities), randoms[j]);
+            }
+        };
+    }
+
+    /**
+     * Warms up a benchmark body, then runs it repeatedly for the measurement time and prints the result.
+     *
+     * @param name The name of the benchmark.
+     * @param unit The name of a single operation.
+     * @param operationsPerRun The number of operations one run of the body performs.
+     * @param body The code to measure.
+     */
+    public static void measure(String name, String unit, long operationsPerRun, Runnable body) {
+        long warmUpEnd = System.nanoTime() + WARM_UP_NANOS;
+        do {
+            body.run();
+        } while (System.nanoTime() < warmUpEnd);
+        long collections = collectionCount();
+        long bytes = threadBean.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        long runs = 0;
+        long end;
+        do {
+            body.run();
+            runs++;
+            end = System.nanoTime();
+        } while (end - start < MEASURE_NANOS);
+        bytes = threadBean.getCurrentThreadAllocatedBytes() - bytes;
+        collections = collectionCount() - collections;
+        report(name, unit, runs * operationsPerRun, end - start, bytes, collections);
+    }
+
+    /**
+     * Returns the number of garbage collections since the start of the virtual machine.
+     *
+     * @return The total collection count of every collector.
+     */
+    private static long collectionCount() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    }
+
+    /**
+     * Prints the result of a benchmark.
+     *
+     * @param name The name of the benchmark.
+     * @param unit The name of a single operation.
+     * @param operations The number of operations measured.
+     * @param nanos The time the operations took in nanoseconds.
+     * @param bytes The number of bytes allocated by the operations.
+     * @param collections The number of garbage collections during the measurement.
+     */
+    public static void report(String name, String unit, long operations, long nanos, long bytes, long collections) {
+        System.out.printf("%-44s %12.1f ns/%-6s %14.0f ops/s %10.2f B/%-6s %4d gc%n", name, (double) nanos / operations, unit,
+                operations * 1e9 / nanos, (double) bytes / operations, unit, collections);
+    }
+}
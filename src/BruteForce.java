@@ -1,45 +1,245 @@
 /**
  * The BruteForce class contains methods to perform brute-force search for solving the Traveling Salesman Problem (TSP).
- * It generates all possible permutations of cities to find the shortest route.
+ * It searches all permutations of cities with branch and bound: routes are extended one city at a time with their length
+ * kept up to date, and a partial route is dropped as soon as its length plus a lower bound for the rest reaches the best
+ * route found so far. The first cities of the route are fixed to split the search into tasks for a ForkJoin pool,
+ * which share the best length through an atomic value.
  */
 import java.awt.*;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class BruteForce {
 
-    /** Represents the data object containing information about cities. */
-    public static Data data;
+    /** Number of route positions after the start that are fixed to split the search into parallel tasks. */
+    public static final int SPLIT_DEPTH = 3;
 
-    /** Minimum distance found during brute-force search. */
-    public static Double minDistance = Double.MAX_VALUE;
+    /**
+     * Finds the shortest route through all cities, starting from the first city.
+     *
+     * @param distances The distances between cities.
+     * @return The shortest route as a permutation of the cities starting with city 0.
+     */
+    public static int[] solve(DistanceProvider distances) {
+        Search search = new Search(distances);
+        int[] route = search.nearestNeighbourRoute(); // a good first route makes the bound tight from the start
+        search.offer(search.routeLength(route));
+        int[] initialRoute = new int[search.n];
+        for (int i = 0; i < search.n; i++) {
+            initialRoute[i] = i;
+        }
+        BestRoute best = ForkJoinPool.commonPool().invoke(
+                new PrefixTask(search, initialRoute, 1, 0, search.totalMinEdge));
+        return best != null ? best.route : route;
+    }
+
+    /**
+     * A route and its length, the result of a search task.
+     */
+    private static class BestRoute {
+
+        /** The route as a permutation of the cities starting with city 0. */
+        final int[] route;
 
-    /** Best route found during brute-force search. */
-    public static int[] bestRoute = new int[Data.numberOfCities];
+        /** The total length of the cycle. */
+        final double length;
+
+        BestRoute(int[] route, double length) {
+            this.route = route;
+            this.length = length;
+        }
+
+        /**
+         * Returns the shorter of two results, either of which may be null.
+         */
+        static BestRoute shorter(BestRoute a, BestRoute b) {
+            if (a == null)
+                return b;
+            if (b == null)
+                return a;
+            return b.length < a.length ? b : a;
+        }
+    }
 
     /**
-     * Generates all possible permutations of cities and finds the shortest route.
-     *
-     * @param arr The array representing the permutation of cities.
-     * @param k The current index during permutation generation.
+     * The data shared by all tasks of one search.
      */
-    public static void permute(int[] arr, int k) {
-        if (k == arr.length) {
-            double distance = findRouteLength(arr);
-            if ( distance < minDistance) {
-                minDistance = distance;
-                bestRoute = arr.clone();
+    private static class Search {
+
+        /** Number of cities. */
+        final int n;
+
+        /** Distances between cities, row-major. */
+        final double[] distance;
+
+        /** Length of the shortest edge leaving each city. */
+        final double[] minEdge;
+
+        /** Sum of the shortest edges leaving every city. */
+        final double totalMinEdge;
+
+        /** Bits of the length of the best route found by any task; lengths are non-negative so the bits order like the values. */
+        final AtomicLong bound = new AtomicLong(Double.doubleToLongBits(Double.MAX_VALUE));
+
+        Search(DistanceProvider distances) {
+            n = distances.size();
+            distance = new double[n * n];
+            minEdge = new double[n];
+            double total = 0;
+            for (int i = 0; i < n; i++) {
+                double min = n > 1 ? Double.MAX_VALUE : 0;
+                for (int j = 0; j < n; j++) {
+                    distance[i * n + j] = distances.distance(i, j);
+                    if (i != j)
+                        min = Math.min(min, distance[i * n + j]);
+                }
+                minEdge[i] = min;
+                total += min;
             }
+            totalMinEdge = total;
         }
-        else {
-            for (int i = k; i < arr.length; i++) {
-                int temp = arr[i];
+
+        /**
+         * Returns the length of the best route found so far by any task.
+         */
+        double bound() {
+            return Double.longBitsToDouble(bound.get());
+        }
+
+        /**
+         * Lowers the shared bound if the given length is shorter.
+         */
+        void offer(double length) {
+            bound.accumulateAndGet(Double.doubleToLongBits(length), Math::min);
+        }
+
+        /**
+         * Calculates the total length of a route including the edge back to the start.
+         */
+        double routeLength(int[] route) {
+            double length = 0;
+            for (int i = 0; i < n; i++) {
+                length += distance[route[i] * n + route[(i + 1) % n]];
+            }
+            return length;
+        }
+
+        /**
+         * Builds a route that always moves to the nearest unvisited city.
+         */
+        int[] nearestNeighbourRoute() {
+            int[] route = new int[n];
+            boolean[] visited = new boolean[n];
+            visited[0] = true;
+            for (int k = 1; k < n; k++) {
+                int last = route[k - 1];
+                int next = -1;
+                for (int c = 0; c < n; c++) {
+                    if (!visited[c] && (next == -1 || distance[last * n + c] < distance[last * n + next]))
+                        next = c;
+                }
+                route[k] = next;
+                visited[next] = true;
+            }
+            return route;
+        }
+    }
+
+    /**
+     * A search task over all routes that share the first positions of its route.
+     * Above the split depth it forks one task per choice of the next city, below it searches sequentially.
+     */
+    private static class PrefixTask extends RecursiveTask<BestRoute> {
+
+        private static final long serialVersionUID = 1L;
+
+        /** The shared search state. */
+        private final Search search;
+
+        /** Positions before k hold the fixed prefix, positions from k hold the remaining cities. */
+        private final int[] route;
+
+        /** The next position to fill. */
+        private final int k;
+
+        /** The length of the prefix. */
+        private final double length;
+
+        /** Sum of the shortest outgoing edges of the last prefix city and every remaining city, a lower bound for the rest. */
+        private final double remainingMinEdge;
+
+        /** Best route found by this task. */
+        private BestRoute best;
+
+        PrefixTask(Search search, int[] route, int k, double length, double remainingMinEdge) {
+            this.search = search;
+            this.route = route;
+            this.k = k;
+            this.length = length;
+            this.remainingMinEdge = remainingMinEdge;
+        }
+
+        @Override
+        protected BestRoute compute() {
+            int n = search.n;
+            if (k > SPLIT_DEPTH || n - k <= 2) {
+                permute(route, k, length, remainingMinEdge);
+                return best;
+            }
+            int last = route[k - 1];
+            ArrayList<PrefixTask> tasks = new ArrayList<>();
+            for (int i = k; i < n; i++) {
+                int city = route[i];
+                double extended = length + search.distance[last * n + city];
+                double remaining = remainingMinEdge - search.minEdge[last];
+                if (extended + remaining >= search.bound())
+                    continue;
+                int[] child = route.clone();
+                child[i] = child[k];
+                child[k] = city;
+                tasks.add(new PrefixTask(search, child, k + 1, extended, remaining));
+            }
+            BestRoute result = null;
+            for (PrefixTask task : invokeAll(tasks)) {
+                result = BestRoute.shorter(result, task.join());
+            }
+            return result;
+        }
+
+        /**
+         * Generates the permutations of the remaining cities depth first, extending the route length incrementally
+         * and pruning prefixes that cannot beat the best route found so far.
+         *
+         * @param arr The array representing the permutation of cities.
+         * @param k The current index during permutation generation.
+         * @param length The length of the route up to position k - 1.
+         * @param remainingMinEdge The lower bound for the rest of the route.
+         */
+        private void permute(int[] arr, int k, double length, double remainingMinEdge) {
+            int n = search.n;
+            int last = arr[k - 1];
+            if (k == n) {
+                double distance = length + search.distance[last * n + arr[0]];
+                if (distance < search.bound()) {
+                    search.offer(distance);
+                    best = new BestRoute(arr.clone(), distance);
+                }
+                return;
+            }
+            double remaining = remainingMinEdge - search.minEdge[last];
+            for (int i = k; i < n; i++) {
+                int city = arr[i];
+                double extended = length + search.distance[last * n + city];
+                if (extended + remaining >= search.bound())
+                    continue;
                 arr[i] = arr[k];
-                arr[k] = temp;
-                permute(arr, k + 1);
-                temp = arr[k];
+                arr[k] = city;
+                permute(arr, k + 1, extended, remaining);
                 arr[k] = arr[i];
-                arr[i] = temp;
+                arr[i] = city;
             }
         }
     }
@@ -47,20 +247,21 @@ public class BruteForce {
     /**
      * Calculates the total length of the route based on the given permutation of cities.
      *
+     * @param distances The distances between cities.
      * @param route The permutation of cities representing the route.
      * @return The total length of the route.
      */
-    public static double findRouteLength(int[] route) {
+    public static double findRouteLength(DistanceProvider distances, int[] route) {
         double minDistance = 0;
         int city1 = 0;
         int city2 = 0;
         for (int i = 0; i < route.length -1; i++) {
             city1 = route[i];
             city2 = route[i+1];
-            minDistance += Data.distanceMatrix[city1][city2];
+            minDistance += distances.distance(city1, city2);
         }
         city1 = 0;
-        minDistance += Data.distanceMatrix[city1][city2];
+        minDistance += distances.distance(city1, city2);
         return minDistance;
     }
 
@@ -82,9 +283,10 @@ public class BruteForce {
     /**
      * Draws the route on a canvas.
      *
-     * @param route The route to be drawn.
+     * @param instance The instance the route belongs to.
+     * @param route The route to be drawn, cities numbered from 1 as printed.
      */
-    public static void drawRoute(int[] route) {
+    public static void drawRoute(Instance instance, int[] route) {
         int city1 = 0;
         int city2 = 0;
         StdDraw.enableDoubleBuffering();
@@ -94,20 +296,23 @@ public class BruteForce {
                 city1 = route[i] - 1;
                 city2 = route[i + 1] - 1;
             }
+            else if (route[i] != route[0]) { // a route that does not end with its first city is closed here
+                city1 = route[i] - 1;
+                city2 = route[0] - 1;
+            }
             else {
-                city1 = route[i];
-                city2 = route[0];
+                continue;
             }
             StdDraw.setPenColor(Color.BLACK);
             StdDraw.setPenRadius(0.005);
-            StdDraw.line(Data.cityCoordinates[city1][0],Data.cityCoordinates[city1][1], Data.cityCoordinates[city2][0],Data.cityCoordinates[city2][1]);
+            StdDraw.line(instance.x(city1),instance.y(city1), instance.x(city2),instance.y(city2));
         }
-        for (int i = 0; i < Data.numberOfCities; i++) {
+        for (int i = 0; i < instance.numberOfCities; i++) {
             StdDraw.setPenColor(Color.LIGHT_GRAY);
             if (i == 0) StdDraw.setPenColor(StdDraw.PRINCETON_ORANGE);
-            StdDraw.filledCircle(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1],0.02);
+            StdDraw.filledCircle(instance.x(i),instance.y(i),0.02);
             StdDraw.setPenColor(Color.BLACK);
-            StdDraw.text(Data.cityCoordinates[i][0],Data.cityCoordinates[i][1]-0.001, String.valueOf(i+1));
+            StdDraw.text(instance.x(i),instance.y(i)-0.001, String.valueOf(i+1));
         }
         StdDraw.show();
 
@@ -0,0 +1,126 @@
+/**
+ * The CachedDistances class keeps a bounded number of recently used distance rows.
+ * A row is computed from the coordinates once it has been missed a few times, single lookups are computed directly.
+ * Rows are kept in a table indexed by city, so a lookup takes no lock and boxes nothing; only loading a row is
+ * synchronized. When the cache is full, a clock hand passes over the cached rows and drops the first one that was not
+ * used since the hand last passed it (second chance), which suits mid-size instances where a dense matrix does not fit.
+ */
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class CachedDistances implements DistanceProvider {
+
+    /** X coordinate of each city. */
+    private final double[] x;
+
+    /** Y coordinate of each city. */
+    private final double[] y;
+
+    /** Number of misses after which a row is computed and cached. */
+    public static final int ROW_LOAD_THRESHOLD = 4;
+
+    /** Cached row of each city, null if the row is not cached. */
+    private final AtomicReferenceArray<double[]> rows;
+
+    /** True for each city whose row was used since the clock hand last passed it. Races only delay an eviction. */
+    private final boolean[] referenced;
+
+    /** Number of misses of each row since it was last cached. Races only delay loading a row. */
+    private final int[] misses;
+
+    /** Cities whose rows are cached, in clock order, only the first cached entries are valid. Guarded by this. */
+    private final int[] clock;
+
+    /** Number of cached rows. Guarded by this. */
+    private int cached;
+
+    /** Position of the clock hand in clock. Guarded by this. */
+    private int hand;
+
+    /** Largest number of cached rows. */
+    private final int capacity;
+
+    /**
+     * Creates the provider over the given coordinates.
+     *
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     * @param capacity The maximum number of cached rows.
+     */
+    public CachedDistances(double[] x, double[] y, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Cache capacity must be positive: " + capacity);
+        this.x = x;
+        this.y = y;
+        this.capacity = Math.min(capacity, x.length);
+        rows = new AtomicReferenceArray<>(x.length);
+        referenced = new boolean[x.length];
+        misses = new int[x.length];
+        clock = new int[this.capacity];
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        double[] row = rows.getAcquire(i);
+        if (row != null) {
+            referenced[i] = true;
+            return row[j];
+        }
+        row = rows.getAcquire(j); // the matrix is symmetric, so the row of j holds the distance too
+        if (row != null) {
+            referenced[j] = true;
+            return row[i];
+        }
+        if (++misses[i] < ROW_LOAD_THRESHOLD)
+            return DistanceProvider.euclidean(x, y, i, j);
+        return row(i)[j];
+    }
+
+    /**
+     * Returns the distances from a city to all cities, computing the row if it is not cached.
+     *
+     * @param i The index of the city.
+     * @return The distances from the city.
+     */
+    public double[] row(int i) {
+        double[] row = rows.getAcquire(i);
+        if (row != null) {
+            referenced[i] = true;
+            return row;
+        }
+        synchronized (this) {
+            row = rows.getAcquire(i);
+            if (row != null) // loaded by another thread meanwhile
+                return row;
+            row = new double[x.length];
+            for (int j = 0; j < x.length; j++) {
+                row[j] = DistanceProvider.euclidean(x, y, i, j);
+            }
+            if (cached < capacity) {
+                clock[cached++] = i;
+            } else {
+                for (int passed = 0; referenced[clock[hand]] && passed < capacity; passed++) { // a second chance for used rows
+                    referenced[clock[hand]] = false;
+                    hand = (hand + 1) % capacity;
+                }
+                rows.setRelease(clock[hand], null);
+                clock[hand] = i;
+                hand = (hand + 1) % capacity;
+            }
+            referenced[i] = false;
+            misses[i] = 0;
+            rows.setRelease(i, row);
+        }
+        return row;
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public long bytes() {
+        return (long) capacity * x.length * Double.BYTES
+                + (long) x.length * (Integer.BYTES + Integer.BYTES + 1) + (long) capacity * Integer.BYTES;
+    }
+}
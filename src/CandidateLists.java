@@ -0,0 +1,145 @@
+/**
+ * The CandidateLists class holds the k nearest neighbours of every city, built once with a k-d tree.
+ * Ants only choose among the unvisited candidates of their current city, which makes a tour close to linear in the number of cities.
+ */
+import java.util.Arrays;
+
+public class CandidateLists {
+
+    /** Number of candidates per city. */
+    public final int k;
+
+    /** Candidates of every city ordered by increasing distance, the candidates of city i start at i * k. */
+    public final int[] neighbours;
+
+    /** For every candidate slot, the slot of the same edge in the list of the candidate, or -1 if the edge is only in one list. */
+    public final int[] mirrors;
+
+    /** Tree over the cities, also used to find the nearest unvisited city when no candidate is left. */
+    public final KdTree tree;
+
+    /**
+     * Builds the candidate lists of all cities.
+     *
+     * @param tree The k-d tree over the cities.
+     * @param k The number of candidates per city, reduced to the number of other cities if larger.
+     */
+    public CandidateLists(KdTree tree, int k) {
+        int n = tree.size();
+        this.k = Math.min(k, n - 1);
+        this.tree = tree;
+        neighbours = new int[n * this.k];
+        for (int i = 0; i < n; i++) {
+            tree.nearest(i, this.k, neighbours, i * this.k);
+        }
+        mirrors = mirrors();
+    }
+
+    /**
+     * Builds the candidate lists of an instance derived from another one by adding and removing cities, reusing the lists
+     * of the other instance. A list that lost a candidate is searched again in the tree. Any other list only takes in
+     * the added cities that are closer than its farthest candidate, and added cities are searched in the tree.
+     *
+     * @param previous The candidate lists of the other instance, with the same k.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     * @param tree The k-d tree over the cities.
+     * @param distances The distances between the cities.
+     */
+    public CandidateLists(CandidateLists previous, int[] previousIndex, KdTree tree, DistanceProvider distances) {
+        int n = tree.size();
+        k = previous.k;
+        if (k > n - 1)
+            throw new IllegalArgumentException(n + " cities are too few for " + k + " candidates");
+        this.tree = tree;
+        neighbours = new int[n * k];
+        int[] newIndex = new int[previous.tree.size()];
+        Arrays.fill(newIndex, -1); // removed cities
+        int added = 0;
+        for (int i = 0; i < n; i++) {
+            if (previousIndex[i] >= 0)
+                newIndex[previousIndex[i]] = i;
+            else
+                added++;
+        }
+        int[] addedCities = new int[added];
+        for (int i = 0, a = 0; i < n; i++) {
+            if (previousIndex[i] < 0)
+                addedCities[a++] = i;
+        }
+        for (int i = 0; i < n; i++) {
+            int pi = previousIndex[i];
+            boolean complete = pi >= 0;
+            for (int s = 0; complete && s < k; s++) {
+                int candidate = newIndex[previous.neighbours[pi * k + s]];
+                neighbours[i * k + s] = candidate;
+                complete = candidate >= 0;
+            }
+            if (!complete) { // an added city or a list that lost a candidate
+                tree.nearest(i, k, neighbours, i * k);
+                continue;
+            }
+            for (int city : addedCities) { // insert the closer added cities, dropping the farthest candidate
+                double distance = distances.distance(i, city);
+                int s = i * k + k - 1;
+                if (distance >= distances.distance(i, neighbours[s]))
+                    continue;
+                while (s > i * k && distances.distance(i, neighbours[s - 1]) > distance) {
+                    neighbours[s] = neighbours[s - 1];
+                    s--;
+                }
+                neighbours[s] = city;
+            }
+        }
+        mirrors = mirrors();
+    }
+
+    /**
+     * Finds the mirrored slot of every candidate slot.
+     *
+     * @return For every slot, the slot of the same edge in the list of the candidate, or -1.
+     */
+    private int[] mirrors() {
+        int[] mirrors = new int[neighbours.length];
+        for (int s = 0; s < neighbours.length; s++) {
+            mirrors[s] = slot(neighbours[s], s / k);
+        }
+        return mirrors;
+    }
+
+    /**
+     * Finds the position of a candidate in the list of a city.
+     *
+     * @param city The index of the city whose list is searched.
+     * @param candidate The index of the possible candidate.
+     * @return The slot, i.e. the index into neighbours, or -1 if the candidate is not in the list of the city.
+     */
+    public int slot(int city, int candidate) {
+        for (int s = city * k, end = s + k; s < end; s++) {
+            if (neighbours[s] == candidate)
+                return s;
+        }
+        return -1;
+    }
+
+    /**
+     * Checks whether a city is among the candidates of another city.
+     *
+     * @param city The index of the city whose list is searched.
+     * @param candidate The index of the possible candidate.
+     * @return True if the candidate is in the list of the city.
+     */
+    public boolean contains(int city, int candidate) {
+        return slot(city, candidate) >= 0;
+    }
+
+    /**
+     * Checks whether an edge is a candidate edge, that is, one of its cities is a candidate of the other.
+     *
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     * @return True if the edge is a candidate edge.
+     */
+    public boolean isCandidateEdge(int i, int j) {
+        return contains(i, j) || contains(j, i);
+    }
+}
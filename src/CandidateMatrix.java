@@ -0,0 +1,167 @@
+/**
+ * The CandidateMatrix class stores a symmetric matrix for a colony with candidate lists: one double per candidate slot,
+ * n * k entries indexed like CandidateLists.neighbours, so the matrices of large instances take linear memory.
+ * An edge in the lists of both of its cities is stored in both slots, which are always set together.
+ * Every other edge shares a single entry: the ants never weigh these edges, so the pheromone matrix only keeps the level
+ * they started with, tau0 after fill, and the heuristic and edge value matrices keep 0. Setting such an edge has no effect.
+ * Precision, layout and off-heap settings of the configuration do not apply to this storage.
+ */
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class CandidateMatrix extends SymmetricMatrix {
+
+    /** The candidate lists the slots belong to. */
+    public final CandidateLists lists;
+
+    /** The entries of the candidate slots. */
+    private final double[] values;
+
+    /** The entry shared by every edge that is not a candidate edge. */
+    private double outside;
+
+    /**
+     * Creates a matrix filled with zeros.
+     *
+     * @param n The number of rows and columns.
+     * @param lists The candidate lists of the n cities.
+     */
+    public CandidateMatrix(int n, CandidateLists lists) {
+        super(n, Layout.FULL);
+        if (lists.neighbours.length != n * lists.k)
+            throw new IllegalArgumentException("Candidate lists of " + lists.neighbours.length / Math.max(lists.k, 1)
+                    + " cities for a matrix of " + n + " cities");
+        this.lists = lists;
+        values = new double[lists.neighbours.length];
+    }
+
+    /**
+     * Returns the slot an edge is stored in.
+     *
+     * @param i The first city.
+     * @param j The second city.
+     * @return The slot of j in the list of i, or else of i in the list of j, or -1 if the edge is not a candidate edge.
+     */
+    private int slot(int i, int j) {
+        int slot = lists.slot(i, j);
+        return slot >= 0 ? slot : lists.slot(j, i);
+    }
+
+    @Override
+    public double get(int i, int j) {
+        int slot = slot(i, j);
+        return slot >= 0 ? values[slot] : outside;
+    }
+
+    @Override
+    public void set(int i, int j, double value) {
+        int slot = slot(i, j);
+        if (slot < 0)
+            return; // not a candidate edge
+        values[slot] = value;
+        int mirror = lists.mirrors[slot];
+        if (mirror >= 0)
+            values[mirror] = value;
+    }
+
+    @Override
+    public double candidateEntry(int slot, int i, int j) {
+        return values[slot];
+    }
+
+    @Override
+    protected double load(long index) {
+        return values[(int) index];
+    }
+
+    @Override
+    protected void store(long index, double value) {
+        values[(int) index] = value;
+    }
+
+    @Override
+    public void fill(double value) {
+        Arrays.fill(values, value);
+        outside = value;
+    }
+
+    @Override
+    public void scale(double factor) {
+        for (int k = 0; k < values.length; k++) {
+            values[k] *= factor;
+        }
+        outside *= factor;
+    }
+
+    @Override
+    public void setPowerProduct(SymmetricMatrix base, double exponent, SymmetricMatrix factor) {
+        if (!(base instanceof CandidateMatrix) || !(factor instanceof CandidateMatrix)
+                || ((CandidateMatrix) base).lists != lists || ((CandidateMatrix) factor).lists != lists) {
+            for (int s = 0; s < values.length; s++) {
+                int i = s / lists.k;
+                int j = lists.neighbours[s];
+                values[s] = Math.pow(base.get(i, j), exponent) * factor.get(i, j);
+            }
+            return;
+        }
+        CandidateMatrix bases = (CandidateMatrix) base;
+        CandidateMatrix factors = (CandidateMatrix) factor;
+        Kernels.ACTIVE.powerProduct(bases.values, exponent, factors.values, values, values.length);
+        outside = Math.pow(bases.outside, exponent) * factors.outside;
+    }
+
+    @Override
+    public void scaleClamp(double factor, double min, double max) {
+        Kernels.ACTIVE.scaleClamp(values, factor, min, max, values.length);
+        outside = Math.max(min, Math.min(max, outside * factor));
+    }
+
+    @Override
+    public long bytes() {
+        return (long) values.length * Double.BYTES;
+    }
+
+    /**
+     * Returns the number of entries writeEdges writes: every slot and the shared entry.
+     *
+     * @return The number of candidate slots plus one.
+     */
+    @Override
+    public long storedEdges() {
+        return values.length + 1L;
+    }
+
+    /**
+     * Writes the shared entry and then every slot to a buffer, starting at its position.
+     *
+     * @param buffer The buffer, with room for storedEdges() entries.
+     * @param singlePrecision If true, the entries are written as floats.
+     */
+    @Override
+    public void writeEdges(ByteBuffer buffer, boolean singlePrecision) {
+        if (singlePrecision) {
+            buffer.putFloat((float) outside);
+            for (double value : values) {
+                buffer.putFloat((float) value);
+            }
+        } else {
+            buffer.putDouble(outside);
+            buffer.asDoubleBuffer().put(values);
+            buffer.position(buffer.position() + values.length * Double.BYTES);
+        }
+    }
+
+    /**
+     * Sets the shared entry and every slot from a buffer written by writeEdges.
+     *
+     * @param buffer The buffer, positioned at the first entry.
+     * @param singlePrecision If true, the entries were written as floats.
+     */
+    @Override
+    public void readEdges(ByteBuffer buffer, boolean singlePrecision) {
+        outside = singlePrecision ? buffer.getFloat() : buffer.getDouble();
+        for (int s = 0; s < values.length; s++) {
+            values[s] = singlePrecision ? buffer.getFloat() : buffer.getDouble();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+/**
+ * The Checkpoint class is the state of a colony read back from a checkpoint file: the pheromone levels, the best tour,
+ * the iteration counters and the state of the pheromone update. Since the random numbers of an iteration only depend on
+ * the seed and the iteration, a colony resumed from a checkpoint constructs the same tours as the run that wrote it.
+ *
+ * A checkpoint file holds a header and two slots. CheckpointWriter fills the slot the header does not point to, forces it
+ * to disk and only then points the header to it, so a crash at any moment leaves the last complete checkpoint readable.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public final class Checkpoint {
+
+    /** Magic number at the start of a checkpoint file. */
+    static final int MAGIC = 0x5453504B; // "TSPK"
+
+    /** Version of the checkpoint file layout. */
+    static final int VERSION = 2;
+
+    /** Size of the file header in bytes. */
+    static final int HEADER_BYTES = 64;
+
+    /** Offsets of the header fields. */
+    static final int CITIES_OFFSET = 8, PRECISION_OFFSET = 12, FINGERPRINT_OFFSET = 16, ACTIVE_OFFSET = 24,
+            SEQUENCE_OFFSET = 32, EDGES_OFFSET = 40;
+
+    /** Largest number of doubles of pheromone update state a slot holds. */
+    static final int MAX_STATE = 8;
+
+    /** Size of the fixed part of a slot in bytes: three counters, the state length, scale, best length and state. */
+    static final int SLOT_HEADER_BYTES = 4 * 4 + 8 + 8 + 8 * MAX_STATE;
+
+    /** Number of cities of the instance. */
+    public final int numberOfCities;
+
+    /** Fingerprint of the instance. */
+    public final long fingerprint;
+
+    /** True if the pheromone levels were stored as floats. */
+    public final boolean singlePrecision;
+
+    /** Number of stored pheromone levels, which depends on the storage of the pheromone matrix. */
+    public final long storedEdges;
+
+    /** Number of checkpoints written to the file up to and including this one. */
+    public final long sequence;
+
+    /** Index of the last iteration that was completed. */
+    public final int iteration;
+
+    /** Number of iterations run so far, including those of earlier resumed runs. */
+    public final int iterations;
+
+    /** Last iteration that found a shorter tour. */
+    public final int lastImprovement;
+
+    /** Global factor applied to every stored pheromone level. */
+    public final double pheromoneScale;
+
+    /** Length of the best tour. */
+    public final double bestLength;
+
+    /** Predecessors array of the best tour. */
+    private final int[] bestRoute;
+
+    /** State of the pheromone update. */
+    private final double[] state;
+
+    /** Stored pheromone levels in the order of SymmetricMatrix.writeEdges. */
+    private final ByteBuffer edges;
+
+    /**
+     * Reads the last complete checkpoint of a file.
+     *
+     * @param fileName The name of the checkpoint file.
+     * @return The checkpoint.
+     * @throws IOException If the file cannot be read, is not a checkpoint file or holds no complete checkpoint yet.
+     */
+    public static Checkpoint read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_BYTES)
+                throw new IOException(fileName + " is not a checkpoint file");
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt(0) != MAGIC || header.getInt(4) != VERSION)
+                throw new IOException(fileName + " is not a checkpoint file");
+            int active = header.getInt(ACTIVE_OFFSET);
+            if (active != 1 && active != 2)
+                throw new IOException(fileName + " holds no complete checkpoint");
+            int n = header.getInt(CITIES_OFFSET);
+            boolean singlePrecision = header.getInt(PRECISION_OFFSET) != 0;
+            long storedEdges = header.getLong(EDGES_OFFSET);
+            long slotBytes = slotBytes(n, storedEdges, singlePrecision);
+            long offset = slotOffset(active, n, storedEdges, singlePrecision);
+            if (channel.size() < offset + slotBytes)
+                throw new IOException(fileName + " is truncated");
+            MappedByteBuffer slot = channel.map(FileChannel.MapMode.READ_ONLY, offset, slotBytes); // the mapping outlives the channel
+            slot.order(ByteOrder.LITTLE_ENDIAN);
+            return new Checkpoint(n, header.getLong(FINGERPRINT_OFFSET), singlePrecision, storedEdges,
+                    header.getLong(SEQUENCE_OFFSET), slot);
+        }
+    }
+
+    /**
+     * Creates a checkpoint from a mapped slot.
+     */
+    private Checkpoint(int numberOfCities, long fingerprint, boolean singlePrecision, long storedEdges, long sequence,
+            ByteBuffer slot) {
+        this.numberOfCities = numberOfCities;
+        this.fingerprint = fingerprint;
+        this.singlePrecision = singlePrecision;
+        this.storedEdges = storedEdges;
+        this.sequence = sequence;
+        iteration = slot.getInt();
+        iterations = slot.getInt();
+        lastImprovement = slot.getInt();
+        int stateLength = slot.getInt();
+        pheromoneScale = slot.getDouble();
+        bestLength = slot.getDouble();
+        state = new double[stateLength];
+        for (int i = 0; i < MAX_STATE; i++) {
+            double value = slot.getDouble();
+            if (i < stateLength)
+                state[i] = value;
+        }
+        bestRoute = new int[numberOfCities];
+        slot.asIntBuffer().get(bestRoute);
+        edges = slot.position(edgesOffset(numberOfCities)).slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Returns the size of a slot in bytes.
+     *
+     * @param numberOfCities The number of cities.
+     * @param storedEdges The number of stored pheromone levels.
+     * @param singlePrecision If true, the pheromone levels are stored as floats.
+     * @return The size of a slot.
+     */
+    static long slotBytes(int numberOfCities, long storedEdges, boolean singlePrecision) {
+        return edgesOffset(numberOfCities) + storedEdges * (singlePrecision ? 4 : 8);
+    }
+
+    /**
+     * Returns the offset of the pheromone levels in a slot, aligned to 8 bytes.
+     *
+     * @param numberOfCities The number of cities.
+     * @return The offset of the first pheromone level.
+     */
+    static int edgesOffset(int numberOfCities) {
+        return (SLOT_HEADER_BYTES + 4 * numberOfCities + 7) & ~7;
+    }
+
+    /**
+     * Returns the offset of a slot in the file.
+     *
+     * @param slot The slot, 1 or 2.
+     * @param numberOfCities The number of cities.
+     * @param storedEdges The number of stored pheromone levels.
+     * @param singlePrecision If true, the pheromone levels are stored as floats.
+     * @return The offset of the slot.
+     */
+    static long slotOffset(int slot, int numberOfCities, long storedEdges, boolean singlePrecision) {
+        return HEADER_BYTES + (slot - 1) * slotBytes(numberOfCities, storedEdges, singlePrecision);
+    }
+
+    /**
+     * Returns the predecessors array of the best tour.
+     *
+     * @return A copy of the predecessors of each city.
+     */
+    public int[] bestRoute() {
+        return bestRoute.clone();
+    }
+
+    /**
+     * Returns the state of the pheromone update.
+     *
+     * @return A copy of the state.
+     */
+    public double[] state() {
+        return state.clone();
+    }
+
+    /**
+     * Copies the stored pheromone levels into a matrix, relative to pheromoneScale.
+     *
+     * @param matrix The pheromone matrix of a colony on the same instance, with the same storage.
+     */
+    public void readPheromone(SymmetricMatrix matrix) {
+        if (matrix.storedEdges() != storedEdges)
+            throw new IllegalArgumentException("Checkpoint holds " + storedEdges + " pheromone levels, the matrix stores "
+                    + matrix.storedEdges() + "; candidate lists must match the run that wrote it");
+        matrix.readEdges(edges.duplicate().order(ByteOrder.LITTLE_ENDIAN), singlePrecision);
+    }
+}
@@ -0,0 +1,180 @@
+/**
+ * The CheckpointWriter class periodically writes the state of a colony to a checkpoint file (see Checkpoint).
+ * The colony copies its state into the memory-mapped slot the header does not point to, which costs one pass over the
+ * pheromone matrix at memory speed. Forcing the slot to disk and switching the header happen on a background thread,
+ * so the ants do not wait for the disk. A checkpoint is skipped while the previous one is still being flushed.
+ */
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class CheckpointWriter implements AutoCloseable {
+
+    /** Name of the checkpoint file. */
+    public final String fileName;
+
+    /** Number of cities of the instance. */
+    private final int numberOfCities;
+
+    /** True if the pheromone levels are stored as floats. */
+    private final boolean singlePrecision;
+
+    /** Number of stored pheromone levels. */
+    private final long storedEdges;
+
+    /** The mapped file header. */
+    private final MappedByteBuffer header;
+
+    /** The two mapped slots. */
+    private final MappedByteBuffer[] slots = new MappedByteBuffer[2];
+
+    /** Slot the header points to once the pending flush is done, 0 if there is no checkpoint yet. */
+    private int active;
+
+    /** Number of checkpoints written to the file. */
+    private long sequence;
+
+    /** Thread forcing the slots and the header to disk. */
+    private final ExecutorService flusher;
+
+    /** The last flush, null before the first checkpoint. */
+    private Future<?> flush;
+
+    /**
+     * Opens a checkpoint file for an instance, creating it if needed. A file with the last checkpoint of a run on the same
+     * instance keeps that checkpoint until the first new one is complete, so a run may resume from and write to one file.
+     *
+     * @param fileName The name of the checkpoint file.
+     * @param instance The instance of the colony.
+     * @param storedEdges The number of pheromone levels the pheromone matrix of the colony stores, see storedEdges.
+     * @param singlePrecision If true, the pheromone levels are stored as floats, which halves the file.
+     * @throws IOException If the file cannot be created or mapped.
+     */
+    public CheckpointWriter(String fileName, Instance instance, long storedEdges, boolean singlePrecision) throws IOException {
+        this.fileName = fileName;
+        numberOfCities = instance.numberOfCities;
+        this.storedEdges = storedEdges;
+        this.singlePrecision = singlePrecision;
+        long slotBytes = Checkpoint.slotBytes(numberOfCities, storedEdges, singlePrecision);
+        if (slotBytes > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("A checkpoint of " + numberOfCities + " cities does not fit a mapping"
+                    + (singlePrecision ? "" : ", use single precision"));
+        try (FileChannel channel = FileChannel.open(Path.of(fileName), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            header = channel.map(FileChannel.MapMode.READ_WRITE, 0, Checkpoint.HEADER_BYTES);
+            header.order(ByteOrder.LITTLE_ENDIAN);
+            boolean reusable = header.getInt(0) == Checkpoint.MAGIC && header.getInt(4) == Checkpoint.VERSION
+                    && header.getInt(Checkpoint.CITIES_OFFSET) == numberOfCities
+                    && (header.getInt(Checkpoint.PRECISION_OFFSET) != 0) == singlePrecision
+                    && header.getLong(Checkpoint.EDGES_OFFSET) == storedEdges
+                    && header.getLong(Checkpoint.FINGERPRINT_OFFSET) == instance.fingerprint;
+            if (reusable) {
+                active = header.getInt(Checkpoint.ACTIVE_OFFSET);
+                sequence = header.getLong(Checkpoint.SEQUENCE_OFFSET);
+            } else {
+                header.putInt(0, Checkpoint.MAGIC).putInt(4, Checkpoint.VERSION)
+                        .putInt(Checkpoint.CITIES_OFFSET, numberOfCities)
+                        .putInt(Checkpoint.PRECISION_OFFSET, singlePrecision ? 1 : 0)
+                        .putLong(Checkpoint.FINGERPRINT_OFFSET, instance.fingerprint)
+                        .putInt(Checkpoint.ACTIVE_OFFSET, 0)
+                        .putLong(Checkpoint.SEQUENCE_OFFSET, 0)
+                        .putLong(Checkpoint.EDGES_OFFSET, storedEdges);
+                header.force();
+            }
+            for (int slot = 1; slot <= 2; slot++) {
+                slots[slot - 1] = channel.map(FileChannel.MapMode.READ_WRITE,
+                        Checkpoint.slotOffset(slot, numberOfCities, storedEdges, singlePrecision), slotBytes);
+                slots[slot - 1].order(ByteOrder.LITTLE_ENDIAN);
+            }
+        }
+        flusher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "checkpoint-flush");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Writes a checkpoint of a colony, unless the previous checkpoint is still being flushed.
+     * It must be called between iterations on the thread running the solve.
+     *
+     * @param colony The colony.
+     * @param iteration The index of the last completed iteration.
+     * @param iterations The number of iterations run so far.
+     * @param lastImprovement The last iteration that found a shorter tour.
+     * @param bestRoute The predecessors array of the best tour.
+     * @param bestLength The length of the best tour.
+     * @return True if the checkpoint was written, false if it was skipped.
+     */
+    public boolean write(AntColony colony, int iteration, int iterations, int lastImprovement, int[] bestRoute,
+            double bestLength) {
+        if (flush != null && !flush.isDone())
+            return false;
+        awaitFlush(); // reports a failure of the last flush
+        double[] state = colony.pheromoneUpdate.state();
+        if (state.length > Checkpoint.MAX_STATE)
+            throw new IllegalStateException("Pheromone update state of " + state.length + " values does not fit a checkpoint");
+        int slot = active == 1 ? 2 : 1; // never the slot the header points to
+        MappedByteBuffer buffer = slots[slot - 1];
+        buffer.clear();
+        buffer.putInt(iteration).putInt(iterations).putInt(lastImprovement).putInt(state.length);
+        buffer.putDouble(colony.pheromoneScale).putDouble(bestLength);
+        for (int i = 0; i < Checkpoint.MAX_STATE; i++) {
+            buffer.putDouble(i < state.length ? state[i] : 0);
+        }
+        buffer.asIntBuffer().put(bestRoute);
+        buffer.position(Checkpoint.edgesOffset(numberOfCities));
+        colony.pheromoneMatrix.writeEdges(buffer, singlePrecision);
+        active = slot;
+        long written = ++sequence;
+        flush = flusher.submit(() -> {
+            buffer.force();
+            header.putLong(Checkpoint.SEQUENCE_OFFSET, written).putInt(Checkpoint.ACTIVE_OFFSET, slot);
+            header.force();
+        });
+        return true;
+    }
+
+    /**
+     * Waits until the last checkpoint is on disk.
+     *
+     * @throws UncheckedIOException If the last checkpoint could not be flushed.
+     */
+    public void awaitFlush() {
+        if (flush == null)
+            return;
+        try {
+            flush.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new UncheckedIOException(fileName + ": checkpoint could not be written", new IOException(e.getCause()));
+        }
+    }
+
+    /**
+     * Waits until the last checkpoint is on disk and stops the flush thread.
+     */
+    @Override
+    public void close() {
+        try {
+            awaitFlush();
+        } finally {
+            flusher.shutdown();
+            try {
+                flusher.awaitTermination(1, TimeUnit.MINUTES);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,339 @@
+/**
+ * The CityLoader class reads city coordinates from a file in a single pass over a memory-mapped buffer.
+ * It accepts the comma separated "x,y" format of the input files as well as TSPLIB files with a NODE_COORD_SECTION.
+ * Numbers are parsed directly from the bytes without creating strings, and the coordinates are written to a binary
+ * sidecar cache next to the file, so later runs on the same file only copy the cached arrays.
+ */
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+public class CityLoader {
+
+    /** Suffix of the binary sidecar cache file. */
+    public static final String CACHE_SUFFIX = ".cache";
+
+    /** Magic number at the start of a cache file. */
+    private static final int CACHE_MAGIC = 0x54535043; // "TSPC"
+
+    /** Version of the cache file layout. */
+    private static final int CACHE_VERSION = 1;
+
+    /** Size of the cache file header in bytes. */
+    private static final int CACHE_HEADER_BYTES = 4 + 4 + 8 + 8 + 4;
+
+    /** Keyword starting the coordinate section of a TSPLIB file. */
+    private static final byte[] NODE_COORD_SECTION = "NODE_COORD_SECTION".getBytes();
+
+    /** Powers of ten that are exact doubles, used by the fast number parser. */
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    /** The buffer being parsed. */
+    private final ByteBuffer buffer;
+
+    /** The position of the next byte to parse. */
+    private int position;
+
+    /** X coordinates read so far. */
+    private double[] x = new double[1024];
+
+    /** Y coordinates read so far. */
+    private double[] y = new double[1024];
+
+    /** Number of cities read so far. */
+    private int count;
+
+    /**
+     * Creates a parser over a buffer.
+     *
+     * @param buffer The bytes of the file.
+     */
+    private CityLoader(ByteBuffer buffer) {
+        this.buffer = buffer;
+    }
+
+    /**
+     * Reads the coordinates of the cities in a file, from its cache if the cache is up to date.
+     *
+     * @param fileName The name of the file containing city coordinates.
+     * @return An array holding the x coordinates at index 0 and the y coordinates at index 1.
+     * @throws IOException If the file cannot be read.
+     */
+    public static double[][] load(String fileName) throws IOException {
+        return load(fileName, true);
+    }
+
+    /**
+     * Reads the coordinates of the cities in a file.
+     *
+     * @param fileName The name of the file containing city coordinates.
+     * @param useCache If true, the binary sidecar cache is read if it is up to date and written otherwise.
+     * @return An array holding the x coordinates at index 0 and the y coordinates at index 1.
+     * @throws IOException If the file cannot be read.
+     */
+    public static double[][] load(String fileName, boolean useCache) throws IOException {
+        Path file = Path.of(fileName);
+        Path cache = Path.of(fileName + CACHE_SUFFIX);
+        long size = Files.size(file);
+        long modified = Files.getLastModifiedTime(file).toMillis();
+        if (useCache && Files.exists(cache)) {
+            double[][] coordinates = readCache(cache, size, modified);
+            if (coordinates != null)
+                return coordinates;
+        }
+        double[][] coordinates;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (size > Integer.MAX_VALUE)
+                throw new IOException("City file larger than 2 GB: " + fileName);
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            coordinates = new CityLoader(buffer).parse();
+        }
+        if (useCache) {
+            try {
+                writeCache(cache, size, modified, coordinates);
+            } catch (IOException e) { // the cache only speeds up later runs, loading still succeeded
+                System.err.println("Could not write city cache " + cache + ": " + e.getMessage());
+            }
+        }
+        return coordinates;
+    }
+
+    /**
+     * Reads the coordinates of the cities from bytes in one of the file formats, e.g. the body of a request.
+     *
+     * @param buffer The bytes, from index 0 to the limit.
+     * @return An array holding the x coordinates at index 0 and the y coordinates at index 1.
+     * @throws IOException If the content is malformed.
+     */
+    public static double[][] parse(ByteBuffer buffer) throws IOException {
+        return new CityLoader(buffer).parse();
+    }
+
+    /**
+     * Parses the whole buffer in one pass. Content that does not start with a number is a TSPLIB file, whose header lines
+     * are skipped up to the NODE_COORD_SECTION keyword.
+     *
+     * @return An array holding the x coordinates at index 0 and the y coordinates at index 1.
+     * @throws IOException If the content is malformed.
+     */
+    private double[][] parse() throws IOException {
+        if (skipBlank() && !isNumberStart(buffer.get(position))) { // TSPLIB: every line after the keyword is "id x y" until EOF
+            while (!startsWith(NODE_COORD_SECTION)) {
+                skipLine();
+                if (!skipBlank())
+                    throw new IOException("TSPLIB content without " + new String(NODE_COORD_SECTION));
+            }
+            position += NODE_COORD_SECTION.length;
+            while (skipBlank()) {
+                if (!isNumberStart(buffer.get(position)))
+                    break; // the EOF keyword or another section
+                parseNumber(); // the id of the city, cities are kept in file order
+                skipSeparators();
+                double cityX = parseNumber();
+                skipSeparators();
+                add(cityX, parseNumber());
+                skipLine();
+            }
+        } else { // comma separated "x,y" lines, blank lines are skipped
+            while (skipBlank()) {
+                double cityX = parseNumber();
+                skipSeparators();
+                add(cityX, parseNumber());
+                skipLine();
+            }
+        }
+        return new double[][] {Arrays.copyOf(x, count), Arrays.copyOf(y, count)};
+    }
+
+    /**
+     * Adds a city, growing the coordinate arrays when they are full.
+     */
+    private void add(double cityX, double cityY) {
+        if (count == x.length) {
+            x = Arrays.copyOf(x, count * 2);
+            y = Arrays.copyOf(y, count * 2);
+        }
+        x[count] = cityX;
+        y[count] = cityY;
+        count++;
+    }
+
+    /**
+     * Checks whether a keyword starts at the current position.
+     *
+     * @param keyword The bytes of the keyword.
+     * @return True if the keyword starts at the current position.
+     */
+    private boolean startsWith(byte[] keyword) {
+        if (buffer.limit() - position < keyword.length)
+            return false;
+        for (int k = 0; k < keyword.length; k++) {
+            if (buffer.get(position + k) != keyword[k])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Skips whitespace and line breaks.
+     *
+     * @return True if there is more content.
+     */
+    private boolean skipBlank() {
+        while (position < buffer.limit() && buffer.get(position) <= ' ') {
+            position++;
+        }
+        return position < buffer.limit();
+    }
+
+    /**
+     * Skips spaces, tabs and commas between two numbers of a line.
+     */
+    private void skipSeparators() {
+        while (position < buffer.limit()) {
+            byte b = buffer.get(position);
+            if (b != ' ' && b != '\t' && b != ',')
+                return;
+            position++;
+        }
+    }
+
+    /**
+     * Skips the rest of the current line.
+     */
+    private void skipLine() {
+        while (position < buffer.limit() && buffer.get(position) != '\n') {
+            position++;
+        }
+    }
+
+    /**
+     * Checks whether a byte can start a number.
+     */
+    private static boolean isNumberStart(byte b) {
+        return (b >= '0' && b <= '9') || b == '-' || b == '+' || b == '.';
+    }
+
+    /**
+     * Parses a decimal number with an optional sign, fraction and exponent.
+     * Numbers with at most 18 significant digits and a small exponent are computed exactly from the digits;
+     * any other number falls back to Double.parseDouble.
+     *
+     * @return The parsed number.
+     * @throws IOException If there is no number at the current position.
+     */
+    private double parseNumber() throws IOException {
+        int start = position;
+        int limit = buffer.limit();
+        boolean negative = false;
+        if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+            negative = buffer.get(position++) == '-';
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean anyDigit = false;
+        while (position < limit) {
+            byte b = buffer.get(position);
+            if (b >= '0' && b <= '9') {
+                anyDigit = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (b - '0');
+                    if (mantissa != 0)
+                        digits++;
+                } else {
+                    exponent++; // digits beyond the precision of the mantissa only scale the number
+                }
+            } else if (b == '.') {
+                position++;
+                while (position < limit && (b = buffer.get(position)) >= '0' && b <= '9') {
+                    anyDigit = true;
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        exponent--;
+                        if (mantissa != 0)
+                            digits++;
+                    }
+                    position++;
+                }
+                break;
+            } else {
+                break;
+            }
+            position++;
+        }
+        if (!anyDigit)
+            throw new IOException("Expected a number at byte " + start);
+        if (position < limit && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < limit && (buffer.get(position) == '-' || buffer.get(position) == '+'))
+                negativeExponent = buffer.get(position++) == '-';
+            int value = 0;
+            while (position < limit && buffer.get(position) >= '0' && buffer.get(position) <= '9') {
+                value = Math.min(value * 10 + (buffer.get(position++) - '0'), 10000);
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+        double result;
+        if (mantissa < (1L << 53) && exponent >= -22 && exponent <= 22) { // both parts are exact doubles, one rounding
+            result = exponent < 0 ? mantissa / POWERS_OF_TEN[-exponent] : mantissa * POWERS_OF_TEN[exponent];
+        } else {
+            byte[] bytes = new byte[position - start];
+            buffer.get(start, bytes);
+            return Double.parseDouble(new String(bytes));
+        }
+        return negative ? -result : result;
+    }
+
+    /**
+     * Reads the coordinates from a cache file if it was written for the same version of the city file.
+     *
+     * @return The coordinates, or null if the cache is stale or unreadable.
+     */
+    private static double[][] readCache(Path cache, long size, long modified) {
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.READ)) {
+            long cacheSize = channel.size();
+            if (cacheSize < CACHE_HEADER_BYTES)
+                return null;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, cacheSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt() != CACHE_MAGIC || buffer.getInt() != CACHE_VERSION
+                    || buffer.getLong() != size || buffer.getLong() != modified)
+                return null;
+            int n = buffer.getInt();
+            if (cacheSize != CACHE_HEADER_BYTES + 16L * n)
+                return null;
+            double[] x = new double[n];
+            double[] y = new double[n];
+            buffer.asDoubleBuffer().get(x).get(y);
+            return new double[][] {x, y};
+        } catch (IOException e) { // the city file is parsed instead
+            System.err.println("Could not read city cache " + cache + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Writes the coordinates to a cache file, tagged with the size and modification time of the city file.
+     */
+    private static void writeCache(Path cache, long size, long modified, double[][] coordinates) throws IOException {
+        int n = coordinates[0].length;
+        try (FileChannel channel = FileChannel.open(cache, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, CACHE_HEADER_BYTES + 16L * n);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(CACHE_MAGIC).putInt(CACHE_VERSION).putLong(size).putLong(modified).putInt(n);
+            buffer.asDoubleBuffer().put(coordinates[0]).put(coordinates[1]);
+            buffer.force();
+        }
+    }
+}
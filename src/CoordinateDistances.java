@@ -0,0 +1,38 @@
+/**
+ * The CoordinateDistances class computes every distance directly from the coordinates.
+ * It needs no memory beyond the coordinates, which makes it the provider for very large instances.
+ */
+public class CoordinateDistances implements DistanceProvider {
+
+    /** X coordinate of each city. */
+    private final double[] x;
+
+    /** Y coordinate of each city. */
+    private final double[] y;
+
+    /**
+     * Creates the provider over the given coordinates.
+     *
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     */
+    public CoordinateDistances(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        return DistanceProvider.euclidean(x, y, i, j);
+    }
+
+    @Override
+    public int size() {
+        return x.length;
+    }
+
+    @Override
+    public long bytes() {
+        return 0;
+    }
+}
@@ -0,0 +1,69 @@
+/**
+ * The DenseDistances class precomputes the distances between all cities into one row-major array.
+ * It is the fastest provider but needs n * n doubles, so it is only used for small instances.
+ */
+public class DenseDistances implements DistanceProvider {
+
+    /** Number of cities. */
+    private final int n;
+
+    /** Distance between cities i and j at position i * n + j. */
+    private final double[] distances;
+
+    /**
+     * Computes the distances between all cities.
+     *
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     */
+    public DenseDistances(double[] x, double[] y) {
+        n = x.length;
+        distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) { // the matrix is symmetric, compute each pair once
+                double distance = DistanceProvider.euclidean(x, y, i, j);
+                distances[i * n + j] = distance;
+                distances[j * n + i] = distance;
+            }
+        }
+    }
+
+    /**
+     * Computes the distances of an instance derived from another one by adding and removing cities. Distances between
+     * cities of the other instance are copied, only the rows of the added cities are computed.
+     *
+     * @param previous The distances of the other instance.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     */
+    public DenseDistances(DenseDistances previous, int[] previousIndex, double[] x, double[] y) {
+        n = x.length;
+        distances = new double[n * n];
+        for (int i = 0; i < n; i++) {
+            int pi = previousIndex[i];
+            for (int j = 0; j < i; j++) {
+                int pj = previousIndex[j];
+                double distance = pi >= 0 && pj >= 0 ? previous.distances[pi * previous.n + pj]
+                        : DistanceProvider.euclidean(x, y, i, j);
+                distances[i * n + j] = distance;
+                distances[j * n + i] = distance;
+            }
+        }
+    }
+
+    @Override
+    public double distance(int i, int j) {
+        return distances[i * n + j];
+    }
+
+    @Override
+    public int size() {
+        return n;
+    }
+
+    @Override
+    public long bytes() {
+        return (long) distances.length * Double.BYTES;
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * The DistanceProvider interface gives the distance between two cities without fixing how it is stored.
+ * A dense matrix is used for small instances, cached rows for mid-size instances and direct computation from the
+ * coordinates for large ones, chosen by forCoordinates from the number of cities and the available heap.
+ */
+public interface DistanceProvider {
+
+    /** Fraction of the maximum heap a dense distance matrix may take. */
+    double DENSE_HEAP_FRACTION = 0.25;
+
+    /** Fraction of the maximum heap the row cache may take. */
+    double CACHE_HEAP_FRACTION = 0.125;
+
+    /** Largest number of cities for which rows are cached, larger instances compute every distance. */
+    int MAX_CACHED_CITIES = 200_000;
+
+    /**
+     * Returns the distance between two cities.
+     *
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     * @return The distance between the cities.
+     */
+    double distance(int i, int j);
+
+    /**
+     * Returns the number of cities.
+     *
+     * @return The number of cities.
+     */
+    int size();
+
+    /**
+     * Returns the number of bytes the provider keeps besides the coordinates, at most.
+     *
+     * @return The size of the stored distances in bytes.
+     */
+    long bytes();
+
+    /**
+     * Returns the Euclidean distance between two points.
+     *
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     * @param i The index of the first city.
+     * @param j The index of the second city.
+     * @return The distance between the cities.
+     */
+    static double euclidean(double[] x, double[] y, int i, int j) {
+        double dx = x[i] - x[j];
+        double dy = y[i] - y[j];
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    /**
+     * Chooses the distance provider for the given coordinates from the number of cities and the maximum heap size.
+     *
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     * @return A dense, cached or coordinate based distance provider.
+     */
+    static DistanceProvider forCoordinates(double[] x, double[] y) {
+        long n = x.length;
+        long maxMemory = Runtime.getRuntime().maxMemory();
+        if (fitsDense(n))
+            return new DenseDistances(x, y);
+        int rows = (int) Math.min(n, (long) (maxMemory * CACHE_HEAP_FRACTION) / (n * Double.BYTES));
+        if (n <= MAX_CACHED_CITIES && rows >= 16)
+            return new CachedDistances(x, y, rows);
+        return new CoordinateDistances(x, y);
+    }
+
+    /**
+     * Chooses the distance provider for an instance derived from another one by adding and removing cities.
+     * A dense matrix copies the distances between the remaining cities and only computes those of the added cities.
+     *
+     * @param previous The distances of the other instance.
+     * @param previousIndex For each city, its index in the other instance, or -1 for an added city.
+     * @param x The x coordinates of the cities.
+     * @param y The y coordinates of the cities.
+     * @return A dense, cached or coordinate based distance provider.
+     */
+    static DistanceProvider derive(DistanceProvider previous, int[] previousIndex, double[] x, double[] y) {
+        if (previous instanceof DenseDistances && fitsDense(x.length))
+            return new DenseDistances((DenseDistances) previous, previousIndex, x, y);
+        return forCoordinates(x, y);
+    }
+
+    /**
+     * Checks whether a dense distance matrix of n cities fits an array and its share of the heap.
+     *
+     * @param n The number of cities.
+     * @return True if a dense matrix should be used.
+     */
+    private static boolean fitsDense(long n) {
+        return n * n <= Integer.MAX_VALUE && n * n * Double.BYTES <= Runtime.getRuntime().maxMemory() * DENSE_HEAP_FRACTION;
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * The DoubleMatrix class stores a symmetric matrix in a single on-heap double array.
+ */
+import java.util.Arrays;
+
+public class DoubleMatrix extends SymmetricMatrix {
+
+    /** The stored entries. */
+    private final double[] values;
+
+    /**
+     * Creates a matrix filled with zeros.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     */
+    public DoubleMatrix(int n, Layout layout) {
+        super(n, layout);
+        values = new double[(int) entries(n, layout)];
+    }
+
+    @Override
+    protected double load(long index) {
+        return values[(int) index];
+    }
+
+    @Override
+    protected void store(long index, double value) {
+        values[(int) index] = value;
+    }
+
+    @Override
+    public void fill(double value) {
+        Arrays.fill(values, value);
+    }
+
+    @Override
+    public void scale(double factor) {
+        for (int k = 0; k < values.length; k++) {
+            values[k] *= factor;
+        }
+    }
+
+    @Override
+    public void setPowerProduct(SymmetricMatrix base, double exponent, SymmetricMatrix factor) {
+        if (base instanceof DoubleMatrix && factor instanceof DoubleMatrix && sameLayout(base) && sameLayout(factor))
+            Kernels.ACTIVE.powerProduct(((DoubleMatrix) base).values, exponent, ((DoubleMatrix) factor).values, values, values.length);
+        else
+            super.setPowerProduct(base, exponent, factor);
+    }
+
+    @Override
+    public void scaleClamp(double factor, double min, double max) {
+        Kernels.ACTIVE.scaleClamp(values, factor, min, max, values.length);
+    }
+
+    @Override
+    public double[] fullRows() {
+        return triangular ? null : values;
+    }
+
+    @Override
+    public long bytes() {
+        return (long) values.length * Double.BYTES;
+    }
+}
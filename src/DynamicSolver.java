@@ -0,0 +1,175 @@
+/**
+ * The DynamicSolver class keeps a solved instance alive while cities are added and removed.
+ * After a change, the instance is derived from the previous one, reusing its distances and candidate lists, and the best
+ * tour is repaired: removed cities are cut out and added cities are put where they lengthen the tour the least
+ * (cheapest insertion). A colony that takes over the pheromone of the remaining edges then improves the repaired tour
+ * for a few iterations, instead of a full solve from scratch.
+ */
+public class DynamicSolver {
+
+    /** The configuration of the first, full solve. */
+    public final SolverConfig config;
+
+    /** The configuration of the solves after a change, which run fewer iterations. */
+    public final SolverConfig replanConfig;
+
+    /** The current instance. */
+    private Instance instance;
+
+    /** The colony of the last solve, holding its pheromone, null before the first solve. */
+    private AntColony colony;
+
+    /** The best tour of the current instance, null before the first solve. */
+    private SolverResult best;
+
+    /**
+     * Creates a dynamic solver.
+     *
+     * @param instance The instance to start with.
+     * @param config The configuration of the first solve, which must use the ant colony.
+     * @param replanIterations The number of iterations run after every change.
+     */
+    public DynamicSolver(Instance instance, SolverConfig config, int replanIterations) {
+        if (config.method != SolverConfig.Method.ANT_COLONY)
+            throw new IllegalArgumentException("A dynamic solver needs the ant colony, got " + config.method);
+        this.instance = instance;
+        this.config = config;
+        replanConfig = config.toBuilder().iterations(replanIterations).build();
+    }
+
+    /**
+     * Returns the current instance, whose city indices the routes refer to.
+     *
+     * @return The instance.
+     */
+    public synchronized Instance instance() {
+        return instance;
+    }
+
+    /**
+     * Returns the best tour of the current instance.
+     *
+     * @return The best tour, or null before the first solve.
+     */
+    public synchronized SolverResult best() {
+        return best;
+    }
+
+    /**
+     * Solves the current instance from scratch with all iterations of the configuration.
+     *
+     * @return The best tour.
+     */
+    public synchronized SolverResult solve() {
+        colony = new AntColony(instance, config);
+        best = colony.solve();
+        return best;
+    }
+
+    /**
+     * Adds a city and replans. The city gets the index numberOfCities of the current instance.
+     *
+     * @param x The x coordinate of the city.
+     * @param y The y coordinate of the city.
+     * @return The best tour of the changed instance.
+     */
+    public SolverResult addCity(double x, double y) {
+        return update(new double[] {x}, new double[] {y}, new int[0]);
+    }
+
+    /**
+     * Removes a city and replans. Cities with a higher index move down by one.
+     *
+     * @param city The index of the city.
+     * @return The best tour of the changed instance.
+     */
+    public SolverResult removeCity(int city) {
+        return update(new double[0], new double[0], new int[] {city});
+    }
+
+    /**
+     * Adds and removes cities in one change and replans. The remaining cities keep their order, followed by the added
+     * cities, so the indices of the remaining cities move down by the number of removed cities before them.
+     * Before the first solve, the changed instance is solved from scratch.
+     *
+     * @param addedX The x coordinate of each added city.
+     * @param addedY The y coordinate of each added city.
+     * @param removed The indices of the removed cities in the current instance.
+     * @return The best tour of the changed instance.
+     */
+    public synchronized SolverResult update(double[] addedX, double[] addedY, int[] removed) {
+        if (addedX.length != addedY.length)
+            throw new IllegalArgumentException("Got " + addedX.length + " x and " + addedY.length + " y coordinates");
+        int n = instance.numberOfCities;
+        boolean[] gone = new boolean[n];
+        for (int city : removed) {
+            if (city < 0 || city >= n || gone[city])
+                throw new IllegalArgumentException("Cannot remove city " + city + " of " + n + " cities");
+            gone[city] = true;
+        }
+        int size = n - removed.length + addedX.length;
+        if (size < 3)
+            throw new IllegalArgumentException("A tour needs at least 3 cities, the change leaves " + size);
+        int[] previousIndex = new int[size];
+        int[] newIndex = new int[n];
+        int next = 0;
+        for (int city = 0; city < n; city++) {
+            newIndex[city] = gone[city] ? -1 : next;
+            if (!gone[city])
+                previousIndex[next++] = city;
+        }
+        while (next < size) {
+            previousIndex[next++] = -1;
+        }
+        Instance changed = instance.derive(previousIndex, addedX, addedY);
+        if (colony == null) {
+            instance = changed;
+            return solve();
+        }
+        int[] route = repair(changed, best.route(), newIndex, n - removed.length);
+        AntColony replan = new AntColony(changed, replanConfig);
+        replan.continueFrom(colony, previousIndex, route, changed.routeLength(route));
+        instance = changed;
+        colony = replan;
+        best = replan.solve();
+        return best;
+    }
+
+    /**
+     * Repairs a tour after a change: removed cities are cut out, then every added city is inserted between the two
+     * consecutive cities where it adds the least length.
+     *
+     * @param changed The changed instance.
+     * @param route The tour of the previous instance.
+     * @param newIndex For each city of the previous instance, its index in the changed instance, or -1 if it was removed.
+     * @param remaining The number of remaining cities, the added cities follow them.
+     * @return The repaired tour of the changed instance.
+     */
+    public static int[] repair(Instance changed, int[] route, int[] newIndex, int remaining) {
+        int n = changed.numberOfCities;
+        int[] repaired = new int[n];
+        int length = 0;
+        for (int city : route) {
+            if (newIndex[city] >= 0)
+                repaired[length++] = newIndex[city];
+        }
+        DistanceProvider distances = changed.distances;
+        for (int city = remaining; city < n; city++) {
+            int position = length; // after the last city, if fewer than two cities are left
+            double cheapest = Double.MAX_VALUE;
+            for (int i = 0; length >= 2 && i < length; i++) {
+                int from = repaired[i];
+                int to = repaired[i + 1 == length ? 0 : i + 1];
+                double increase = distances.distance(from, city) + distances.distance(city, to) - distances.distance(from, to);
+                if (increase < cheapest) {
+                    cheapest = increase;
+                    position = i + 1;
+                }
+            }
+            System.arraycopy(repaired, position, repaired, position + 1, length - position);
+            repaired[position] = city;
+            length++;
+        }
+        return repaired;
+    }
+}
@@ -0,0 +1,61 @@
+/**
+ * The FloatMatrix class stores a symmetric matrix in a single on-heap float array, at half the memory of doubles.
+ */
+import java.util.Arrays;
+
+public class FloatMatrix extends SymmetricMatrix {
+
+    /** The stored entries. */
+    private final float[] values;
+
+    /**
+     * Creates a matrix filled with zeros.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     */
+    public FloatMatrix(int n, Layout layout) {
+        super(n, layout);
+        values = new float[(int) entries(n, layout)];
+    }
+
+    @Override
+    protected double load(long index) {
+        return values[(int) index];
+    }
+
+    @Override
+    protected void store(long index, double value) {
+        values[(int) index] = (float) value;
+    }
+
+    @Override
+    public void fill(double value) {
+        Arrays.fill(values, (float) value);
+    }
+
+    @Override
+    public void scale(double factor) {
+        for (int k = 0; k < values.length; k++) {
+            values[k] *= factor;
+        }
+    }
+
+    @Override
+    public void setPowerProduct(SymmetricMatrix base, double exponent, SymmetricMatrix factor) {
+        if (base instanceof FloatMatrix && factor instanceof FloatMatrix && sameLayout(base) && sameLayout(factor))
+            Kernels.ACTIVE.powerProduct(((FloatMatrix) base).values, exponent, ((FloatMatrix) factor).values, values, values.length);
+        else
+            super.setPowerProduct(base, exponent, factor);
+    }
+
+    @Override
+    public void scaleClamp(double factor, double min, double max) {
+        Kernels.ACTIVE.scaleClamp(values, factor, min, max, values.length);
+    }
+
+    @Override
+    public long bytes() {
+        return (long) values.length * Float.BYTES;
+    }
+}
@@ -0,0 +1,477 @@
+/**
+ * The HeadlessRenderer class draws pheromone maps and routes into off-screen images and writes them as PNG or SVG files,
+ * so images can be produced on servers without a display. Drawing works on a snapshot: the edges worth drawing are
+ * picked from the pheromone matrix on the solver thread, which culls edges whose pheromone is below a share of the
+ * highest level or outside the top-k edges of each city, and the rasterizing and writing run on a background thread.
+ */
+import java.awt.BasicStroke;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Line2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+
+public class HeadlessRenderer implements AutoCloseable {
+
+    /** Share of the highest pheromone level below which the pheromone maps of the main method leave edges out. */
+    public static final double DEFAULT_THRESHOLD = 0.01;
+
+    /** Number of edges with the most pheromone the pheromone maps of the main method keep for each city. */
+    public static final int DEFAULT_TOP_K = 5;
+
+    /** Largest number of cities whose numbers are written next to them. */
+    public static final int MAX_LABELED_CITIES = 100;
+
+    /** Color of the first city, the Princeton orange of the on-screen drawings. */
+    private static final Color FIRST_CITY = new Color(245, 128, 37);
+
+    /** Color of the best route drawn over a pheromone map. */
+    private static final Color ROUTE = new Color(200, 30, 30);
+
+    /**
+     * The Snapshot class holds what an image shows: the cities of an instance, the culled pheromone edges and a route.
+     * It copies everything it needs, so it can be drawn while the colony goes on.
+     */
+    public static final class Snapshot {
+
+        /** The instance, whose coordinates never change. */
+        public final Instance instance;
+
+        /** First city of each edge. */
+        private final int[] from;
+
+        /** Second city of each edge. */
+        private final int[] to;
+
+        /** Pheromone level of each edge relative to the highest level, in (0, 1]. */
+        private final float[] weight;
+
+        /** The route as a permutation of the cities, or null. */
+        private final int[] route;
+
+        /**
+         * Creates a snapshot.
+         */
+        private Snapshot(Instance instance, int[] from, int[] to, float[] weight, int[] route) {
+            this.instance = instance;
+            this.from = from;
+            this.to = to;
+            this.weight = weight;
+            this.route = route;
+        }
+
+        /**
+         * Returns the number of pheromone edges left after culling.
+         *
+         * @return The number of edges.
+         */
+        public int edges() {
+            return from.length;
+        }
+
+        /**
+         * Returns the first city of an edge.
+         *
+         * @param edge The index of the edge, below edges().
+         * @return The index of the city.
+         */
+        public int from(int edge) {
+            return from[edge];
+        }
+
+        /**
+         * Returns the second city of an edge.
+         *
+         * @param edge The index of the edge, below edges().
+         * @return The index of the city.
+         */
+        public int to(int edge) {
+            return to[edge];
+        }
+    }
+
+    /** Width of the images in pixels. */
+    public final int width;
+
+    /** Height of the images in pixels. */
+    public final int height;
+
+    /** Thread drawing and writing the images. */
+    private final ExecutorService executor;
+
+    /** The last image written in the background, null before the first one. */
+    private CompletableFuture<Path> pending;
+
+    /**
+     * Creates a renderer with its background thread.
+     *
+     * @param width The width of the images in pixels.
+     * @param height The height of the images in pixels.
+     */
+    public HeadlessRenderer(int width, int height) {
+        if (width < 1 || height < 1)
+            throw new IllegalArgumentException("Image size must be positive: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "headless-renderer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes a snapshot of the pheromone map and the best tour so far of a colony. It must be called on the thread running
+     * the solve, between iterations, or after the solve. With candidate lists only the candidate edges are considered,
+     * which makes the snapshot linear in the number of cities. Otherwise every edge is visited, but only the kept edges
+     * are stored.
+     *
+     * @param colony The colony.
+     * @param threshold The share of the highest pheromone level below which edges are left out, 0 to keep every edge.
+     * @param topK The number of edges with the most pheromone kept for each city, 0 for no limit.
+     * @return The snapshot.
+     */
+    public static Snapshot pheromoneSnapshot(AntColony colony, double threshold, int topK) {
+        int n = colony.numberOfCities;
+        CandidateLists candidates = colony.candidateLists;
+        EdgeList edges = new EdgeList();
+        if (topK == 0) { // a pass for the highest level, then one keeping the edges above the threshold
+            double max = scanEdges(colony, 0, 0, null);
+            if (max > 0)
+                scanEdges(colony, threshold * max, max, edges);
+        } else {
+            int perCity = Math.min(topK, candidates != null ? candidates.k : n - 1);
+            long[] keys = new long[n * perCity]; // min * n + max of every selected edge, sorted to drop duplicates
+            int keyCount = 0;
+            double max = 0;
+            int[] bestCities = new int[perCity];
+            double[] bestLevels = new double[perCity];
+            for (int i = 0; i < n; i++) {
+                int count = 0;
+                int neighbours = candidates != null ? candidates.k : n;
+                for (int s = 0; s < neighbours; s++) {
+                    int j = candidates != null ? candidates.neighbours[i * candidates.k + s] : s;
+                    if (j == i)
+                        continue;
+                    double level = colony.pheromone(i, j);
+                    if (count == perCity && level <= bestLevels[perCity - 1])
+                        continue;
+                    int position = count < perCity ? count++ : perCity - 1; // insertion into the sorted top-k
+                    while (position > 0 && bestLevels[position - 1] < level) {
+                        bestLevels[position] = bestLevels[position - 1];
+                        bestCities[position] = bestCities[position - 1];
+                        position--;
+                    }
+                    bestLevels[position] = level;
+                    bestCities[position] = j;
+                }
+                for (int s = 0; s < count; s++) {
+                    keys[keyCount++] = Math.min(i, bestCities[s]) * (long) n + Math.max(i, bestCities[s]);
+                }
+                if (count > 0)
+                    max = Math.max(max, bestLevels[0]);
+            }
+            Arrays.sort(keys, 0, keyCount);
+            for (int k = 0; k < keyCount && max > 0; k++) {
+                if (k > 0 && keys[k] == keys[k - 1])
+                    continue; // an edge in the top-k of both cities once
+                int i = (int) (keys[k] / n);
+                int j = (int) (keys[k] % n);
+                double level = colony.pheromone(i, j);
+                if (level >= threshold * max)
+                    edges.add(i, j, (float) (level / max));
+            }
+        }
+        SolverResult best = colony.bestSoFar();
+        return new Snapshot(colony.instance, Arrays.copyOf(edges.from, edges.size), Arrays.copyOf(edges.to, edges.size),
+                Arrays.copyOf(edges.weight, edges.size), best != null ? best.route() : null);
+    }
+
+    /**
+     * Passes once over every edge of the map, the candidate edges with candidate lists, finding the highest pheromone
+     * level and keeping the edges with at least a given level.
+     *
+     * @param colony The colony.
+     * @param cut The lowest level of a kept edge.
+     * @param max The highest level, the weights of the kept edges are relative to it.
+     * @param edges The list the kept edges are added to, or null to only find the highest level.
+     * @return The highest level.
+     */
+    private static double scanEdges(AntColony colony, double cut, double max, EdgeList edges) {
+        int n = colony.numberOfCities;
+        CandidateLists candidates = colony.candidateLists;
+        double highest = 0;
+        for (int i = 0; i < n; i++) {
+            int neighbours = candidates != null ? candidates.k : i; // without lists, the edges to the lower cities
+            for (int s = 0; s < neighbours; s++) {
+                int j = candidates != null ? candidates.neighbours[i * candidates.k + s] : s;
+                if (candidates != null && j < i && candidates.contains(j, i))
+                    continue; // taken from the list of j
+                double level = colony.pheromone(i, j);
+                highest = Math.max(highest, level);
+                if (edges != null && level >= cut)
+                    edges.add(i, j, (float) (level / max));
+            }
+        }
+        return highest;
+    }
+
+    /**
+     * Takes a snapshot of a route without pheromone.
+     *
+     * @param instance The instance.
+     * @param route The route as a permutation of the cities, starting anywhere.
+     * @return The snapshot.
+     */
+    public static Snapshot routeSnapshot(Instance instance, int[] route) {
+        return new Snapshot(instance, new int[0], new int[0], new float[0], route.clone());
+    }
+
+    /**
+     * Draws a snapshot and writes it on the background thread. The format follows the file extension: ".svg" for SVG,
+     * anything else for PNG.
+     *
+     * @param snapshot The snapshot to draw.
+     * @param file The file to write.
+     * @return A future completed with the file once it is written.
+     */
+    public synchronized CompletableFuture<Path> render(Snapshot snapshot, Path file) {
+        pending = CompletableFuture.supplyAsync(() -> {
+            try {
+                write(snapshot, file);
+                return file;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, executor);
+        return pending;
+    }
+
+    /**
+     * Returns an iteration listener that renders the pheromone map and best tour of a colony every few iterations into
+     * a directory, as iteration-00042.png and so on. An image is skipped while the previous one is still being drawn,
+     * so a slow disk never holds up the solve or piles up snapshots.
+     *
+     * @param interval The number of iterations between two images.
+     * @param directory The directory the images are written to, which must exist.
+     * @param threshold The share of the highest pheromone level below which edges are left out.
+     * @param topK The number of edges with the most pheromone kept for each city, 0 for no limit.
+     * @return The iteration listener, which never stops the solve.
+     */
+    public IterationListener every(int interval, Path directory, double threshold, int topK) {
+        if (interval < 1)
+            throw new IllegalArgumentException("Interval must be positive: " + interval);
+        return (colony, iteration) -> {
+            if ((iteration + 1) % interval == 0 && idle())
+                render(pheromoneSnapshot(colony, threshold, topK),
+                        directory.resolve(String.format("iteration-%05d.png", iteration + 1)));
+            return true;
+        };
+    }
+
+    /**
+     * Tells whether the background thread has written every image.
+     *
+     * @return True if no image is being drawn.
+     */
+    public synchronized boolean idle() {
+        return pending == null || pending.isDone();
+    }
+
+    /**
+     * Draws a snapshot and writes it on the calling thread. The format follows the file extension: ".svg" for SVG,
+     * anything else for PNG.
+     *
+     * @param snapshot The snapshot to draw.
+     * @param file The file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Snapshot snapshot, Path file) throws IOException {
+        if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+            try (Writer writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+                writeSvg(snapshot, writer);
+            }
+        } else if (!ImageIO.write(draw(snapshot), "png", file.toFile())) {
+            throw new IOException("No PNG writer available for " + file);
+        }
+    }
+
+    /**
+     * Rasterizes a snapshot into an image: pheromone edges in grey, thicker and darker with more pheromone, the route
+     * in red and the cities as dots, the first one orange.
+     *
+     * @param snapshot The snapshot to draw.
+     * @return The image.
+     */
+    public BufferedImage draw(Snapshot snapshot) {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = image.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            graphics.setColor(Color.WHITE);
+            graphics.fillRect(0, 0, width, height);
+            Projection projection = new Projection(snapshot.instance, width, height);
+            Line2D.Double line = new Line2D.Double();
+            for (int e = 0; e < snapshot.from.length; e++) {
+                float weight = snapshot.weight[e];
+                graphics.setColor(new Color(0, 0, 0, Math.max(0.05f, weight)));
+                graphics.setStroke(new BasicStroke(0.5f + 3.5f * weight));
+                line.setLine(projection.x(snapshot.from[e]), projection.y(snapshot.from[e]),
+                        projection.x(snapshot.to[e]), projection.y(snapshot.to[e]));
+                graphics.draw(line);
+            }
+            int[] route = snapshot.route;
+            if (route != null) {
+                graphics.setColor(ROUTE);
+                graphics.setStroke(new BasicStroke(2f));
+                for (int i = 0; i < route.length; i++) {
+                    int next = route[i + 1 == route.length ? 0 : i + 1]; // the last city connects back to the first
+                    line.setLine(projection.x(route[i]), projection.y(route[i]), projection.x(next), projection.y(next));
+                    graphics.draw(line);
+                }
+            }
+            int n = snapshot.instance.numberOfCities;
+            double radius = n <= MAX_LABELED_CITIES ? 6 : n <= 10_000 ? 2 : 1;
+            Ellipse2D.Double dot = new Ellipse2D.Double();
+            for (int i = n - 1; i >= 0; i--) { // the first city is drawn last, on top
+                graphics.setColor(i == 0 ? FIRST_CITY : Color.GRAY);
+                dot.setFrame(projection.x(i) - radius, projection.y(i) - radius, 2 * radius, 2 * radius);
+                graphics.fill(dot);
+                if (n <= MAX_LABELED_CITIES) {
+                    graphics.setColor(Color.BLACK);
+                    graphics.drawString(String.valueOf(i + 1), (float) (projection.x(i) + radius), (float) (projection.y(i) - radius));
+                }
+            }
+        } finally {
+            graphics.dispose();
+        }
+        return image;
+    }
+
+    /**
+     * Writes a snapshot as an SVG document with the same drawing as draw.
+     *
+     * @param snapshot The snapshot to draw.
+     * @param out The output the document is written to.
+     * @throws IOException If the output cannot be written.
+     */
+    public void writeSvg(Snapshot snapshot, Appendable out) throws IOException {
+        Projection projection = new Projection(snapshot.instance, width, height);
+        out.append(String.format(Locale.ROOT, "<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"%d\" height=\"%d\">%n",
+                width, height));
+        out.append(String.format(Locale.ROOT, "<rect width=\"%d\" height=\"%d\" fill=\"white\"/>%n", width, height));
+        for (int e = 0; e < snapshot.from.length; e++) {
+            float weight = snapshot.weight[e];
+            out.append(String.format(Locale.ROOT,
+                    "<line x1=\"%.1f\" y1=\"%.1f\" x2=\"%.1f\" y2=\"%.1f\" stroke=\"black\" stroke-opacity=\"%.2f\" stroke-width=\"%.2f\"/>%n",
+                    projection.x(snapshot.from[e]), projection.y(snapshot.from[e]), projection.x(snapshot.to[e]),
+                    projection.y(snapshot.to[e]), Math.max(0.05f, weight), 0.5f + 3.5f * weight));
+        }
+        if (snapshot.route != null) {
+            out.append("<polygon fill=\"none\" stroke=\"rgb(200,30,30)\" stroke-width=\"2\" points=\"");
+            for (int city : snapshot.route) {
+                out.append(String.format(Locale.ROOT, "%.1f,%.1f ", projection.x(city), projection.y(city)));
+            }
+            out.append(String.format("\"/>%n"));
+        }
+        int n = snapshot.instance.numberOfCities;
+        double radius = n <= MAX_LABELED_CITIES ? 6 : n <= 10_000 ? 2 : 1;
+        for (int i = n - 1; i >= 0; i--) {
+            out.append(String.format(Locale.ROOT, "<circle cx=\"%.1f\" cy=\"%.1f\" r=\"%.0f\" fill=\"%s\"/>%n",
+                    projection.x(i), projection.y(i), radius, i == 0 ? "rgb(245,128,37)" : "gray"));
+            if (n <= MAX_LABELED_CITIES)
+                out.append(String.format(Locale.ROOT, "<text x=\"%.1f\" y=\"%.1f\" font-size=\"12\">%d</text>%n",
+                        projection.x(i) + radius, projection.y(i) - radius, i + 1));
+        }
+        out.append(String.format("</svg>%n"));
+    }
+
+    /**
+     * Waits until every image is written and stops the background thread.
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The Projection class maps the bounding box of the cities onto the image, keeping the aspect ratio, with the y axis
+     * pointing up as on the on-screen canvas.
+     */
+    private static final class Projection {
+
+        private final Instance instance;
+        private final double minX;
+        private final double minY;
+        private final double scale;
+        private final double height;
+        private final double margin;
+
+        Projection(Instance instance, int width, int height) {
+            this.instance = instance;
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int i = 0; i < instance.numberOfCities; i++) {
+                minX = Math.min(minX, instance.x(i));
+                maxX = Math.max(maxX, instance.x(i));
+                minY = Math.min(minY, instance.y(i));
+                maxY = Math.max(maxY, instance.y(i));
+            }
+            this.minX = minX;
+            this.minY = minY;
+            this.height = height;
+            margin = 0.05 * Math.min(width, height);
+            double extent = Math.max(Math.max(maxX - minX, maxY - minY), 1e-12);
+            scale = (Math.min(width, height) - 2 * margin) / extent;
+        }
+
+        double x(int city) {
+            return margin + (instance.x(city) - minX) * scale;
+        }
+
+        double y(int city) {
+            return height - margin - (instance.y(city) - minY) * scale;
+        }
+    }
+
+    /**
+     * The EdgeList class is a growable list of edges with their weights in primitive arrays, so culling does not box
+     * every edge.
+     */
+    private static final class EdgeList {
+
+        private int[] from = new int[16];
+        private int[] to = new int[16];
+        private float[] weight = new float[16];
+        private int size;
+
+        void add(int i, int j, float w) {
+            if (size == from.length) {
+                from = Arrays.copyOf(from, 2 * size);
+                to = Arrays.copyOf(to, 2 * size);
+                weight = Arrays.copyOf(weight, 2 * size);
+            }
+            from[size] = i;
+            to[size] = j;
+            weight[size++] = w;
+        }
+    }
+}
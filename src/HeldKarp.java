@@ -0,0 +1,110 @@
+/**
+ * The HeldKarp class solves the Traveling Salesman Problem exactly with the Held-Karp dynamic programming algorithm.
+ * For every subset of cities and every last city of the subset it keeps the length of the shortest path that starts at the
+ * first city and visits the subset, which takes O(2^n * n^2) time instead of the (n-1)! routes of the brute-force method.
+ * Subsets of the same size do not depend on each other, so each size is computed in parallel.
+ * The table holds doubles, so its lengths are exact sums of the distances and walking back through it rebuilds the
+ * optimal route; it takes 8 * 2^(n-1) * (n-1) bytes, about 80 MB for 20 cities.
+ */
+import java.util.stream.IntStream;
+
+public class HeldKarp {
+
+    /** Largest number of entries of the path length table. */
+    public static final long MAX_TABLE_ENTRIES = Integer.MAX_VALUE - 8;
+
+    /**
+     * Finds the shortest route through all cities, starting from the first city.
+     *
+     * @param distances The distances between cities.
+     * @return The shortest route as a permutation of the cities starting with city 0.
+     */
+    public static int[] solve(DistanceProvider distances) {
+        int n = distances.size();
+        if (n <= 3) { // every route is the shortest one
+            int[] route = new int[n];
+            for (int i = 0; i < n; i++) {
+                route[i] = i;
+            }
+            return route;
+        }
+        int m = n - 1; // city 0 is the fixed start, city c + 1 is bit c of a subset
+        long entries = ((long) 1 << m) * m;
+        if (m >= 31 || entries > MAX_TABLE_ENTRIES)
+            throw new IllegalArgumentException("Too many cities for the Held-Karp method: " + n);
+        double[] distance = new double[n * n]; // local copy, the table lookups dominate the running time
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                distance[i * n + j] = distances.distance(i, j);
+            }
+        }
+        double[] table = new double[(int) entries]; // table[subset * m + c] is the shortest path from 0 through subset ending at c + 1
+        for (int c = 0; c < m; c++) {
+            table[(1 << c) * m + c] = distance[c + 1];
+        }
+        for (int size = 2; size <= m; size++) {
+            final int subsetSize = size;
+            IntStream.range(1, 1 << m).parallel()
+                    .filter(subset -> Integer.bitCount(subset) == subsetSize)
+                    .forEach(subset -> fillSubset(table, distance, n, m, subset));
+        }
+
+        int full = (1 << m) - 1;
+        int last = 0;
+        double best = Double.MAX_VALUE;
+        for (int c = 0; c < m; c++) { // close the cycle back to city 0
+            double length = table[full * m + c] + distance[(c + 1) * n];
+            if (length < best) {
+                best = length;
+                last = c;
+            }
+        }
+        int[] route = new int[n];
+        int subset = full;
+        for (int position = n - 1; position > 0; position--) { // walk back through the table to rebuild the route
+            route[position] = last + 1;
+            int previousSubset = subset ^ (1 << last);
+            int previous = -1;
+            double previousBest = Double.MAX_VALUE;
+            for (int c = 0; c < m; c++) {
+                if ((previousSubset & (1 << c)) == 0)
+                    continue;
+                double length = table[previousSubset * m + c] + distance[(c + 1) * n + last + 1];
+                if (length < previousBest) {
+                    previousBest = length;
+                    previous = c;
+                }
+            }
+            subset = previousSubset;
+            last = previous;
+        }
+        return route;
+    }
+
+    /**
+     * Computes the shortest path lengths of one subset for every last city of the subset.
+     *
+     * @param table The path length table.
+     * @param distance The distances between cities, row-major.
+     * @param n The number of cities.
+     * @param m The number of cities other than the start.
+     * @param subset The subset of cities, city c + 1 is bit c.
+     */
+    private static void fillSubset(double[] table, double[] distance, int n, int m, int subset) {
+        for (int last = 0; last < m; last++) {
+            if ((subset & (1 << last)) == 0)
+                continue;
+            int previousSubset = subset ^ (1 << last);
+            int lastCity = last + 1;
+            double best = Double.MAX_VALUE;
+            for (int c = 0, bits = previousSubset; bits != 0; c++, bits >>>= 1) {
+                if ((bits & 1) == 0)
+                    continue;
+                double length = table[previousSubset * m + c] + distance[(c + 1) * n + lastCity];
+                if (length < best)
+                    best = length;
+            }
+            table[subset * m + last] = best;
+        }
+    }
+}
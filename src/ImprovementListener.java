@@ -0,0 +1,15 @@
+/**
+ * The ImprovementListener interface receives every new best-so-far tour of a solve as soon as its iteration ends,
+ * so a caller can act on the best tour found so far without waiting for the solve to finish.
+ * It is called on the thread running the solve, so it should return quickly.
+ */
+@FunctionalInterface
+public interface ImprovementListener {
+
+    /**
+     * Called when a solve has found a tour shorter than every earlier tour.
+     *
+     * @param best The best tour so far, with the number of iterations run and the time taken until it was found.
+     */
+    void improved(SolverResult best);
+}
@@ -0,0 +1,52 @@
+/**
+ * The InMemoryExchange class is a MigrationExchange for islands running as threads of one JVM.
+ * Each slot holds an immutable Migrant, so a reader always sees a whole tour without locking.
+ */
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+public class InMemoryExchange implements MigrationExchange {
+
+    /** The latest tour of each island, null until it publishes one. */
+    private final AtomicReferenceArray<Migrant> slots;
+
+    /** Set once an island has asked the others to stop. */
+    private volatile boolean stopped;
+
+    /**
+     * Creates an exchange with no tours.
+     *
+     * @param islands The number of islands.
+     */
+    public InMemoryExchange(int islands) {
+        if (islands < 1)
+            throw new IllegalArgumentException("Number of islands must be positive: " + islands);
+        slots = new AtomicReferenceArray<>(islands);
+    }
+
+    @Override
+    public int islands() {
+        return slots.length();
+    }
+
+    @Override
+    public void publish(int island, int[] route, double length) {
+        Migrant previous = slots.get(island); // only the island itself writes its slot
+        slots.set(island, new Migrant(route.clone(), length, previous == null ? 1 : previous.version + 1));
+    }
+
+    @Override
+    public Migrant read(int island, long after) {
+        Migrant migrant = slots.get(island);
+        return migrant != null && migrant.version > after ? migrant : null;
+    }
+
+    @Override
+    public void stop() {
+        stopped = true;
+    }
+
+    @Override
+    public boolean stopped() {
+        return stopped;
+    }
+}
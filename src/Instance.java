@@ -0,0 +1,218 @@
+/**
+ * The Instance class is an immutable Traveling Salesman Problem instance: the coordinates of the cities and the distances
+ * between them. It holds no solver state, so the same instance can be solved by any number of solvers at the same time.
+ */
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public final class Instance {
+
+    /** Name of the instance, the file name for instances read from a file. */
+    public final String name;
+
+    /** Number of cities. */
+    public final int numberOfCities;
+
+    /** Distances between cities, dense, cached or computed from the coordinates depending on the number of cities. */
+    public final DistanceProvider distances;
+
+    /** Hash of the coordinates, equal for instances with the same cities in the same order. */
+    public final long fingerprint;
+
+    /** X coordinate of each city. */
+    private final double[] xCoordinates;
+
+    /** Y coordinate of each city. */
+    private final double[] yCoordinates;
+
+    /** K-d tree over the cities, built on first use. */
+    private KdTree tree;
+
+    /** Candidate lists built so far, by the requested number of candidates. */
+    private final Map<Integer, CandidateLists> candidateLists = new HashMap<>();
+
+    /**
+     * Creates an instance from the coordinates of its cities. The arrays are copied.
+     *
+     * @param name The name of the instance.
+     * @param xCoordinates The x coordinate of each city.
+     * @param yCoordinates The y coordinate of each city.
+     */
+    public Instance(String name, double[] xCoordinates, double[] yCoordinates) {
+        if (xCoordinates.length != yCoordinates.length)
+            throw new IllegalArgumentException("Got " + xCoordinates.length + " x and " + yCoordinates.length + " y coordinates");
+        this.name = name;
+        this.xCoordinates = xCoordinates.clone();
+        this.yCoordinates = yCoordinates.clone();
+        numberOfCities = xCoordinates.length;
+        distances = DistanceProvider.forCoordinates(this.xCoordinates, this.yCoordinates);
+        fingerprint = fingerprint(this.xCoordinates, this.yCoordinates);
+    }
+
+    /**
+     * Creates an instance from coordinates and their distances.
+     */
+    private Instance(String name, double[] xCoordinates, double[] yCoordinates, DistanceProvider distances) {
+        this.name = name;
+        this.xCoordinates = xCoordinates;
+        this.yCoordinates = yCoordinates;
+        numberOfCities = xCoordinates.length;
+        this.distances = distances;
+        fingerprint = fingerprint(xCoordinates, yCoordinates);
+    }
+
+    /**
+     * Creates the instance that results from adding cities to and removing cities from this instance.
+     * Distances between cities of this instance are reused where they are stored in a dense matrix.
+     *
+     * @param previousIndex For each city of the new instance, its index in this instance, or -1 for an added city.
+     * @param addedX The x coordinate of each added city, in the order of the -1 entries of previousIndex.
+     * @param addedY The y coordinate of each added city.
+     * @return The new instance.
+     */
+    public Instance derive(int[] previousIndex, double[] addedX, double[] addedY) {
+        int n = previousIndex.length;
+        double[] x = new double[n];
+        double[] y = new double[n];
+        int added = 0;
+        for (int i = 0; i < n; i++) {
+            if (previousIndex[i] >= 0) {
+                x[i] = xCoordinates[previousIndex[i]];
+                y[i] = yCoordinates[previousIndex[i]];
+            } else {
+                x[i] = addedX[added];
+                y[i] = addedY[added++];
+            }
+        }
+        if (added != addedX.length || added != addedY.length)
+            throw new IllegalArgumentException("Got " + addedX.length + " added cities for " + added + " new indices");
+        return new Instance(name, x, y, DistanceProvider.derive(distances, previousIndex, x, y));
+    }
+
+    /**
+     * Computes a 64-bit hash of coordinates, which tells with high probability whether two instances have the same cities.
+     *
+     * @param xCoordinates The x coordinate of each city.
+     * @param yCoordinates The y coordinate of each city.
+     * @return The hash.
+     */
+    public static long fingerprint(double[] xCoordinates, double[] yCoordinates) {
+        long hash = 0xCBF29CE484222325L ^ xCoordinates.length;
+        for (int i = 0; i < xCoordinates.length; i++) {
+            hash = (hash ^ Double.doubleToLongBits(xCoordinates[i])) * 0x100000001B3L;
+            hash = (hash ^ Double.doubleToLongBits(yCoordinates[i])) * 0x100000001B3L;
+            hash ^= hash >>> 29; // mixes the high bits of the coordinates into the low bits
+        }
+        return hash;
+    }
+
+    /**
+     * Reads an instance from a file.
+     * The file is either comma separated "x,y" lines or a TSPLIB file with a NODE_COORD_SECTION.
+     *
+     * @param fileName The name of the file containing city coordinates.
+     * @return The instance.
+     * @throws IOException If the file cannot be read.
+     */
+    public static Instance read(String fileName) throws IOException {
+        double[][] coordinates = CityLoader.load(fileName);
+        return new Instance(fileName, coordinates[0], coordinates[1]);
+    }
+
+    /**
+     * Returns the x coordinate of a city.
+     *
+     * @param city The index of the city.
+     * @return The x coordinate.
+     */
+    public double x(int city) {
+        return xCoordinates[city];
+    }
+
+    /**
+     * Returns the y coordinate of a city.
+     *
+     * @param city The index of the city.
+     * @return The y coordinate.
+     */
+    public double y(int city) {
+        return yCoordinates[city];
+    }
+
+    /**
+     * Returns the k-d tree over the cities, building it on first use.
+     *
+     * @return The k-d tree.
+     */
+    public synchronized KdTree tree() {
+        if (tree == null)
+            tree = new KdTree(xCoordinates, yCoordinates);
+        return tree;
+    }
+
+    /**
+     * Returns the candidate lists with k candidates per city, building them on first use.
+     *
+     * @param k The number of candidates per city.
+     * @return The candidate lists, shared by every colony on this instance.
+     */
+    public synchronized CandidateLists candidateLists(int k) {
+        return candidateLists.computeIfAbsent(k, key -> new CandidateLists(tree(), key));
+    }
+
+    /**
+     * Checks whether the instance has exactly the given cities in the given order.
+     *
+     * @param xCoordinates The x coordinate of each city.
+     * @param yCoordinates The y coordinate of each city.
+     * @return True if every coordinate is equal.
+     */
+    public boolean sameCities(double[] xCoordinates, double[] yCoordinates) {
+        return Arrays.equals(this.xCoordinates, xCoordinates) && Arrays.equals(this.yCoordinates, yCoordinates);
+    }
+
+    /**
+     * Estimates the memory taken by the instance: coordinates, distances and the tree and candidate lists built so far.
+     *
+     * @return The estimated size in bytes.
+     */
+    public synchronized long bytes() {
+        long bytes = 2L * numberOfCities * Double.BYTES + distances.bytes();
+        if (tree != null)
+            bytes += 2L * numberOfCities * Integer.BYTES; // the order and slot arrays, the tree shares the coordinates
+        for (CandidateLists lists : candidateLists.values()) {
+            bytes += (long) lists.neighbours.length * Integer.BYTES;
+        }
+        return bytes;
+    }
+
+    /**
+     * Calculates the total distance of a cycle given by the predecessor of each city.
+     *
+     * @param predecessors An array representing predecessors of each city in the cycle.
+     * @return The total distance of the cycle.
+     */
+    public double cycleLength(int[] predecessors) {
+        double cycleLength = 0;
+        for (int k = 0; k < numberOfCities; k++) {
+            cycleLength += distances.distance(predecessors[k], k);
+        }
+        return cycleLength;
+    }
+
+    /**
+     * Calculates the total distance of a cycle given as a permutation of the cities.
+     *
+     * @param route The permutation of cities, the last city is connected back to the first.
+     * @return The total distance of the cycle.
+     */
+    public double routeLength(int[] route) {
+        double routeLength = 0;
+        for (int i = 0; i < route.length; i++) {
+            routeLength += distances.distance(route[i], route[i + 1 == route.length ? 0 : i + 1]);
+        }
+        return routeLength;
+    }
+}
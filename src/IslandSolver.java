@@ -0,0 +1,247 @@
+/**
+ * The IslandSolver class runs several colonies on one instance, each with its own matrices and parameters, and lets them
+ * exchange their best tours every few iterations (the island model). Each island reinforces the tours it receives in its
+ * own pheromone matrix, so the islands share no matrix and run without synchronization between two exchanges.
+ * The islands run as threads of one JVM, one per island, or as separate processes that exchange their tours through a
+ * memory-mapped file, started once per island with the main method.
+ */
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class IslandSolver {
+
+    /** Which islands receive the tours of an island. */
+    public enum Topology {
+        /** Every island sends its best tour to the next island, the last one to the first. */
+        RING,
+        /** Every island sends its best tour to every other island. */
+        FULLY_CONNECTED
+    }
+
+    /** The configuration of each island. */
+    public final List<SolverConfig> islands;
+
+    /** Which islands receive the tours of an island. */
+    public final Topology topology;
+
+    /** Number of iterations between two exchanges of the best tours. */
+    public final int migrationInterval;
+
+    /**
+     * Creates an island solver.
+     *
+     * @param islands The configuration of each island, each needs the ANT_COLONY method.
+     * @param topology Which islands receive the tours of an island.
+     * @param migrationInterval The number of iterations between two exchanges.
+     */
+    public IslandSolver(List<SolverConfig> islands, Topology topology, int migrationInterval) {
+        if (islands.isEmpty())
+            throw new IllegalArgumentException("At least one island is needed");
+        if (migrationInterval < 1)
+            throw new IllegalArgumentException("Migration interval must be positive: " + migrationInterval);
+        for (SolverConfig config : islands) {
+            if (config.method != SolverConfig.Method.ANT_COLONY)
+                throw new IllegalArgumentException("Islands must use the ant colony, got " + config.method);
+        }
+        this.islands = List.copyOf(islands);
+        this.topology = topology;
+        this.migrationInterval = migrationInterval;
+    }
+
+    /**
+     * Derives the configurations of a number of islands from one configuration. The islands get consecutive seeds and
+     * spread alpha, beta and the degradation factor around the given values, from exploiting the pheromone on the first
+     * island to following the distances on the last. Each island constructs its tours on a single thread.
+     *
+     * @param base The configuration to derive the islands from.
+     * @param islands The number of islands.
+     * @return The configuration of each island.
+     */
+    public static List<SolverConfig> diversify(SolverConfig base, int islands) {
+        List<SolverConfig> configs = new ArrayList<>(islands);
+        for (int i = 0; i < islands; i++) {
+            double spread = islands > 1 ? (double) i / (islands - 1) : 0.5; // 0 on the first island, 1 on the last
+            configs.add(base.toBuilder()
+                    .seed(base.seed + i)
+                    .alpha(base.alpha * (1.2 - 0.4 * spread))
+                    .beta(base.beta * (0.75 + 0.5 * spread))
+                    .degradationFactor(Math.max(0.05, 1 - (1 - base.degradationFactor) * (0.5 + spread)))
+                    .parallelConstruction(false)
+                    .threads(1)
+                    .build());
+        }
+        return configs;
+    }
+
+    /**
+     * Returns the islands whose tours an island receives.
+     *
+     * @param island The index of the receiving island.
+     * @return The indices of the sending islands.
+     */
+    public int[] sources(int island) {
+        int count = islands.size();
+        if (count == 1)
+            return new int[0];
+        if (topology == Topology.RING)
+            return new int[] {(island + count - 1) % count};
+        int[] sources = new int[count - 1];
+        for (int i = 0, k = 0; i < count; i++) {
+            if (i != island)
+                sources[k++] = i;
+        }
+        return sources;
+    }
+
+    /**
+     * Solves an instance with every island on its own thread of this JVM.
+     *
+     * @param instance The instance to solve.
+     * @return The best route of all islands.
+     */
+    public SolverResult solve(Instance instance) {
+        return solve(instance, null);
+    }
+
+    /**
+     * Solves an instance with every island on its own thread of this JVM, publishing every tour shorter than the tours
+     * of all islands so far.
+     *
+     * @param instance The instance to solve.
+     * @param listener Receives every new best tour on the thread of the island that found it, or null.
+     * @return The best route of all islands, with the iterations of all islands and the time of the whole solve.
+     */
+    public SolverResult solve(Instance instance, ImprovementListener listener) {
+        long start = System.nanoTime();
+        MigrationExchange exchange = new InMemoryExchange(islands.size());
+        ImprovementListener islandListener = null;
+        if (listener != null) {
+            double[] bestLength = {Double.MAX_VALUE};
+            islandListener = best -> {
+                synchronized (bestLength) { // the islands improve on their own, only global improvements are published
+                    if (best.length < bestLength[0]) {
+                        bestLength[0] = best.length;
+                        listener.improved(best);
+                    }
+                }
+            };
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(islands.size());
+        try {
+            List<CompletableFuture<SolverResult>> futures = new ArrayList<>(islands.size());
+            for (int i = 0; i < islands.size(); i++) {
+                int island = i;
+                ImprovementListener published = islandListener;
+                futures.add(CompletableFuture.supplyAsync(() -> solveIsland(instance, island, exchange, published), executor));
+            }
+            SolverResult best = null;
+            int iterations = 0;
+            for (CompletableFuture<SolverResult> future : futures) {
+                SolverResult result = future.join();
+                iterations += result.iterations;
+                if (best == null || result.length < best.length)
+                    best = result;
+            }
+            return new SolverResult(instance, SolverConfig.Method.ANT_COLONY, best.route(), best.length, iterations,
+                    System.nanoTime() - start, best.termination, best.telemetry);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Runs one island on the calling thread until its configuration ends the solve or another island stops the run.
+     * Every migrationInterval iterations, the island publishes its best tour if it improved since it last published,
+     * then reinforces every new tour of its sources. An island that reaches the target length stops the other islands.
+     *
+     * @param instance The instance to solve.
+     * @param island The index of the island.
+     * @param exchange The exchange shared by all islands.
+     * @param listener Receives every new best tour of this island, or null.
+     * @return The best route of this island, which may have been found by another island.
+     */
+    public SolverResult solveIsland(Instance instance, int island, MigrationExchange exchange, ImprovementListener listener) {
+        if (exchange.islands() != islands.size())
+            throw new IllegalArgumentException("Exchange has " + exchange.islands() + " islands, expected " + islands.size());
+        int[] sources = sources(island);
+        long[] seen = new long[islands.size()]; // version of the last tour received from each island
+        double[] published = {Double.MAX_VALUE};
+        AntColony colony = new AntColony(instance, islands.get(island));
+        SolverResult result = colony.solve(listener, (c, iteration) -> {
+            if (exchange.stopped())
+                return false;
+            if ((iteration + 1) % migrationInterval != 0)
+                return true;
+            SolverResult best = c.bestSoFar();
+            if (best != null && best.length < published[0]) {
+                exchange.publish(island, best.route(), best.length);
+                published[0] = best.length;
+            }
+            for (int source : sources) {
+                MigrationExchange.Migrant migrant = exchange.read(source, seen[source]);
+                if (migrant != null) {
+                    seen[source] = migrant.version;
+                    try {
+                        c.immigrate(migrant.route);
+                    } catch (IllegalArgumentException e) { // a damaged tour from another process is skipped
+                        System.err.println("Island " + island + " skipped a tour of island " + source + ": " + e.getMessage());
+                    }
+                }
+            }
+            return true;
+        });
+        if (result.length < published[0])
+            exchange.publish(island, result.route(), result.length); // the final tour, for islands still running
+        if (result.termination == SolverResult.Termination.TARGET_LENGTH)
+            exchange.stop();
+        return result;
+    }
+
+    /**
+     * Runs one island as a process of its own. Start one process per island, all with the same city file, exchange file,
+     * number of islands and run id, a new id for every run so the file left by the last run is reset:
+     *
+     *     java -cp out IslandSolver input05.txt islands.bin 0 4 1700000000
+     *
+     * @param args The city file, the exchange file, the index of the island, the number of islands and the run id.
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.out.println("Usage: java IslandSolver <city file> <exchange file> <island> <islands> <run id>");
+            return;
+        }
+        int island = Integer.parseInt(args[2]);
+        int count = Integer.parseInt(args[3]);
+        long runId = Long.parseLong(args[4]);
+        SolverConfig base = SolverConfig.builder()
+                .algorithm(SolverConfig.Algorithm.MAX_MIN_ANT_SYSTEM)
+                .ants(25)
+                .iterations(1000)
+                .degradationFactor(0.98)
+                .candidates(20)
+                .build();
+        IslandSolver solver = new IslandSolver(diversify(base, count), Topology.RING, 25);
+        try {
+            Instance instance = Instance.read(args[0]);
+            MigrationExchange exchange = new MappedFileExchange(Path.of(args[1]), count, instance, runId);
+            SolverResult result = solver.solveIsland(instance, island, exchange, null);
+            System.out.println("Island " + island + ": " + result.length + " after " + result.iterations + " iterations ("
+                    + result.termination + ")");
+            MigrationExchange.Migrant best = null;
+            for (int i = 0; i < count; i++) {
+                MigrationExchange.Migrant migrant = exchange.read(i, 0);
+                if (migrant != null && (best == null || migrant.length < best.length))
+                    best = migrant;
+            }
+            if (best != null)
+                System.out.println("Best of the islands so far: " + best.length);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
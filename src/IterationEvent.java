@@ -0,0 +1,60 @@
+/**
+ * The IterationEvent class is the Java Flight Recorder event committed for every colony iteration with telemetry on.
+ * It is disabled unless a recording enables "tsp.Iteration", and costs almost nothing while disabled.
+ */
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+@Name("tsp.Iteration")
+@Label("Colony Iteration")
+@Category("TSP")
+@Description("Phase timings, tour lengths and convergence of one ant colony iteration")
+public class IterationEvent extends Event {
+
+    @Label("Instance")
+    public String instance;
+
+    @Label("Iteration")
+    public int iteration;
+
+    @Label("Construction")
+    @Timespan
+    public long construction;
+
+    @Label("Deposit")
+    @Timespan
+    public long deposit;
+
+    @Label("Evaporation")
+    @Timespan
+    public long evaporation;
+
+    @Label("Edge Value Refresh")
+    @Timespan
+    public long edgeValues;
+
+    @Label("Best Length")
+    public double bestLength;
+
+    @Label("Iteration Best Length")
+    public double iterationBestLength;
+
+    @Label("Mean Length")
+    public double meanLength;
+
+    @Label("Pheromone Entropy")
+    public double entropy;
+
+    @Label("Branching Factor")
+    public double branchingFactor;
+
+    @Label("Allocated Bytes")
+    @Description("Bytes allocated by the solving thread and the construction workers")
+    @DataAmount
+    public long allocatedBytes;
+}
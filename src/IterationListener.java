@@ -0,0 +1,17 @@
+/**
+ * The IterationListener interface is called by a colony at the end of every iteration, after the pheromone update,
+ * so a caller can change the search between iterations, e.g. reinforce tours found by other colonies, or stop it.
+ * It is called on the thread running the solve, which makes it safe to change the matrices of the colony.
+ */
+@FunctionalInterface
+public interface IterationListener {
+
+    /**
+     * Called when an iteration of a colony has ended.
+     *
+     * @param colony The colony running the solve.
+     * @param iteration The index of the iteration that ended.
+     * @return True to continue the solve, false to stop it.
+     */
+    boolean iterationEnded(AntColony colony, int iteration);
+}
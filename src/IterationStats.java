@@ -0,0 +1,48 @@
+/**
+ * The IterationStats class holds the measurements of one colony iteration: the time of each phase, the tour lengths,
+ * the memory allocated and, on sampled iterations, the convergence of the pheromone matrix.
+ */
+public class IterationStats {
+
+    /** Index of the iteration. */
+    public final int iteration;
+
+    /** Time the ants took to construct and evaluate their tours, including local search, in nanoseconds. */
+    public long constructionNanos;
+
+    /** Time the pheromone update after each tour took (the Ant System deposit or the ACS local update) in nanoseconds. */
+    public long depositNanos;
+
+    /** Time the pheromone update at the end of the iteration took, without full edge value refreshes, in nanoseconds. */
+    public long evaporationNanos;
+
+    /** Time full refreshes of the edge value matrix took in nanoseconds, 0 in most iterations. */
+    public long edgeValueNanos;
+
+    /** Length of the best tour found so far. */
+    public double bestLength;
+
+    /** Length of the best tour of this iteration. */
+    public double iterationBestLength;
+
+    /** Mean length of the tours of this iteration. */
+    public double meanLength;
+
+    /** Mean entropy of the pheromone distribution of the cities, scaled to [0, 1], NaN if not sampled. */
+    public double entropy = Double.NaN;
+
+    /** Mean lambda-branching factor of the cities, NaN if not sampled. */
+    public double branchingFactor = Double.NaN;
+
+    /** Bytes allocated by the solving thread and the construction workers during the iteration, -1 if the JVM cannot measure it. */
+    public long allocatedBytes = -1;
+
+    /**
+     * Creates the empty measurements of an iteration.
+     *
+     * @param iteration The index of the iteration.
+     */
+    public IterationStats(int iteration) {
+        this.iteration = iteration;
+    }
+}
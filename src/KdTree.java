@@ -0,0 +1,333 @@
+/**
+ * The KdTree class is a two-dimensional k-d tree over the cities, built once in O(n log n).
+ * The tree is stored implicitly: every range of the order array is a node whose median entry splits the range,
+ * alternating between the x and y axis with the depth.
+ * It answers k-nearest-neighbour queries, and a Search keeps track of removed cities to find the nearest remaining city.
+ */
+import java.util.Arrays;
+
+public class KdTree {
+
+    /** X coordinate of each city. */
+    private final double[] x;
+
+    /** Y coordinate of each city. */
+    private final double[] y;
+
+    /** Cities in tree order, the median of every node range is the node itself. */
+    private final int[] order;
+
+    /** Position of each city in the order array. */
+    private final int[] slot;
+
+    /**
+     * Builds the tree over the given coordinates.
+     *
+     * @param x The x coordinate of each city.
+     * @param y The y coordinate of each city.
+     */
+    public KdTree(double[] x, double[] y) {
+        this.x = x;
+        this.y = y;
+        int n = x.length;
+        order = new int[n];
+        slot = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = i;
+        }
+        build(0, n, 0);
+        for (int i = 0; i < n; i++) {
+            slot[order[i]] = i;
+        }
+    }
+
+    /**
+     * Returns the number of cities in the tree.
+     *
+     * @return The number of cities.
+     */
+    public int size() {
+        return order.length;
+    }
+
+    /**
+     * Returns the coordinate of a city along an axis.
+     *
+     * @param city The index of the city.
+     * @param axis 0 for x, 1 for y.
+     * @return The coordinate.
+     */
+    private double coordinate(int city, int axis) {
+        return axis == 0 ? x[city] : y[city];
+    }
+
+    /**
+     * Arranges a range of the order array so that its median splits it along the axis of the depth, then builds both halves.
+     *
+     * @param low The first position of the range.
+     * @param high The position after the range.
+     * @param depth The depth of the node.
+     */
+    private void build(int low, int high, int depth) {
+        if (high - low <= 1)
+            return;
+        int middle = (low + high) >>> 1;
+        select(low, high - 1, middle, depth & 1);
+        build(low, middle, depth + 1);
+        build(middle + 1, high, depth + 1);
+    }
+
+    /**
+     * Quickselect: moves the k-th smallest city of a range along an axis to position k.
+     *
+     * @param left The first position of the range.
+     * @param right The last position of the range.
+     * @param k The wanted position.
+     * @param axis 0 for x, 1 for y.
+     */
+    private void select(int left, int right, int k, int axis) {
+        while (left < right) {
+            double pivot = coordinate(order[(left + right) >>> 1], axis);
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinate(order[i], axis) < pivot) i++;
+                while (coordinate(order[j], axis) > pivot) j--;
+                if (i <= j) {
+                    int temp = order[i];
+                    order[i] = order[j];
+                    order[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j)
+                right = j;
+            else if (k >= i)
+                left = i;
+            else
+                return;
+        }
+    }
+
+    /**
+     * Finds the k nearest cities of a city, excluding the city itself, ordered by increasing distance.
+     *
+     * @param city The index of the city.
+     * @param k The number of neighbours, at most the number of other cities.
+     * @param neighbours The array the neighbours are written to.
+     * @param offset The position in the array of the first neighbour.
+     */
+    public void nearest(int city, int k, int[] neighbours, int offset) {
+        int[] heapCities = new int[k]; // max-heap on distance, the root is the farthest neighbour found so far
+        double[] heapDistances = new double[k];
+        int[] count = new int[1];
+        nearest(0, order.length, 0, city, k, heapCities, heapDistances, count);
+        while (count[0] > 0) { // popping the heap yields the neighbours from far to near
+            neighbours[offset + count[0] - 1] = heapCities[0];
+            pop(heapCities, heapDistances, count);
+        }
+    }
+
+    /**
+     * Recursive step of the k-nearest-neighbour search.
+     */
+    private void nearest(int low, int high, int depth, int city, int k, int[] heapCities, double[] heapDistances, int[] count) {
+        if (low >= high)
+            return;
+        int middle = (low + high) >>> 1;
+        int node = order[middle];
+        if (node != city) {
+            double distance = squaredDistance(node, city);
+            if (count[0] < k)
+                push(heapCities, heapDistances, count, node, distance);
+            else if (distance < heapDistances[0]) {
+                pop(heapCities, heapDistances, count);
+                push(heapCities, heapDistances, count, node, distance);
+            }
+        }
+        int axis = depth & 1;
+        double difference = coordinate(city, axis) - coordinate(node, axis);
+        if (difference < 0) {
+            nearest(low, middle, depth + 1, city, k, heapCities, heapDistances, count);
+            if (count[0] < k || difference * difference < heapDistances[0])
+                nearest(middle + 1, high, depth + 1, city, k, heapCities, heapDistances, count);
+        } else {
+            nearest(middle + 1, high, depth + 1, city, k, heapCities, heapDistances, count);
+            if (count[0] < k || difference * difference < heapDistances[0])
+                nearest(low, middle, depth + 1, city, k, heapCities, heapDistances, count);
+        }
+    }
+
+    /**
+     * Adds an entry to the max-heap.
+     */
+    private static void push(int[] heapCities, double[] heapDistances, int[] count, int city, double distance) {
+        int i = count[0]++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heapDistances[parent] >= distance)
+                break;
+            heapCities[i] = heapCities[parent];
+            heapDistances[i] = heapDistances[parent];
+            i = parent;
+        }
+        heapCities[i] = city;
+        heapDistances[i] = distance;
+    }
+
+    /**
+     * Removes the root of the max-heap.
+     */
+    private static void pop(int[] heapCities, double[] heapDistances, int[] count) {
+        int size = --count[0];
+        int lastCity = heapCities[size];
+        double lastDistance = heapDistances[size];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && heapDistances[child + 1] > heapDistances[child])
+                child++;
+            if (heapDistances[child] <= lastDistance)
+                break;
+            heapCities[i] = heapCities[child];
+            heapDistances[i] = heapDistances[child];
+            i = child;
+        }
+        heapCities[i] = lastCity;
+        heapDistances[i] = lastDistance;
+    }
+
+    /**
+     * Returns the squared distance between two cities.
+     */
+    private double squaredDistance(int a, int b) {
+        double dx = x[a] - x[b];
+        double dy = y[a] - y[b];
+        return dx * dx + dy * dy;
+    }
+
+    /**
+     * Creates a search that finds the nearest city among the cities not removed from it.
+     *
+     * @return A new search with every city present.
+     */
+    public Search search() {
+        return new Search();
+    }
+
+    /**
+     * The Search class finds the nearest remaining city while cities are removed one by one.
+     * Every node keeps the number of remaining cities in its range, so ranges without remaining cities are skipped.
+     */
+    public class Search {
+
+        /** Number of remaining cities in the range of each node, stored at the position of the node. */
+        private final int[] remaining = new int[order.length];
+
+        /** True for every removed city. */
+        private final boolean[] removed = new boolean[order.length];
+
+        /** Nearest city found by the running query. */
+        private int bestCity;
+
+        /** Squared distance of the nearest city found by the running query. */
+        private double bestDistance;
+
+        /**
+         * Creates a search with every city present.
+         */
+        private Search() {
+            reset();
+        }
+
+        /**
+         * Puts every removed city back.
+         */
+        public void reset() {
+            Arrays.fill(removed, false);
+            count(0, order.length);
+        }
+
+        /**
+         * Fills the remaining counts of a range of nodes.
+         */
+        private void count(int low, int high) {
+            if (low >= high)
+                return;
+            int middle = (low + high) >>> 1;
+            remaining[middle] = high - low;
+            count(low, middle);
+            count(middle + 1, high);
+        }
+
+        /**
+         * Removes a city from the search.
+         *
+         * @param city The index of the city.
+         */
+        public void remove(int city) {
+            if (removed[city])
+                return;
+            removed[city] = true;
+            int target = slot[city];
+            int low = 0;
+            int high = order.length;
+            while (true) { // every node on the path to the city loses one remaining city
+                int middle = (low + high) >>> 1;
+                remaining[middle]--;
+                if (middle == target)
+                    return;
+                if (target < middle)
+                    high = middle;
+                else
+                    low = middle + 1;
+            }
+        }
+
+        /**
+         * Finds the nearest remaining city of a city.
+         *
+         * @param city The index of the city.
+         * @return The index of the nearest remaining city other than the city itself, or -1 if there is none.
+         */
+        public int nearest(int city) {
+            bestCity = -1;
+            bestDistance = Double.MAX_VALUE;
+            nearest(0, order.length, 0, city);
+            return bestCity;
+        }
+
+        /**
+         * Recursive step of the nearest remaining city search.
+         */
+        private void nearest(int low, int high, int depth, int city) {
+            if (low >= high)
+                return;
+            int middle = (low + high) >>> 1;
+            if (remaining[middle] == 0)
+                return;
+            int node = order[middle];
+            if (node != city && !removed[node]) {
+                double distance = squaredDistance(node, city);
+                if (distance < bestDistance) {
+                    bestDistance = distance;
+                    bestCity = node;
+                }
+            }
+            int axis = depth & 1;
+            double difference = coordinate(city, axis) - coordinate(node, axis);
+            if (difference < 0) {
+                nearest(low, middle, depth + 1, city);
+                if (difference * difference < bestDistance)
+                    nearest(middle + 1, high, depth + 1, city);
+            } else {
+                nearest(middle + 1, high, depth + 1, city);
+                if (difference * difference < bestDistance)
+                    nearest(low, middle, depth + 1, city);
+            }
+        }
+    }
+}
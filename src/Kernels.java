@@ -0,0 +1,143 @@
+/**
+ * The Kernels interface holds the loops over whole matrix stores and matrix rows that dominate a solve: the edge value
+ * refresh, evaporation with clamping, and the sums over the unvisited cities of a row during tour construction.
+ * ACTIVE uses the vector kernels of jdk.incubator.vector when the JVM was started with
+ * --add-modules jdk.incubator.vector, and the scalar kernels otherwise or if the system property tsp.scalar is set.
+ * The scalar kernels give the same results as the plain loops; the vector kernels may differ in the last bits.
+ */
+public interface Kernels {
+
+    /** The kernels the matrices and ants use. */
+    Kernels ACTIVE = load();
+
+    /** Number of columns summed together by maskedBlockSums, a multiple of the lanes of every vector size. */
+    int MASKED_BLOCK = 32;
+
+    /**
+     * Chooses the vector kernels if their module is present and not switched off, the scalar kernels otherwise.
+     * The vector kernels are looked up by name, so the other classes compile and run without the incubator module.
+     *
+     * @return The kernels to use.
+     */
+    private static Kernels load() {
+        if (Boolean.getBoolean("tsp.scalar") || ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty())
+            return new ScalarKernels();
+        try {
+            return (Kernels) Class.forName("VectorKernels").getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) { // compiled without the module
+            return new ScalarKernels();
+        }
+    }
+
+    /**
+     * Returns the name of the kernels, as shown by the benchmark.
+     *
+     * @return The name.
+     */
+    String name();
+
+    /**
+     * Returns whether the kernels work on several entries per instruction, so that scanning a whole row is cheaper than
+     * gathering the entries of a list of cities.
+     *
+     * @return True for the vector kernels.
+     */
+    boolean vectorized();
+
+    /**
+     * Sets result[k] = base[k]^exponent * factor[k] for the first length entries, as in the edge value tau^alpha * eta^beta
+     * with eta^beta precomputed in factor.
+     *
+     * @param base The bases, e.g. the pheromone levels.
+     * @param exponent The exponent, e.g. alpha.
+     * @param factor The factors, e.g. the heuristic values.
+     * @param result The array to write to, which may be base or factor.
+     * @param length The number of entries.
+     */
+    void powerProduct(double[] base, double exponent, double[] factor, double[] result, int length);
+
+    /**
+     * Sets result[k] = base[k]^exponent * factor[k] for the first length entries, in single precision.
+     *
+     * @param base The bases, e.g. the pheromone levels.
+     * @param exponent The exponent, e.g. alpha.
+     * @param factor The factors, e.g. the heuristic values.
+     * @param result The array to write to, which may be base or factor.
+     * @param length The number of entries.
+     */
+    void powerProduct(float[] base, double exponent, float[] factor, float[] result, int length);
+
+    /**
+     * Multiplies the first length entries by a factor and keeps them between the bounds, as in MAX-MIN evaporation.
+     *
+     * @param values The entries, changed in place.
+     * @param factor The factor, e.g. 1 - evaporation.
+     * @param min The lower bound.
+     * @param max The upper bound.
+     * @param length The number of entries.
+     */
+    void scaleClamp(double[] values, double factor, double min, double max, int length);
+
+    /**
+     * Multiplies the first length entries by a factor and keeps them between the bounds, in single precision.
+     *
+     * @param values The entries, changed in place.
+     * @param factor The factor, e.g. 1 - evaporation.
+     * @param min The lower bound.
+     * @param max The upper bound.
+     * @param length The number of entries.
+     */
+    void scaleClamp(float[] values, double factor, double min, double max, int length);
+
+    /**
+     * Sums the entries of a row whose column is not excluded, block by block.
+     *
+     * @param values The store the row is in.
+     * @param offset The position of the row in the store.
+     * @param excluded True for every column to leave out, e.g. the visited cities.
+     * @param length The number of columns.
+     * @param blockSums Receives the sum of every block of MASKED_BLOCK columns, the last block may be shorter.
+     * @return The sum of the entries of the remaining columns.
+     */
+    double maskedBlockSums(double[] values, int offset, boolean[] excluded, int length, double[] blockSums);
+
+    /**
+     * Finds the first column whose running sum over the columns that are not excluded exceeds a threshold, the roulette
+     * step on a row summed by maskedBlockSums. Whole blocks are skipped by their sums, so only one block is read.
+     *
+     * @param values The store the row is in.
+     * @param offset The position of the row in the store.
+     * @param excluded True for every column to leave out, e.g. the visited cities.
+     * @param length The number of columns.
+     * @param blockSums The block sums of the row.
+     * @param threshold A number between 0 and the masked sum of the row.
+     * @return The column, or -1 if rounding kept the running sum at or below the threshold.
+     */
+    static int maskedSearch(double[] values, int offset, boolean[] excluded, int length, double[] blockSums, double threshold) {
+        double total = 0;
+        int k = 0;
+        for (int block = 0; k < length; block++, k += MASKED_BLOCK) {
+            if (total + blockSums[block] > threshold)
+                break;
+            total += blockSums[block];
+        }
+        for (; k < length; k++) { // search the block that crosses the threshold, or the rest of the row after a rounding error
+            if (!excluded[k]) {
+                total += values[offset + k];
+                if (total > threshold)
+                    return k;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the number of blocks maskedBlockSums writes for a row.
+     *
+     * @param length The number of columns.
+     * @return The number of blocks.
+     */
+    static int blocks(int length) {
+        return (length + MASKED_BLOCK - 1) / MASKED_BLOCK;
+    }
+}
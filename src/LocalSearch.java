@@ -0,0 +1,296 @@
+/**
+ * The LocalSearch class improves ant tours with 2-opt and Or-opt moves before their pheromone is deposited.
+ * Moves are only tried towards the nearest neighbours of a city, and a city whose neighbourhood gave no improvement gets its
+ * don't-look bit set until one of its tour neighbours changes.
+ * The tour is kept as an array of cities with the position of every city; a move is applied as one or more segment reversals.
+ * An instance holds the buffers of one search, so each thread needs its own instance.
+ */
+public class LocalSearch {
+
+    /** Which tours are improved. */
+    public enum Mode {
+        /** No local search. */
+        NONE,
+        /** Every ant tour is improved before it is deposited. */
+        ALL_ANTS,
+        /**
+         * Only the best tour of each iteration is improved before it is deposited. All tours of an iteration are built
+         * before any is deposited, on one thread unless parallelConstruction is set, so with the Ant Colony System the
+         * local updates of an iteration only take effect after all of its tours are built.
+         */
+        ITERATION_BEST
+    }
+
+    /** Number of neighbours considered when no candidate lists are configured for the colony. */
+    public static final int DEFAULT_NEIGHBOURS = 10;
+
+    /** Longest segment moved by Or-opt. */
+    public static final int MAX_SEGMENT_LENGTH = 3;
+
+    /** Smallest gain a move needs, so rounding errors cannot make the search cycle. */
+    private static final double EPSILON = 1e-10;
+
+    /** Distances between cities. */
+    private final DistanceProvider distances;
+
+    /** Neighbour lists of the cities. */
+    private final CandidateLists neighbours;
+
+    /** Cities in tour order. */
+    private final int[] tour;
+
+    /** Position of each city in the tour. */
+    private final int[] position;
+
+    /** Cities waiting to be processed, used as a circular queue. */
+    private final int[] queue;
+
+    /** True for every city in the queue; a city outside of the queue has its don't-look bit set. */
+    private final boolean[] queued;
+
+    /** Index of the first city in the queue. */
+    private int queueHead;
+
+    /** Number of cities in the queue. */
+    private int queueSize;
+
+    /**
+     * Creates the buffers of a search.
+     *
+     * @param distances The distances between cities.
+     * @param neighbours The neighbour lists moves are tried with.
+     */
+    public LocalSearch(DistanceProvider distances, CandidateLists neighbours) {
+        this.distances = distances;
+        this.neighbours = neighbours;
+        int n = distances.size();
+        tour = new int[n];
+        position = new int[n];
+        queue = new int[n];
+        queued = new boolean[n];
+    }
+
+    /**
+     * Improves a cycle until no 2-opt or Or-opt move shortens it.
+     *
+     * @param predecessors An array representing predecessors of each city in the cycle, overwritten with the improved cycle.
+     * @return The total distance of the improved cycle.
+     */
+    public double improve(int[] predecessors) {
+        int n = tour.length;
+        if (n < 5) // every tour of four or fewer cities is already 2-optimal
+            return length(predecessors);
+        int city = 0;
+        for (int k = 0; k < n; k++) { // following the predecessors gives the cycle in reverse, which is the same cycle
+            tour[k] = city;
+            position[city] = k;
+            city = predecessors[city];
+        }
+        queueHead = 0;
+        queueSize = 0;
+        for (int k = 0; k < n; k++) {
+            push(tour[k]);
+        }
+        while (queueSize > 0) {
+            int a = queue[queueHead];
+            queueHead = (queueHead + 1) % n;
+            queueSize--;
+            queued[a] = false;
+            if (twoOpt(a) || orOpt(a))
+                push(a);
+        }
+        for (int k = 0; k < n; k++) {
+            predecessors[tour[(k + 1) % n]] = tour[k];
+        }
+        return length(predecessors);
+    }
+
+    /**
+     * Calculates the total distance of a cycle.
+     *
+     * @param predecessors An array representing predecessors of each city in the cycle.
+     * @return The total distance of the cycle.
+     */
+    private double length(int[] predecessors) {
+        double length = 0;
+        for (int k = 0; k < predecessors.length; k++) {
+            length += distances.distance(predecessors[k], k);
+        }
+        return length;
+    }
+
+    /**
+     * Adds a city to the queue, clearing its don't-look bit.
+     *
+     * @param city The index of the city.
+     */
+    private void push(int city) {
+        if (queued[city])
+            return;
+        queued[city] = true;
+        queue[(queueHead + queueSize) % tour.length] = city;
+        queueSize++;
+    }
+
+    /**
+     * Returns the city after a city in the tour.
+     */
+    private int next(int city) {
+        int k = position[city] + 1;
+        return tour[k == tour.length ? 0 : k];
+    }
+
+    /**
+     * Returns the city before a city in the tour.
+     */
+    private int previous(int city) {
+        int k = position[city] - 1;
+        return tour[k < 0 ? tour.length - 1 : k];
+    }
+
+    /**
+     * Tries the 2-opt moves that replace an edge of a city with an edge to one of its neighbours.
+     *
+     * @param a The index of the city.
+     * @return True if a move was applied.
+     */
+    private boolean twoOpt(int a) {
+        for (int direction = 0; direction < 2; direction++) {
+            int b = direction == 0 ? next(a) : previous(a);
+            double removed = distances.distance(a, b);
+            for (int s = a * neighbours.k, end = s + neighbours.k; s < end; s++) {
+                int c = neighbours.neighbours[s];
+                double g = removed - distances.distance(a, c);
+                if (g <= EPSILON) // neighbours are sorted by distance, no later neighbour can give a gain
+                    break;
+                int d = direction == 0 ? next(c) : previous(c);
+                if (c == b || d == a)
+                    continue;
+                if (g + distances.distance(c, d) - distances.distance(b, d) > EPSILON) {
+                    exchange(a, b, c, d);
+                    push(b);
+                    push(c);
+                    push(d);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tries the Or-opt moves that move the segment starting at a city to an edge next to one of the segment's neighbours.
+     *
+     * @param s1 The index of the first city of the segment.
+     * @return True if a move was applied.
+     */
+    private boolean orOpt(int s1) {
+        int n = tour.length;
+        int p = previous(s1);
+        int s2 = s1;
+        for (int length = 1; length <= MAX_SEGMENT_LENGTH && length < n - 3; length++) {
+            if (length > 1)
+                s2 = next(s2);
+            int nx = next(s2);
+            double g = distances.distance(p, s1) + distances.distance(s2, nx) - distances.distance(p, nx);
+            if (g <= EPSILON)
+                continue;
+            for (int end = 0; end < 2; end++) { // neighbours of both ends of the segment
+                int from = end == 0 ? s1 : s2;
+                for (int s = from * neighbours.k, last = s + neighbours.k; s < last; s++) {
+                    int c = neighbours.neighbours[s];
+                    if (g - distances.distance(from, c) <= EPSILON)
+                        break;
+                    if (inSegment(c, s1, length))
+                        continue;
+                    for (int side = 0; side < 2; side++) { // the edge after c or the edge before c
+                        int x = side == 0 ? c : previous(c);
+                        int y = side == 0 ? next(c) : c;
+                        if (inSegment(x, s1, length) || inSegment(y, s1, length) || y == p)
+                            continue;
+                        double xy = distances.distance(x, y);
+                        double forward = distances.distance(x, s1) + distances.distance(s2, y) - xy;
+                        double reversed = distances.distance(x, s2) + distances.distance(s1, y) - xy;
+                        if (g - Math.min(forward, reversed) > EPSILON) {
+                            moveSegment(p, s1, s2, nx, x, y, forward <= reversed);
+                            push(p);
+                            push(nx);
+                            push(s2);
+                            push(x);
+                            push(y);
+                            return true;
+                        }
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether a city belongs to the segment of the given length starting at s1.
+     */
+    private boolean inSegment(int city, int s1, int length) {
+        int offset = position[city] - position[s1];
+        if (offset < 0)
+            offset += tour.length;
+        return offset < length;
+    }
+
+    /**
+     * Moves the segment s1..s2 between x and y, where p and nx surround the segment and y follows x.
+     * The move is made of 2-opt exchanges, so it stays correct whichever side a reversal flips.
+     *
+     * @param forward If true the new edges are (x, s1) and (s2, y), otherwise (x, s2) and (s1, y).
+     */
+    private void moveSegment(int p, int s1, int s2, int nx, int x, int y, boolean forward) {
+        exchange(p, s1, x, y); // p x ... nx s2..s1 y
+        if (x != nx)
+            exchange(p, x, nx, s2); // p nx ... x s2..s1 y
+        if (forward)
+            exchange(x, s2, s1, y); // p nx ... x s1..s2 y
+    }
+
+    /**
+     * Replaces the edges (a, b) and (c, d) with (a, c) and (b, d), where b and d follow a and c in the same direction.
+     */
+    private void exchange(int a, int b, int c, int d) {
+        if (next(a) == b)
+            reverse(b, c);
+        else
+            reverse(a, d);
+    }
+
+    /**
+     * Reverses the path from one city forward to another city.
+     * If the path is longer than half of the tour, the rest of the tour is reversed instead, which gives the same cycle.
+     *
+     * @param from The first city of the path.
+     * @param to The last city of the path.
+     */
+    private void reverse(int from, int to) {
+        int n = tour.length;
+        int i = position[from];
+        int j = position[to];
+        int length = j - i;
+        if (length < 0)
+            length += n;
+        length++;
+        if (2 * length > n) {
+            int temp = i;
+            i = j + 1 == n ? 0 : j + 1;
+            j = temp == 0 ? n - 1 : temp - 1;
+            length = n - length;
+        }
+        for (int swaps = length / 2; swaps > 0; swaps--) {
+            int ci = tour[i];
+            int cj = tour[j];
+            tour[i] = cj;
+            position[cj] = i;
+            tour[j] = ci;
+            position[ci] = j;
+            i = i + 1 == n ? 0 : i + 1;
+            j = j == 0 ? n - 1 : j - 1;
+        }
+    }
+}
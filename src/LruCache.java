@@ -0,0 +1,108 @@
+/**
+ * The LruCache class keeps values up to a total size in bytes and drops the least recently used values when it is full.
+ * The size of a value is given when it is put, and putting a value again under its key updates its size.
+ * Every method is synchronized, so one cache can be shared by the threads of a server.
+ */
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+public class LruCache<K, V> {
+
+    /** A value with its size. */
+    private static final class Entry<V> {
+
+        /** The cached value. */
+        final V value;
+
+        /** Size of the value in bytes. */
+        final long bytes;
+
+        Entry(V value, long bytes) {
+            this.value = value;
+            this.bytes = bytes;
+        }
+    }
+
+    /** Largest total size of the values in bytes. */
+    public final long capacityBytes;
+
+    /** Cached values in access order, the eldest value is the least recently used. */
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /** Total size of the cached values in bytes. */
+    private long bytes;
+
+    /** Number of lookups that found a value. */
+    private long hits;
+
+    /** Number of lookups that found no value. */
+    private long misses;
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param capacityBytes The largest total size of the values in bytes.
+     */
+    public LruCache(long capacityBytes) {
+        if (capacityBytes < 0)
+            throw new IllegalArgumentException("Cache capacity must not be negative: " + capacityBytes);
+        this.capacityBytes = capacityBytes;
+    }
+
+    /**
+     * Looks up a value and marks it as the most recently used.
+     *
+     * @param key The key.
+     * @return The value, or null if it is not cached.
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value;
+    }
+
+    /**
+     * Caches a value as the most recently used, dropping the least recently used values until the cache fits its capacity.
+     * A value larger than the whole capacity is not cached.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @param valueBytes The size of the value in bytes.
+     */
+    public synchronized void put(K key, V value, long valueBytes) {
+        Entry<V> previous = entries.remove(key);
+        if (previous != null)
+            bytes -= previous.bytes;
+        if (valueBytes > capacityBytes)
+            return;
+        entries.put(key, new Entry<>(value, valueBytes));
+        bytes += valueBytes;
+        Iterator<Entry<V>> eldest = entries.values().iterator();
+        while (bytes > capacityBytes) {
+            bytes -= eldest.next().bytes;
+            eldest.remove();
+        }
+    }
+
+    /**
+     * Drops every value.
+     */
+    public synchronized void clear() {
+        entries.clear();
+        bytes = 0;
+    }
+
+    /**
+     * Describes the cache: its number of values, their size and the hits and misses so far.
+     *
+     * @return The description.
+     */
+    @Override
+    public synchronized String toString() {
+        return entries.size() + " entries, " + bytes + " of " + capacityBytes + " bytes, " + hits + " hits, " + misses + " misses";
+    }
+}
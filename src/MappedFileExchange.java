@@ -0,0 +1,168 @@
+/**
+ * The MappedFileExchange class is a MigrationExchange for islands running as separate processes on one machine.
+ * All processes map the same file, which holds a header and one slot per island. A slot is guarded by a sequence number
+ * that is odd while its island writes it, so a reader retries instead of taking a half-written tour, and gives up
+ * after a bounded number of retries, for instance when the writing process died in the middle of a tour.
+ * The header holds the fingerprint of the instance and the id of the run, which all processes of a run share. A file
+ * left by another run is reset when it is opened, so it never hands out the tours or the stop flag of that run, and a
+ * process of the same run with another instance or other dimensions is rejected.
+ */
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+public class MappedFileExchange implements MigrationExchange {
+
+    /** Magic number at the start of an exchange file. */
+    private static final int MAGIC = 0x54535058; // "TSPX"
+
+    /** Size of the header in bytes: magic, islands, cities, a reserved int, the stop flag, the fingerprint and the run id. */
+    private static final int HEADER_BYTES = 40;
+
+    /** Offset of the stop flag in the header, aligned for volatile access. */
+    private static final int STOP_OFFSET = 16;
+
+    /** Offset of the fingerprint of the instance in the header. */
+    private static final int FINGERPRINT_OFFSET = 24;
+
+    /** Offset of the id of the run in the header. */
+    private static final int RUN_OFFSET = 32;
+
+    /** Size of the slot header in bytes: the sequence number and the tour length. */
+    private static final int SLOT_HEADER_BYTES = 16;
+
+    /** Number of times a read retries a slot that is being written before it skips the migration. */
+    public static final int MAX_READ_RETRIES = 1 << 16;
+
+    /** Volatile access to the longs of the mapped file, which is shared with the other processes. */
+    private static final VarHandle LONGS = MethodHandles.byteBufferViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN);
+
+    /** The mapped file. */
+    private final MappedByteBuffer buffer;
+
+    /** Number of islands. */
+    private final int islands;
+
+    /** Number of cities of the tours. */
+    private final int numberOfCities;
+
+    /** Size of a slot in bytes, a multiple of 8 so every sequence number is aligned. */
+    private final int slotBytes;
+
+    /**
+     * Opens an exchange file, creating it if it does not exist or resetting it if it was written by another run.
+     * Every process of a run must pass the same instance, number of islands and run id.
+     *
+     * @param file The path of the exchange file.
+     * @param islands The number of islands.
+     * @param instance The instance the islands solve.
+     * @param runId The id of the run, e.g. its start time, which must differ from the id of the run that left the file.
+     * @throws IOException If the file cannot be mapped or the same run opened it for another instance or dimensions.
+     */
+    public MappedFileExchange(Path file, int islands, Instance instance, long runId) throws IOException {
+        int numberOfCities = instance.numberOfCities;
+        if (islands < 1 || numberOfCities < 1)
+            throw new IllegalArgumentException("Number of islands and cities must be positive: " + islands + ", " + numberOfCities);
+        this.islands = islands;
+        this.numberOfCities = numberOfCities;
+        slotBytes = (SLOT_HEADER_BYTES + 4 * numberOfCities + 7) & ~7;
+        long size = HEADER_BYTES + (long) slotBytes * islands;
+        if (size > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("Exchange of " + islands + " islands and " + numberOfCities + " cities is too large");
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            channel.lock(); // processes starting together take turns, closing the channel releases the lock
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size); // the mapping outlives the channel
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC || buffer.getLong(RUN_OFFSET) != runId) { // a new file or one of another run
+                for (int i = 0; i < size; i += Long.BYTES) {
+                    buffer.putLong(i, 0);
+                }
+                buffer.putInt(4, islands).putInt(8, numberOfCities);
+                buffer.putLong(FINGERPRINT_OFFSET, instance.fingerprint).putLong(RUN_OFFSET, runId);
+                VarHandle.releaseFence();
+                buffer.putInt(0, MAGIC);
+            } else if (buffer.getInt(4) != islands || buffer.getInt(8) != numberOfCities
+                    || buffer.getLong(FINGERPRINT_OFFSET) != instance.fingerprint) {
+                throw new IOException(file + " was opened by run " + runId + " for another instance or number of islands than "
+                        + islands + " islands and " + numberOfCities + " cities of " + instance.name);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset of the slot of an island.
+     *
+     * @param island The index of the island.
+     * @return The offset of its sequence number.
+     */
+    private int slot(int island) {
+        if (island < 0 || island >= islands)
+            throw new IllegalArgumentException("Island " + island + " of " + islands);
+        return HEADER_BYTES + island * slotBytes;
+    }
+
+    @Override
+    public int islands() {
+        return islands;
+    }
+
+    @Override
+    public void publish(int island, int[] route, double length) {
+        if (route.length != numberOfCities)
+            throw new IllegalArgumentException("Got a route of " + route.length + " cities for " + numberOfCities + " cities");
+        int slot = slot(island);
+        long sequence = (long) LONGS.get(buffer, slot); // only the island itself writes its slot
+        LONGS.setOpaque(buffer, slot, sequence + 1); // odd while writing
+        VarHandle.releaseFence(); // the odd sequence number becomes visible before the tour
+        buffer.putDouble(slot + 8, length);
+        buffer.slice(slot + SLOT_HEADER_BYTES, 4 * numberOfCities).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().put(route);
+        LONGS.setRelease(buffer, slot, sequence + 2);
+    }
+
+    /**
+     * Reads the latest tour of an island if it is newer than a given version. A slot that stays odd or keeps changing
+     * for MAX_READ_RETRIES attempts is skipped, so a process that died while writing cannot stall its readers.
+     *
+     * @param island The index of the island to read from.
+     * @param after The version the reader has already seen, 0 for none.
+     * @return The latest tour, or null if the island has not published a tour newer than after or its slot could not
+     *         be read consistently.
+     */
+    @Override
+    public Migrant read(int island, long after) {
+        int slot = slot(island);
+        for (int attempt = 0; attempt < MAX_READ_RETRIES; attempt++) {
+            long sequence = (long) LONGS.getAcquire(buffer, slot);
+            if ((sequence & 1) != 0) { // the island is writing
+                Thread.onSpinWait();
+                continue;
+            }
+            long version = sequence / 2;
+            if (version <= after)
+                return null;
+            double length = buffer.getDouble(slot + 8);
+            int[] route = new int[numberOfCities];
+            buffer.slice(slot + SLOT_HEADER_BYTES, 4 * numberOfCities).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(route);
+            VarHandle.acquireFence(); // the tour is read before the sequence number is checked again
+            if ((long) LONGS.getVolatile(buffer, slot) == sequence)
+                return new Migrant(route, length, version);
+        }
+        return null; // the migration is skipped, the next exchange tries again
+    }
+
+    @Override
+    public void stop() {
+        LONGS.setVolatile(buffer, STOP_OFFSET, 1L);
+    }
+
+    @Override
+    public boolean stopped() {
+        return (long) LONGS.getVolatile(buffer, STOP_OFFSET) != 0;
+    }
+}
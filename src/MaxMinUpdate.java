@@ -0,0 +1,123 @@
+/**
+ * The MaxMinUpdate class is the pheromone update of the MAX-MIN Ant System.
+ * Only one tour deposits per iteration: the iteration-best tour, and the best tour so far every globalBestInterval
+ * iterations. Pheromone is kept between tauMin and tauMax, where tauMax follows the best tour so far and tauMin is
+ * derived from the chance bestProbability of constructing that tour once the pheromone has converged.
+ * Pheromone starts at tauMax and is reset to it when the best tour has not improved for restartIterations iterations.
+ * The bounds need a pass over the pheromone matrix every iteration, which with candidate lists only stores the candidate edges.
+ */
+public class MaxMinUpdate implements PheromoneUpdate {
+
+    /** Share of the pheromone that evaporates in every iteration. */
+    private final double evaporation;
+
+    /** Pheromone update factor. */
+    private final double q;
+
+    /** Chance of constructing the best tour once the pheromone has converged, which sets tauMin. */
+    private final double bestProbability;
+
+    /** Every this many iterations the best tour so far deposits instead of the iteration-best tour, 0 for never. */
+    private final int globalBestInterval;
+
+    /** Number of iterations without a shorter tour after which the pheromone is reset, 0 for never. */
+    private final int restartIterations;
+
+    /** Upper pheromone bound. */
+    private double tauMax;
+
+    /** Lower pheromone bound. */
+    private double tauMin;
+
+    /** Length of the best tour the bounds were computed for. */
+    private double bestLength;
+
+    /** Last iteration that found a shorter tour or reset the pheromone. */
+    private int lastImprovement;
+
+    /**
+     * Creates the update with the parameters of a configuration.
+     *
+     * @param config The configuration of the colony.
+     */
+    public MaxMinUpdate(SolverConfig config) {
+        evaporation = 1 - config.degradationFactor;
+        q = config.q;
+        bestProbability = config.bestProbability;
+        globalBestInterval = config.globalBestInterval;
+        restartIterations = config.restartIterations;
+    }
+
+    @Override
+    public double initialPheromone(AntColony colony) {
+        lastImprovement = 0;
+        setBounds(colony, colony.nearestNeighbourLength());
+        return tauMax;
+    }
+
+    /**
+     * Computes the pheromone bounds for the best tour length.
+     *
+     * @param colony The colony.
+     * @param length The length of the best tour so far.
+     */
+    private void setBounds(AntColony colony, double length) {
+        bestLength = length;
+        tauMax = q / (Math.max(evaporation, 1e-9) * length);
+        int n = colony.numberOfCities;
+        double choices = colony.candidateLists != null ? colony.candidateLists.k : n / 2.0; // mean number of choices per step
+        double root = Math.pow(bestProbability, 1.0 / n);
+        tauMin = choices > 1 ? Math.min(tauMax, tauMax * (1 - root) / ((choices - 1) * root)) : tauMax;
+    }
+
+    @Override
+    public double[] state() {
+        return new double[] {tauMax, tauMin, bestLength, lastImprovement};
+    }
+
+    @Override
+    public void restore(double[] state) {
+        tauMax = state[0];
+        tauMin = state[1];
+        bestLength = state[2];
+        lastImprovement = (int) state[3];
+    }
+
+    @Override
+    public void afterTour(AntColony colony, int[] predecessors, double distance) {
+        // only the best tour of the iteration deposits
+    }
+
+    @Override
+    public void afterIteration(AntColony colony, int iteration, int[] iterationBest, double iterationBestLength,
+            int[] globalBest, double globalBestLength) {
+        if (globalBestLength < bestLength) {
+            setBounds(colony, globalBestLength);
+            lastImprovement = iteration;
+        }
+        if (restartIterations > 0 && iteration - lastImprovement >= restartIterations) { // stagnation, start over from tauMax
+            colony.resetPheromone(tauMax);
+            lastImprovement = iteration;
+            return;
+        }
+        boolean global = globalBestInterval > 0 && (iteration + 1) % globalBestInterval == 0;
+        int[] tour = global ? globalBest : iterationBest;
+        double length = global ? globalBestLength : iterationBestLength;
+        double factor = 1 - evaporation;
+        colony.scalePheromone(factor, tauMin, tauMax); // evaporate and clamp every stored edge in one pass over the store
+        CandidateLists candidates = colony.candidateLists;
+        double deposit = q / length;
+        for (int i = 0; i < tour.length; i++) {
+            if (candidates != null && !candidates.isCandidateEdge(i, tour[i]))
+                continue;
+            colony.setPheromone(i, tour[i], clamp(colony.pheromone(i, tour[i]) + deposit));
+        }
+    }
+
+    /**
+     * Keeps a pheromone level between the bounds.
+     */
+    private double clamp(double level) {
+        return Math.max(tauMin, Math.min(tauMax, level));
+    }
+}
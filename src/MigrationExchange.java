@@ -0,0 +1,72 @@
+/**
+ * The MigrationExchange interface is where the islands of an IslandSolver leave their best tours for the other islands.
+ * Every island has one slot, written only by that island and read by its neighbours, so writes never contend.
+ * Implementations connect threads of one JVM or separate processes on one machine.
+ */
+public interface MigrationExchange {
+
+    /**
+     * The Migrant class is a tour published by an island.
+     */
+    final class Migrant {
+
+        /** The tour as a permutation of the cities starting with city 0. */
+        public final int[] route;
+
+        /** The total length of the tour. */
+        public final double length;
+
+        /** Number of tours the island had published up to and including this one. */
+        public final long version;
+
+        /**
+         * Creates a migrant.
+         *
+         * @param route The tour as a permutation of the cities, not copied.
+         * @param length The total length of the tour.
+         * @param version The number of tours the island had published up to and including this one.
+         */
+        public Migrant(int[] route, double length, long version) {
+            this.route = route;
+            this.length = length;
+            this.version = version;
+        }
+    }
+
+    /**
+     * Returns the number of islands, and slots, of the exchange.
+     *
+     * @return The number of islands.
+     */
+    int islands();
+
+    /**
+     * Publishes the best tour of an island, replacing its previous tour.
+     *
+     * @param island The index of the publishing island.
+     * @param route The tour as a permutation of the cities starting with city 0.
+     * @param length The total length of the tour.
+     */
+    void publish(int island, int[] route, double length);
+
+    /**
+     * Reads the latest tour of an island if it is newer than a given version.
+     *
+     * @param island The index of the island to read from.
+     * @param after The version the reader has already seen, 0 for none.
+     * @return The latest tour, or null if the island has not published a tour newer than after.
+     */
+    Migrant read(int island, long after);
+
+    /**
+     * Asks every island to stop at the end of its current iteration.
+     */
+    void stop();
+
+    /**
+     * Tells whether an island has asked the others to stop.
+     *
+     * @return True if the islands should stop.
+     */
+    boolean stopped();
+}
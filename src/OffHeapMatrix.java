@@ -0,0 +1,93 @@
+/**
+ * The OffHeapMatrix class stores a symmetric matrix outside of the heap in direct byte buffers.
+ * The store is split into chunks because a single buffer is limited to 2 GB, so it can hold matrices of any size.
+ */
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+public class OffHeapMatrix extends SymmetricMatrix {
+
+    /** Number of bits of the position within a chunk. */
+    private static final int CHUNK_SHIFT = 27;
+
+    /** Mask of the position within a chunk. */
+    private static final long CHUNK_MASK = (1L << CHUNK_SHIFT) - 1;
+
+    /** The chunks of the store, each holding 2^CHUNK_SHIFT entries except the last one. */
+    private final ByteBuffer[] chunks;
+
+    /** True if entries are stored as floats. */
+    private final boolean singlePrecision;
+
+    /** Number of bytes per entry. */
+    private final int entryBytes;
+
+    /**
+     * Creates a matrix filled with zeros.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     * @param singlePrecision If true, entries are stored as floats.
+     */
+    public OffHeapMatrix(int n, Layout layout, boolean singlePrecision) {
+        super(n, layout);
+        this.singlePrecision = singlePrecision;
+        entryBytes = singlePrecision ? Float.BYTES : Double.BYTES;
+        long entries = entries(n, layout);
+        chunks = new ByteBuffer[(int) ((entries + CHUNK_MASK) >>> CHUNK_SHIFT)];
+        for (int c = 0; c < chunks.length; c++) {
+            long chunkEntries = Math.min(CHUNK_MASK + 1, entries - ((long) c << CHUNK_SHIFT));
+            chunks[c] = ByteBuffer.allocateDirect((int) (chunkEntries * entryBytes)).order(ByteOrder.nativeOrder());
+        }
+    }
+
+    @Override
+    protected double load(long index) {
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        int offset = (int) (index & CHUNK_MASK) * entryBytes;
+        return singlePrecision ? chunk.getFloat(offset) : chunk.getDouble(offset);
+    }
+
+    @Override
+    protected void store(long index, double value) {
+        ByteBuffer chunk = chunks[(int) (index >>> CHUNK_SHIFT)];
+        int offset = (int) (index & CHUNK_MASK) * entryBytes;
+        if (singlePrecision)
+            chunk.putFloat(offset, (float) value);
+        else
+            chunk.putDouble(offset, value);
+    }
+
+    @Override
+    public void fill(double value) {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += entryBytes) {
+                if (singlePrecision)
+                    chunk.putFloat(offset, (float) value);
+                else
+                    chunk.putDouble(offset, value);
+            }
+        }
+    }
+
+    @Override
+    public void scale(double factor) {
+        for (ByteBuffer chunk : chunks) {
+            for (int offset = 0; offset < chunk.capacity(); offset += entryBytes) {
+                if (singlePrecision)
+                    chunk.putFloat(offset, (float) (chunk.getFloat(offset) * factor));
+                else
+                    chunk.putDouble(offset, chunk.getDouble(offset) * factor);
+            }
+        }
+    }
+
+    @Override
+    public long bytes() {
+        long bytes = 0;
+        for (ByteBuffer chunk : chunks) {
+            bytes += chunk.capacity();
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * The PheromoneUpdate interface decides how a colony lays and evaporates pheromone.
+ * The colony calls afterTour for every ant tour in ant order and afterIteration once at the end of every iteration.
+ * An update keeps state across iterations, so every colony needs its own instance.
+ */
+public interface PheromoneUpdate {
+
+    /**
+     * Creates the pheromone update chosen by a configuration.
+     *
+     * @param config The configuration of the colony.
+     * @return A new pheromone update.
+     */
+    static PheromoneUpdate create(SolverConfig config) {
+        switch (config.algorithm) {
+            case MAX_MIN_ANT_SYSTEM:
+                return new MaxMinUpdate(config);
+            case ANT_COLONY_SYSTEM:
+                return new AntColonySystemUpdate(config);
+            default:
+                return new AntSystemUpdate();
+        }
+    }
+
+    /**
+     * Returns the pheromone level every edge starts with, resetting any state of an earlier solve.
+     *
+     * @param colony The colony, whose instance and candidate lists are set up.
+     * @return The initial pheromone level.
+     */
+    double initialPheromone(AntColony colony);
+
+    /**
+     * Returns the probability that an ant takes the edge with the highest value instead of the roulette.
+     *
+     * @return The probability, 0 for the random proportional rule only.
+     */
+    default double exploitation() {
+        return 0;
+    }
+
+    /**
+     * Returns the state the update keeps across iterations, so a checkpoint can store it.
+     *
+     * @return The state, empty if the update keeps none.
+     */
+    default double[] state() {
+        return new double[0];
+    }
+
+    /**
+     * Restores the state returned by state(), after initialPheromone, when a solve resumes from a checkpoint.
+     *
+     * @param state The stored state.
+     */
+    default void restore(double[] state) {
+        // no state
+    }
+
+    /**
+     * Called after an ant has constructed and evaluated its tour.
+     *
+     * @param colony The colony.
+     * @param predecessors An array representing predecessors of each city in the tour.
+     * @param distance The total distance of the tour.
+     */
+    void afterTour(AntColony colony, int[] predecessors, double distance);
+
+    /**
+     * Called at the end of an iteration, after every tour.
+     *
+     * @param colony The colony.
+     * @param iteration The index of the iteration.
+     * @param iterationBest The predecessors array of the best tour of the iteration.
+     * @param iterationBestLength The length of the best tour of the iteration.
+     * @param globalBest The predecessors array of the best tour so far.
+     * @param globalBestLength The length of the best tour so far.
+     */
+    void afterIteration(AntColony colony, int iteration, int[] iterationBest, double iterationBestLength,
+            int[] globalBest, double globalBestLength);
+}
@@ -0,0 +1,59 @@
+/**
+ * The ScalarKernels class implements the kernels with plain loops, one entry at a time.
+ * The powers use Math.pow, so the edge values are the same as when they are computed edge by edge.
+ */
+public class ScalarKernels implements Kernels {
+
+    @Override
+    public String name() {
+        return "scalar";
+    }
+
+    @Override
+    public boolean vectorized() {
+        return false;
+    }
+
+    @Override
+    public void powerProduct(double[] base, double exponent, double[] factor, double[] result, int length) {
+        for (int k = 0; k < length; k++) {
+            result[k] = Math.pow(base[k], exponent) * factor[k];
+        }
+    }
+
+    @Override
+    public void powerProduct(float[] base, double exponent, float[] factor, float[] result, int length) {
+        for (int k = 0; k < length; k++) {
+            result[k] = (float) (Math.pow(base[k], exponent) * factor[k]);
+        }
+    }
+
+    @Override
+    public void scaleClamp(double[] values, double factor, double min, double max, int length) {
+        for (int k = 0; k < length; k++) {
+            values[k] = Math.max(min, Math.min(max, values[k] * factor));
+        }
+    }
+
+    @Override
+    public void scaleClamp(float[] values, double factor, double min, double max, int length) {
+        for (int k = 0; k < length; k++) {
+            values[k] = (float) Math.max(min, Math.min(max, values[k] * factor));
+        }
+    }
+
+    @Override
+    public double maskedBlockSums(double[] values, int offset, boolean[] excluded, int length, double[] blockSums) {
+        double total = 0;
+        for (int k = 0, block = 0; k < length; k += MASKED_BLOCK, block++) {
+            double sum = 0;
+            for (int c = k, end = Math.min(length, k + MASKED_BLOCK); c < end; c++) {
+                if (!excluded[c])
+                    sum += values[offset + c];
+            }
+            blockSums[block] = sum;
+            total += sum;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,482 @@
+/**
+ * The SolveDaemon class is a long-running local solve service, so repeated requests pay neither the JVM startup nor the
+ * setup of the instance. It answers HTTP requests on the loopback interface:
+ * POST /solve?iterations=200 with the cities in the body, as "x,y" lines or a TSPLIB file, returns the tour
+ * length and the route; GET /stats describes the caches.
+ * Instances are cached by the fingerprint of their coordinates, together with their distances, k-d tree and candidate
+ * lists, so a request on known cities with another configuration only runs the colony. Final tours are cached by
+ * fingerprint and configuration, seed included but not the number of threads, which does not change the tour, so an
+ * identical request is answered from memory. Every cached tour keeps the coordinates it was solved for, so two city sets
+ * with the same fingerprint never share a tour. Both caches drop the least recently used entries when they exceed their
+ * share of the memory budget.
+ * A request cannot occupy a thread for long or take much memory: bodies, cities, ants and candidates are bounded, the
+ * exact methods only take small instances, a colony without candidate lists only takes mid-size ones, a solve uses at
+ * most one thread per processor, the colony stops after at most MAX_TIME_LIMIT_MILLIS, and tours cut short by the time
+ * limit are not cached, since a later request may do better.
+ */
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+public class SolveDaemon implements AutoCloseable {
+
+    /** Port the service listens on if none is given. */
+    public static final int DEFAULT_PORT = 8080;
+
+    /** Share of the heap the caches may take if no budget is given. */
+    public static final double DEFAULT_HEAP_FRACTION = 0.5;
+
+    /** Share of the memory budget kept for tours, the rest is for instances. */
+    public static final double RESULT_SHARE = 0.125;
+
+    /** Largest number of cities the brute force method is run on. */
+    public static final int MAX_BRUTE_FORCE_CITIES = 12;
+
+    /** Largest number of cities the Held-Karp method is run on. */
+    public static final int MAX_HELD_KARP_CITIES = 20;
+
+    /** Longest time a colony solve may take, also the time limit of requests that set none. */
+    public static final long MAX_TIME_LIMIT_MILLIS = 60_000;
+
+    /** Largest request body in bytes, enough for the coordinates of MAX_CITIES cities. */
+    public static final int MAX_BODY_BYTES = 16 << 20;
+
+    /** Largest number of cities of a request. */
+    public static final int MAX_CITIES = 100_000;
+
+    /** Largest number of cities a colony without candidate lists is run on, since its matrices hold n * n entries. */
+    public static final int MAX_DENSE_CITIES = 2_000;
+
+    /** Largest number of candidates of a colony. */
+    public static final int MAX_CANDIDATES = 64;
+
+    /** Largest number of ants of a colony. */
+    public static final int MAX_ANTS = 1_000;
+
+    /** Largest product of ants and cities, since every ant keeps buffers of about 25 bytes per city. */
+    public static final long MAX_ANT_CITIES = 10_000_000;
+
+    /** Largest number of threads of a solve, more threads do not change the tour. */
+    public static final int MAX_THREADS = Runtime.getRuntime().availableProcessors();
+
+    /** Estimated bytes of a cached tour besides its route and coordinates. */
+    private static final long RESULT_OVERHEAD_BYTES = 256;
+
+    /** A solve result and whether it came from the cache. */
+    public static final class Answer {
+
+        /** The best route found with its length. */
+        public final SolverResult result;
+
+        /** True if the tour was taken from the cache instead of being solved. */
+        public final boolean cached;
+
+        /**
+         * Creates an answer.
+         *
+         * @param result The best route found with its length.
+         * @param cached True if the tour was taken from the cache.
+         */
+        public Answer(SolverResult result, boolean cached) {
+            this.result = result;
+            this.cached = cached;
+        }
+    }
+
+    /** A final tour with the coordinates it was solved for. */
+    public static final class CachedTour {
+
+        /** The x coordinate of each city. */
+        final double[] x;
+
+        /** The y coordinate of each city. */
+        final double[] y;
+
+        /** The tour, without its instance so it does not hold the instance's memory. */
+        final SolverResult result;
+
+        /**
+         * Creates a cached tour.
+         *
+         * @param x The x coordinate of each city.
+         * @param y The y coordinate of each city.
+         * @param result The tour, without its instance.
+         */
+        CachedTour(double[] x, double[] y, SolverResult result) {
+            this.x = x;
+            this.y = y;
+            this.result = result;
+        }
+
+        /**
+         * Checks whether the tour was solved for the given cities.
+         *
+         * @param x The x coordinate of each city.
+         * @param y The y coordinate of each city.
+         * @return True if the coordinates are equal.
+         */
+        boolean solves(double[] x, double[] y) {
+            return Arrays.equals(this.x, x) && Arrays.equals(this.y, y);
+        }
+    }
+
+    /** Instances with their distances and derived structures, by the fingerprint of their coordinates. */
+    public final LruCache<Long, Instance> instances;
+
+    /** Final tours by fingerprint and configuration, kept without their instance so they do not hold its memory. */
+    public final LruCache<String, CachedTour> results;
+
+    /** Solves running now, so identical requests arriving together are solved once. */
+    private final ConcurrentHashMap<String, CompletableFuture<CachedTour>> running = new ConcurrentHashMap<>();
+
+    /** The HTTP server. */
+    private final HttpServer server;
+
+    /** The threads requests are handled and solved on. */
+    private final ExecutorService executor;
+
+    /**
+     * Creates the service and starts listening on the loopback interface.
+     *
+     * @param port The port, 0 for any free port.
+     * @param cacheBytes The memory budget of both caches in bytes.
+     * @param threads The number of requests handled at the same time.
+     * @throws IOException If the port cannot be opened.
+     */
+    public SolveDaemon(int port, long cacheBytes, int threads) throws IOException {
+        if (threads < 1)
+            throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+        long resultBytes = (long) (cacheBytes * RESULT_SHARE);
+        instances = new LruCache<>(cacheBytes - resultBytes);
+        results = new LruCache<>(resultBytes);
+        executor = Executors.newFixedThreadPool(threads);
+        server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        server.createContext("/solve", this::handleSolve);
+        server.createContext("/stats", this::handleStats);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Returns the port the service listens on.
+     *
+     * @return The port.
+     */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Returns the cached instance with the given cities, or creates and caches it.
+     *
+     * @param x The x coordinate of each city.
+     * @param y The y coordinate of each city.
+     * @return The instance.
+     */
+    public Instance instance(double[] x, double[] y) {
+        long fingerprint = Instance.fingerprint(x, y);
+        Instance instance = instances.get(fingerprint);
+        if (instance != null && instance.sameCities(x, y))
+            return instance;
+        instance = new Instance("request", x, y);
+        instances.put(fingerprint, instance, instance.bytes());
+        return instance;
+    }
+
+    /**
+     * Solves the given cities, answering from the cache if they were solved with the same configuration before.
+     *
+     * @param x The x coordinate of each city.
+     * @param y The y coordinate of each city.
+     * @param config The method and parameters, seed included.
+     * @return The result and whether it came from the cache.
+     * @throws IllegalArgumentException If there are too few or too many cities, or the configuration exceeds a limit.
+     */
+    public Answer solve(double[] x, double[] y, SolverConfig config) {
+        if (x.length < 2)
+            throw new IllegalArgumentException("At least 2 cities are needed, got " + x.length);
+        config = limit(config, x.length);
+        Instance instance = instance(x, y);
+        String key = Long.toHexString(instance.fingerprint) + " " + instance.numberOfCities + " "
+                + config.toBuilder().threads(1).build(); // the tours do not depend on the number of threads
+        CachedTour stored = results.get(key);
+        if (stored != null && stored.solves(x, y))
+            return new Answer(attach(stored.result, instance), true);
+        CompletableFuture<CachedTour> solve = new CompletableFuture<>();
+        CompletableFuture<CachedTour> other = running.putIfAbsent(key, solve);
+        if (other != null) { // the same request is being solved, wait for it
+            CachedTour tour = other.join();
+            if (tour.solves(x, y))
+                return new Answer(attach(tour.result, instance), true);
+            return new Answer(new Solver(config).solve(instance), false); // other cities with the same fingerprint
+        }
+        try {
+            SolverResult result = new Solver(config).solve(instance);
+            stored = new CachedTour(x, y, new SolverResult(null, result.method, result.route(), result.length,
+                    result.iterations, result.nanos, result.termination, null));
+            if (result.termination != SolverResult.Termination.TIME_LIMIT) // a longer run may find a shorter tour
+                results.put(key, stored, RESULT_OVERHEAD_BYTES + (long) instance.numberOfCities * (Integer.BYTES + 2 * Double.BYTES));
+            instances.put(instance.fingerprint, instance, instance.bytes()); // the solve may have built candidate lists
+            solve.complete(stored);
+            return new Answer(result, false);
+        } catch (RuntimeException | Error e) { // e.g. OutOfMemoryError, the waiting requests must not block forever
+            solve.completeExceptionally(e);
+            throw e;
+        } finally {
+            running.remove(key);
+        }
+    }
+
+    /**
+     * Applies the limits of the service to a request: at most MAX_CITIES cities, at most MAX_THREADS threads, the exact
+     * methods only take small instances, and a colony takes at most MAX_ANTS ants, MAX_CANDIDATES candidates and
+     * MAX_DENSE_CITIES cities without candidate lists, and gets MAX_TIME_LIMIT_MILLIS as its time limit if it has none
+     * or a longer one.
+     *
+     * @param config The configuration of the request.
+     * @param numberOfCities The number of cities.
+     * @return The configuration to solve with.
+     * @throws IllegalArgumentException If the request exceeds a limit that cannot be lowered without changing the tour.
+     */
+    private static SolverConfig limit(SolverConfig config, int numberOfCities) {
+        if (numberOfCities > MAX_CITIES)
+            throw new IllegalArgumentException("At most " + MAX_CITIES + " cities are solved, got " + numberOfCities);
+        SolverConfig.Builder builder = config.toBuilder().threads(Math.min(config.threads, MAX_THREADS));
+        switch (config.method) {
+            case BRUTE_FORCE:
+                if (numberOfCities > MAX_BRUTE_FORCE_CITIES)
+                    throw new IllegalArgumentException("BRUTE_FORCE takes at most " + MAX_BRUTE_FORCE_CITIES + " cities, got "
+                            + numberOfCities);
+                return builder.build();
+            case HELD_KARP:
+                if (numberOfCities > MAX_HELD_KARP_CITIES)
+                    throw new IllegalArgumentException("HELD_KARP takes at most " + MAX_HELD_KARP_CITIES + " cities, got "
+                            + numberOfCities);
+                return builder.build();
+            default:
+                if (config.ants > MAX_ANTS || (long) config.ants * numberOfCities > MAX_ANT_CITIES)
+                    throw new IllegalArgumentException("At most " + MAX_ANTS + " ants and " + MAX_ANT_CITIES
+                            + " ants times cities are solved, got " + config.ants + " ants");
+                if (config.candidates > MAX_CANDIDATES)
+                    throw new IllegalArgumentException("At most " + MAX_CANDIDATES + " candidates are used, got "
+                            + config.candidates);
+                if (config.candidates == 0 && numberOfCities > MAX_DENSE_CITIES)
+                    throw new IllegalArgumentException("Without candidates at most " + MAX_DENSE_CITIES
+                            + " cities are solved, got " + numberOfCities);
+                if (config.timeLimitMillis == 0 || config.timeLimitMillis > MAX_TIME_LIMIT_MILLIS)
+                    builder.timeLimitMillis(MAX_TIME_LIMIT_MILLIS);
+                return builder.build();
+        }
+    }
+
+    /**
+     * Gives a cached tour its instance back.
+     *
+     * @param stored The cached tour, without instance.
+     * @param instance The instance it was solved on.
+     * @return The result.
+     */
+    private static SolverResult attach(SolverResult stored, Instance instance) {
+        return new SolverResult(instance, stored.method, stored.route(), stored.length, stored.iterations, stored.nanos,
+                stored.termination, null);
+    }
+
+    /**
+     * Creates the configuration of a request from its query, "name=value" pairs named as the builder methods.
+     * Parameters that write files or collect telemetry cannot be set.
+     *
+     * @param query The query of the request URI, or null.
+     * @return The configuration.
+     * @throws IllegalArgumentException If a parameter is unknown or out of range.
+     */
+    public static SolverConfig config(String query) {
+        SolverConfig.Builder builder = SolverConfig.builder();
+        if (query == null || query.isEmpty())
+            return builder.build();
+        for (String pair : query.split("&")) {
+            int equals = pair.indexOf('=');
+            if (equals < 0)
+                throw new IllegalArgumentException("Expected name=value: " + pair);
+            String name = URLDecoder.decode(pair.substring(0, equals), StandardCharsets.UTF_8);
+            String value = URLDecoder.decode(pair.substring(equals + 1), StandardCharsets.UTF_8);
+            parameter(builder, name, value);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Sets a parameter of a request on the builder.
+     *
+     * @param builder The builder.
+     * @param name The name of the builder method.
+     * @param value The value as text.
+     * @return The builder.
+     * @throws IllegalArgumentException If the parameter is unknown or the value malformed.
+     */
+    private static SolverConfig.Builder parameter(SolverConfig.Builder builder, String name, String value) {
+        switch (name) {
+            case "method":
+                return builder.method(SolverConfig.Method.valueOf(value));
+            case "algorithm":
+                return builder.algorithm(SolverConfig.Algorithm.valueOf(value));
+            case "ants":
+                return builder.ants(Integer.parseInt(value));
+            case "iterations":
+                return builder.iterations(Integer.parseInt(value));
+            case "degradationFactor":
+                return builder.degradationFactor(Double.parseDouble(value));
+            case "q":
+                return builder.q(Double.parseDouble(value));
+            case "initialPheromone":
+                return builder.initialPheromone(Double.parseDouble(value));
+            case "alpha":
+                return builder.alpha(Double.parseDouble(value));
+            case "beta":
+                return builder.beta(Double.parseDouble(value));
+            case "seed":
+                return builder.seed(Long.parseLong(value));
+            case "parallelConstruction":
+                return builder.parallelConstruction(Boolean.parseBoolean(value));
+            case "threads":
+                return builder.threads(Integer.parseInt(value));
+            case "candidates":
+                return builder.candidates(Integer.parseInt(value));
+            case "localSearch":
+                return builder.localSearch(LocalSearch.Mode.valueOf(value));
+            case "matrixLayout":
+                return builder.matrixLayout(SymmetricMatrix.Layout.valueOf(value));
+            case "singlePrecision":
+                return builder.singlePrecision(Boolean.parseBoolean(value));
+            case "exploitation":
+                return builder.exploitation(Double.parseDouble(value));
+            case "localEvaporation":
+                return builder.localEvaporation(Double.parseDouble(value));
+            case "bestProbability":
+                return builder.bestProbability(Double.parseDouble(value));
+            case "globalBestInterval":
+                return builder.globalBestInterval(Integer.parseInt(value));
+            case "restartIterations":
+                return builder.restartIterations(Integer.parseInt(value));
+            case "timeLimitMillis":
+                return builder.timeLimitMillis(Long.parseLong(value));
+            case "stagnationLimit":
+                return builder.stagnationLimit(Integer.parseInt(value));
+            case "targetLength":
+                return builder.targetLength(Double.parseDouble(value));
+            default:
+                throw new IllegalArgumentException("Unknown parameter: " + name);
+        }
+    }
+
+    /**
+     * Answers POST /solve with the length, the route as printed by the main method and whether it came from the cache.
+     *
+     * @param exchange The request and its response.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handleSolve(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("POST")) {
+                respond(exchange, 405, "Use POST with the cities in the body\n");
+                return;
+            }
+            Answer answer;
+            try {
+                SolverConfig config = config(exchange.getRequestURI().getRawQuery());
+                byte[] cities = exchange.getRequestBody().readNBytes(MAX_BODY_BYTES + 1);
+                if (cities.length > MAX_BODY_BYTES) {
+                    respond(exchange, 413, "The body may have at most " + MAX_BODY_BYTES + " bytes\n");
+                    return;
+                }
+                double[][] coordinates = CityLoader.parse(ByteBuffer.wrap(cities));
+                answer = solve(coordinates[0], coordinates[1], config);
+            } catch (IllegalArgumentException | IOException e) { // NumberFormatException is an IllegalArgumentException
+                respond(exchange, 400, e.getMessage() + "\n");
+                return;
+            } catch (RuntimeException | OutOfMemoryError e) { // a failed solve still gets an answer
+                e.printStackTrace();
+                respond(exchange, 500, e + "\n");
+                return;
+            }
+            SolverResult result = answer.result;
+            StringBuilder body = new StringBuilder();
+            body.append("length ").append(result.length).append('\n');
+            body.append("iterations ").append(result.iterations).append('\n');
+            body.append("termination ").append(result.termination).append('\n');
+            body.append("cached ").append(answer.cached).append('\n');
+            body.append("route");
+            for (int city : result.cycle()) {
+                body.append(' ').append(city);
+            }
+            respond(exchange, 200, body.append('\n').toString());
+        }
+    }
+
+    /**
+     * Answers GET /stats with the contents, hits and misses of both caches.
+     *
+     * @param exchange The request and its response.
+     * @throws IOException If the response cannot be sent.
+     */
+    private void handleStats(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            respond(exchange, 200, "instances " + instances + "\nresults " + results + "\n");
+        }
+    }
+
+    /**
+     * Sends a plain text response.
+     *
+     * @param exchange The request and its response.
+     * @param status The HTTP status code.
+     * @param text The body.
+     * @throws IOException If the response cannot be sent.
+     */
+    private static void respond(HttpExchange exchange, int status, String text) throws IOException {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Stops listening, waits briefly for running requests and stops the threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    /**
+     * Starts the service and keeps it running until the JVM is stopped.
+     *
+     * @param args The port and the memory budget of the caches in megabytes, both optional.
+     */
+    public static void main(String[] args) {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        long cacheBytes = args.length > 1 ? Long.parseLong(args[1]) << 20
+                : (long) (Runtime.getRuntime().maxMemory() * DEFAULT_HEAP_FRACTION);
+        try {
+            SolveDaemon daemon = new SolveDaemon(port, cacheBytes, Runtime.getRuntime().availableProcessors());
+            Runtime.getRuntime().addShutdownHook(new Thread(daemon::close));
+            System.out.println("Solving on http://" + InetAddress.getLoopbackAddress().getHostAddress() + ":" + daemon.port()
+                    + "/solve with " + (cacheBytes >> 20) + " MB of cache");
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+}
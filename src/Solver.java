@@ -0,0 +1,50 @@
+/**
+ * The Solver class solves instances with the method and parameters of a configuration.
+ * A solver keeps no state between solves, so one solver can be reused for many instances and called from many threads.
+ */
+public class Solver {
+
+    /** The configuration every solve uses. */
+    public final SolverConfig config;
+
+    /**
+     * Creates a solver.
+     *
+     * @param config The method and parameters to solve with.
+     */
+    public Solver(SolverConfig config) {
+        this.config = config;
+    }
+
+    /**
+     * Solves an instance with the configured method.
+     *
+     * @param instance The instance to solve.
+     * @return The best route found with its length.
+     */
+    public SolverResult solve(Instance instance) {
+        return solve(instance, null);
+    }
+
+    /**
+     * Solves an instance with the configured method, publishing every new best tour.
+     * The exact methods ignore the termination limits and publish only their final route.
+     *
+     * @param instance The instance to solve.
+     * @param listener Receives every new best tour, or null.
+     * @return The best route found with its length.
+     */
+    public SolverResult solve(Instance instance, ImprovementListener listener) {
+        if (config.method == SolverConfig.Method.ANT_COLONY)
+            return new AntColony(instance, config).solve(listener);
+        long start = System.nanoTime();
+        int[] route = config.method == SolverConfig.Method.BRUTE_FORCE ? BruteForce.solve(instance.distances)
+                : HeldKarp.solve(instance.distances);
+        long end = System.nanoTime();
+        SolverResult result = new SolverResult(instance, config.method, route, instance.routeLength(route), 0, end - start,
+                SolverResult.Termination.COMPLETED, null);
+        if (listener != null)
+            listener.improved(result);
+        return result;
+    }
+}
@@ -0,0 +1,632 @@
+/**
+ * The SolverConfig class holds the method and parameters a Solver uses. A configuration is immutable and is created with
+ * a Builder, whose defaults are the parameters of the main method, so one configuration can be shared by many solvers.
+ */
+public final class SolverConfig {
+
+    /** Longest time limit in milliseconds, so the limit in nanoseconds fits in a long. */
+    public static final long MAX_TIME_LIMIT_MILLIS = Long.MAX_VALUE / 1_000_000;
+
+    /** The methods a solver can use. */
+    public enum Method {
+        /** Exact search over all routes with branch and bound. */
+        BRUTE_FORCE,
+        /** Ant Colony Optimization. */
+        ANT_COLONY,
+        /** Exact dynamic programming over subsets of cities. */
+        HELD_KARP
+    }
+
+    /** The pheromone update rules of the colony. */
+    public enum Algorithm {
+        /** Ant System: every ant deposits and every edge evaporates. */
+        ANT_SYSTEM,
+        /** MAX-MIN Ant System: only the iteration-best or best tour deposits, pheromone is bounded and reset on stagnation. */
+        MAX_MIN_ANT_SYSTEM,
+        /** Ant Colony System: pseudo-random proportional choice, local updates and best-tour global updates. */
+        ANT_COLONY_SYSTEM
+    }
+
+    /** The method used to solve an instance. */
+    public final Method method;
+
+    /** The pheromone update rules of the colony. */
+    public final Algorithm algorithm;
+
+    /** Number of ants in the colony. */
+    public final int ants;
+
+    /** Number of iterations for ant traversal. */
+    public final int iterations;
+
+    /** Pheromone degradation factor. */
+    public final double degradationFactor;
+
+    /** Pheromone update factor. */
+    public final double q;
+
+    /** Initial pheromone level on the edges. */
+    public final double initialPheromone;
+
+    /** Pheromone importance factor. */
+    public final double alpha;
+
+    /** Heuristic information importance factor. */
+    public final double beta;
+
+    /** Seed of the random number generators used by the ants. */
+    public final long seed;
+
+    /** If true, all ants of an iteration construct their tours at the same time and deposit afterwards. */
+    public final boolean parallelConstruction;
+
+    /** Number of worker threads used for parallel tour construction. */
+    public final int threads;
+
+    /**
+     * Number of nearest neighbours the ants choose from, 0 to consider every unvisited city.
+     * With candidates the matrices only store the n * candidates candidate edges, and the storage settings below do not apply.
+     */
+    public final int candidates;
+
+    /**
+     * Which tours are improved by local search before their pheromone is deposited.
+     * ITERATION_BEST builds all tours of an iteration before depositing them, which delays the local updates of the
+     * Ant Colony System; it uses the worker threads only with parallelConstruction.
+     */
+    public final LocalSearch.Mode localSearch;
+
+    /** Arrangement of the entries of the pheromone, heuristic and edge value matrices. */
+    public final SymmetricMatrix.Layout matrixLayout;
+
+    /** If true, the matrices store their entries as floats. */
+    public final boolean singlePrecision;
+
+    /** If true, the matrices are stored outside of the heap. */
+    public final boolean offHeap;
+
+    /** Ant Colony System: probability of taking the edge with the highest value instead of the roulette. */
+    public final double exploitation;
+
+    /** Ant Colony System: share of the pheromone of a used edge moved towards the initial level by the local update. */
+    public final double localEvaporation;
+
+    /** MAX-MIN Ant System: chance of constructing the best tour once the pheromone has converged, which sets tauMin. */
+    public final double bestProbability;
+
+    /** MAX-MIN Ant System: every this many iterations the best tour so far deposits instead of the iteration-best tour, 0 for never. */
+    public final int globalBestInterval;
+
+    /** MAX-MIN Ant System: number of iterations without a shorter tour after which the pheromone is reset, 0 for never. */
+    public final int restartIterations;
+
+    /** Wall-clock time a solve may take in milliseconds, 0 for no limit. */
+    public final long timeLimitMillis;
+
+    /** Number of iterations without a shorter tour after which a solve stops, 0 for no limit. */
+    public final int stagnationLimit;
+
+    /** Tour length at or below which a solve stops, 0 to never stop early. */
+    public final double targetLength;
+
+    /** If true, the colony measures every iteration and the result holds the measurements. */
+    public final boolean telemetry;
+
+    /** Number of iterations between two computations of the pheromone entropy and branching factor, 0 to never compute them. */
+    public final int telemetrySampleInterval;
+
+    /** File the colony writes checkpoints of its state to, null for no checkpoints. */
+    public final String checkpointFile;
+
+    /** Number of iterations between two checkpoints. */
+    public final int checkpointInterval;
+
+    /**
+     * Creates a configuration from a builder.
+     *
+     * @param builder The builder holding the parameters.
+     */
+    private SolverConfig(Builder builder) {
+        method = builder.method;
+        algorithm = builder.algorithm;
+        ants = builder.ants;
+        iterations = builder.iterations;
+        degradationFactor = builder.degradationFactor;
+        q = builder.q;
+        initialPheromone = builder.initialPheromone;
+        alpha = builder.alpha;
+        beta = builder.beta;
+        seed = builder.seed;
+        parallelConstruction = builder.parallelConstruction;
+        threads = builder.threads;
+        candidates = builder.candidates;
+        localSearch = builder.localSearch;
+        matrixLayout = builder.matrixLayout;
+        singlePrecision = builder.singlePrecision;
+        offHeap = builder.offHeap;
+        exploitation = builder.exploitation;
+        localEvaporation = builder.localEvaporation;
+        bestProbability = builder.bestProbability;
+        globalBestInterval = builder.globalBestInterval;
+        restartIterations = builder.restartIterations;
+        timeLimitMillis = builder.timeLimitMillis;
+        stagnationLimit = builder.stagnationLimit;
+        targetLength = builder.targetLength;
+        telemetry = builder.telemetry;
+        telemetrySampleInterval = builder.telemetrySampleInterval;
+        checkpointFile = builder.checkpointFile;
+        checkpointInterval = builder.checkpointInterval;
+    }
+
+    /**
+     * Returns a builder holding the default parameters.
+     *
+     * @return A new builder.
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Returns a builder holding the parameters of this configuration, to derive a configuration that differs in a few of them.
+     *
+     * @return A new builder.
+     */
+    public Builder toBuilder() {
+        Builder builder = new Builder();
+        builder.method = method;
+        builder.algorithm = algorithm;
+        builder.ants = ants;
+        builder.iterations = iterations;
+        builder.degradationFactor = degradationFactor;
+        builder.q = q;
+        builder.initialPheromone = initialPheromone;
+        builder.alpha = alpha;
+        builder.beta = beta;
+        builder.seed = seed;
+        builder.parallelConstruction = parallelConstruction;
+        builder.threads = threads;
+        builder.candidates = candidates;
+        builder.localSearch = localSearch;
+        builder.matrixLayout = matrixLayout;
+        builder.singlePrecision = singlePrecision;
+        builder.offHeap = offHeap;
+        builder.exploitation = exploitation;
+        builder.localEvaporation = localEvaporation;
+        builder.bestProbability = bestProbability;
+        builder.globalBestInterval = globalBestInterval;
+        builder.restartIterations = restartIterations;
+        builder.timeLimitMillis = timeLimitMillis;
+        builder.stagnationLimit = stagnationLimit;
+        builder.targetLength = targetLength;
+        builder.telemetry = telemetry;
+        builder.telemetrySampleInterval = telemetrySampleInterval;
+        builder.checkpointFile = checkpointFile;
+        builder.checkpointInterval = checkpointInterval;
+        return builder;
+    }
+
+    /**
+     * Lists every parameter as name=value, so equal configurations give equal strings, e.g. to key cached results.
+     *
+     * @return The parameters.
+     */
+    @Override
+    public String toString() {
+        return "method=" + method + ", algorithm=" + algorithm + ", ants=" + ants + ", iterations=" + iterations
+                + ", degradationFactor=" + degradationFactor + ", q=" + q + ", initialPheromone=" + initialPheromone
+                + ", alpha=" + alpha + ", beta=" + beta + ", seed=" + seed + ", parallelConstruction=" + parallelConstruction
+                + ", threads=" + threads + ", candidates=" + candidates + ", localSearch=" + localSearch
+                + ", matrixLayout=" + matrixLayout + ", singlePrecision=" + singlePrecision + ", offHeap=" + offHeap
+                + ", exploitation=" + exploitation + ", localEvaporation=" + localEvaporation
+                + ", bestProbability=" + bestProbability + ", globalBestInterval=" + globalBestInterval
+                + ", restartIterations=" + restartIterations + ", timeLimitMillis=" + timeLimitMillis
+                + ", stagnationLimit=" + stagnationLimit + ", targetLength=" + targetLength + ", telemetry=" + telemetry
+                + ", telemetrySampleInterval=" + telemetrySampleInterval + ", checkpointFile=" + checkpointFile
+                + ", checkpointInterval=" + checkpointInterval;
+    }
+
+    /**
+     * The Builder class collects the parameters of a configuration.
+     */
+    public static final class Builder {
+
+        private Method method = Method.ANT_COLONY;
+        private Algorithm algorithm = Algorithm.ANT_SYSTEM;
+        private int ants = 50;
+        private int iterations = 100;
+        private double degradationFactor = 0.8;
+        private double q = 0.0001;
+        private double initialPheromone = 0.001;
+        private double alpha = 1.1;
+        private double beta = 1.6;
+        private long seed = 42;
+        private boolean parallelConstruction;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private int candidates;
+        private LocalSearch.Mode localSearch = LocalSearch.Mode.NONE;
+        private SymmetricMatrix.Layout matrixLayout = SymmetricMatrix.Layout.FULL;
+        private boolean singlePrecision;
+        private boolean offHeap;
+        private double exploitation = 0.9;
+        private double localEvaporation = 0.1;
+        private double bestProbability = 0.05;
+        private int globalBestInterval = 10;
+        private int restartIterations = 250;
+        private long timeLimitMillis;
+        private int stagnationLimit;
+        private double targetLength;
+        private boolean telemetry;
+        private int telemetrySampleInterval = 10;
+        private String checkpointFile;
+        private int checkpointInterval = 100;
+
+        private Builder() {
+        }
+
+        /**
+         * Sets the method used to solve an instance.
+         *
+         * @param method The method.
+         * @return This builder.
+         */
+        public Builder method(Method method) {
+            this.method = method;
+            return this;
+        }
+
+        /**
+         * Sets the pheromone update rules of the colony.
+         *
+         * @param algorithm The update rules.
+         * @return This builder.
+         */
+        public Builder algorithm(Algorithm algorithm) {
+            this.algorithm = algorithm;
+            return this;
+        }
+
+        /**
+         * Sets the number of ants in the colony.
+         *
+         * @param ants The number of ants, at least 1.
+         * @return This builder.
+         */
+        public Builder ants(int ants) {
+            this.ants = ants;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations of the colony.
+         *
+         * @param iterations The number of iterations, at least 0.
+         * @return This builder.
+         */
+        public Builder iterations(int iterations) {
+            this.iterations = iterations;
+            return this;
+        }
+
+        /**
+         * Sets the share of the pheromone kept by evaporation in every iteration.
+         *
+         * @param degradationFactor The degradation factor, in (0, 1].
+         * @return This builder.
+         */
+        public Builder degradationFactor(double degradationFactor) {
+            this.degradationFactor = degradationFactor;
+            return this;
+        }
+
+        /**
+         * Sets the pheromone update factor, the amount an ant deposits over the length of its tour.
+         *
+         * @param q The update factor, finite and positive.
+         * @return This builder.
+         */
+        public Builder q(double q) {
+            this.q = q;
+            return this;
+        }
+
+        /**
+         * Sets the initial pheromone level of the edges for the Ant System.
+         *
+         * @param initialPheromone The initial level, finite and positive.
+         * @return This builder.
+         */
+        public Builder initialPheromone(double initialPheromone) {
+            this.initialPheromone = initialPheromone;
+            return this;
+        }
+
+        /**
+         * Sets the exponent of the pheromone in the edge values.
+         *
+         * @param alpha The pheromone importance, finite and positive.
+         * @return This builder.
+         */
+        public Builder alpha(double alpha) {
+            this.alpha = alpha;
+            return this;
+        }
+
+        /**
+         * Sets the exponent of the inverse distance in the edge values.
+         *
+         * @param beta The heuristic importance, finite and positive.
+         * @return This builder.
+         */
+        public Builder beta(double beta) {
+            this.beta = beta;
+            return this;
+        }
+
+        /**
+         * Sets the seed of the random number generators of the ants.
+         *
+         * @param seed The seed.
+         * @return This builder.
+         */
+        public Builder seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets whether all ants of an iteration construct their tours at the same time.
+         *
+         * @param parallelConstruction True to construct the tours in parallel.
+         * @return This builder.
+         */
+        public Builder parallelConstruction(boolean parallelConstruction) {
+            this.parallelConstruction = parallelConstruction;
+            return this;
+        }
+
+        /**
+         * Sets the number of worker threads used for parallel tour construction.
+         *
+         * @param threads The number of threads, at least 1.
+         * @return This builder.
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Sets the number of nearest neighbours the ants choose from.
+         *
+         * @param candidates The number of candidates, 0 to consider every unvisited city.
+         * @return This builder.
+         */
+        public Builder candidates(int candidates) {
+            this.candidates = candidates;
+            return this;
+        }
+
+        /**
+         * Sets which tours are improved by local search before their pheromone is deposited.
+         *
+         * @param localSearch The local search mode.
+         * @return This builder.
+         */
+        public Builder localSearch(LocalSearch.Mode localSearch) {
+            this.localSearch = localSearch;
+            return this;
+        }
+
+        /**
+         * Sets the arrangement of the entries of the matrices.
+         *
+         * @param matrixLayout The layout.
+         * @return This builder.
+         */
+        public Builder matrixLayout(SymmetricMatrix.Layout matrixLayout) {
+            this.matrixLayout = matrixLayout;
+            return this;
+        }
+
+        /**
+         * Sets whether the matrices store their entries as floats.
+         *
+         * @param singlePrecision True for floats, false for doubles.
+         * @return This builder.
+         */
+        public Builder singlePrecision(boolean singlePrecision) {
+            this.singlePrecision = singlePrecision;
+            return this;
+        }
+
+        /**
+         * Sets whether the matrices are stored outside of the heap.
+         *
+         * @param offHeap True to store the matrices off-heap.
+         * @return This builder.
+         */
+        public Builder offHeap(boolean offHeap) {
+            this.offHeap = offHeap;
+            return this;
+        }
+
+        /**
+         * Sets the probability of taking the edge with the highest value for the Ant Colony System.
+         *
+         * @param exploitation The probability, in [0, 1].
+         * @return This builder.
+         */
+        public Builder exploitation(double exploitation) {
+            this.exploitation = exploitation;
+            return this;
+        }
+
+        /**
+         * Sets the share of the pheromone moved towards the initial level by the local update of the Ant Colony System.
+         *
+         * @param localEvaporation The share, in [0, 1].
+         * @return This builder.
+         */
+        public Builder localEvaporation(double localEvaporation) {
+            this.localEvaporation = localEvaporation;
+            return this;
+        }
+
+        /**
+         * Sets the chance of constructing the best tour once the pheromone has converged for the MAX-MIN Ant System.
+         *
+         * @param bestProbability The probability, in (0, 1).
+         * @return This builder.
+         */
+        public Builder bestProbability(double bestProbability) {
+            this.bestProbability = bestProbability;
+            return this;
+        }
+
+        /**
+         * Sets how often the best tour so far deposits instead of the iteration-best tour for the MAX-MIN Ant System.
+         *
+         * @param globalBestInterval The number of iterations, 0 for never.
+         * @return This builder.
+         */
+        public Builder globalBestInterval(int globalBestInterval) {
+            this.globalBestInterval = globalBestInterval;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations without a shorter tour after which the MAX-MIN Ant System resets the pheromone.
+         *
+         * @param restartIterations The number of iterations, 0 for never.
+         * @return This builder.
+         */
+        public Builder restartIterations(int restartIterations) {
+            this.restartIterations = restartIterations;
+            return this;
+        }
+
+        /**
+         * Sets the wall-clock time a solve may take.
+         *
+         * @param timeLimitMillis The time limit in milliseconds, 0 for no limit.
+         * @return This builder.
+         */
+        public Builder timeLimitMillis(long timeLimitMillis) {
+            this.timeLimitMillis = timeLimitMillis;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations without a shorter tour after which a solve stops.
+         *
+         * @param stagnationLimit The number of iterations, 0 for no limit.
+         * @return This builder.
+         */
+        public Builder stagnationLimit(int stagnationLimit) {
+            this.stagnationLimit = stagnationLimit;
+            return this;
+        }
+
+        /**
+         * Sets the tour length at or below which a solve stops.
+         *
+         * @param targetLength The target length, 0 to never stop early.
+         * @return This builder.
+         */
+        public Builder targetLength(double targetLength) {
+            this.targetLength = targetLength;
+            return this;
+        }
+
+        /**
+         * Sets whether the colony measures every iteration.
+         *
+         * @param telemetry True to collect telemetry.
+         * @return This builder.
+         */
+        public Builder telemetry(boolean telemetry) {
+            this.telemetry = telemetry;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations between two computations of the pheromone entropy and branching factor.
+         *
+         * @param telemetrySampleInterval The number of iterations, 0 to never compute them.
+         * @return This builder.
+         */
+        public Builder telemetrySampleInterval(int telemetrySampleInterval) {
+            this.telemetrySampleInterval = telemetrySampleInterval;
+            return this;
+        }
+
+        /**
+         * Sets the file the colony writes checkpoints of its state to.
+         *
+         * @param checkpointFile The file name, null for no checkpoints.
+         * @return This builder.
+         */
+        public Builder checkpointFile(String checkpointFile) {
+            this.checkpointFile = checkpointFile;
+            return this;
+        }
+
+        /**
+         * Sets the number of iterations between two checkpoints.
+         *
+         * @param checkpointInterval The number of iterations, at least 1.
+         * @return This builder.
+         */
+        public Builder checkpointInterval(int checkpointInterval) {
+            this.checkpointInterval = checkpointInterval;
+            return this;
+        }
+
+        /**
+         * Checks the parameters and creates the configuration.
+         *
+         * @return The configuration.
+         * @throws IllegalArgumentException If a parameter is out of range.
+         */
+        public SolverConfig build() {
+            if (ants < 1)
+                throw new IllegalArgumentException("Number of ants must be positive: " + ants);
+            if (iterations < 0)
+                throw new IllegalArgumentException("Number of iterations must not be negative: " + iterations);
+            if (!(degradationFactor > 0 && degradationFactor <= 1))
+                throw new IllegalArgumentException("Degradation factor must be in (0, 1]: " + degradationFactor);
+            if (!(q > 0 && q < Double.POSITIVE_INFINITY))
+                throw new IllegalArgumentException("Pheromone update factor must be finite and positive: " + q);
+            if (!(initialPheromone > 0 && initialPheromone < Double.POSITIVE_INFINITY))
+                throw new IllegalArgumentException("Initial pheromone must be finite and positive: " + initialPheromone);
+            if (!(alpha > 0 && alpha < Double.POSITIVE_INFINITY))
+                throw new IllegalArgumentException("Pheromone importance must be finite and positive: " + alpha);
+            if (!(beta > 0 && beta < Double.POSITIVE_INFINITY))
+                throw new IllegalArgumentException("Heuristic importance must be finite and positive: " + beta);
+            if (threads < 1)
+                throw new IllegalArgumentException("Number of threads must be positive: " + threads);
+            if (candidates < 0)
+                throw new IllegalArgumentException("Number of candidates must not be negative: " + candidates);
+            if (!(exploitation >= 0 && exploitation <= 1))
+                throw new IllegalArgumentException("Exploitation probability must be in [0, 1]: " + exploitation);
+            if (!(localEvaporation >= 0 && localEvaporation <= 1))
+                throw new IllegalArgumentException("Local evaporation must be in [0, 1]: " + localEvaporation);
+            if (!(bestProbability > 0 && bestProbability < 1))
+                throw new IllegalArgumentException("Best tour probability must be in (0, 1): " + bestProbability);
+            if (globalBestInterval < 0 || restartIterations < 0)
+                throw new IllegalArgumentException("Global best interval and restart iterations must not be negative");
+            if (timeLimitMillis < 0 || timeLimitMillis > MAX_TIME_LIMIT_MILLIS)
+                throw new IllegalArgumentException("Time limit must be in [0, " + MAX_TIME_LIMIT_MILLIS + "]: " + timeLimitMillis);
+            if (stagnationLimit < 0)
+                throw new IllegalArgumentException("Stagnation limit must not be negative: " + stagnationLimit);
+            if (!(targetLength >= 0 && targetLength < Double.POSITIVE_INFINITY))
+                throw new IllegalArgumentException("Target length must be finite and not negative: " + targetLength);
+            if (telemetrySampleInterval < 0)
+                throw new IllegalArgumentException("Telemetry sample interval must not be negative: " + telemetrySampleInterval);
+            if (checkpointInterval < 1)
+                throw new IllegalArgumentException("Checkpoint interval must be positive: " + checkpointInterval);
+            return new SolverConfig(this);
+        }
+    }
+}
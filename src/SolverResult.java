@@ -0,0 +1,85 @@
+/**
+ * The SolverResult class is the outcome of solving an instance: the best route found, its length and how long the solve took.
+ */
+public final class SolverResult {
+
+    /** Why a solve stopped. */
+    public enum Termination {
+        /** Every configured iteration was run, or the exact method finished. */
+        COMPLETED,
+        /** The time limit was reached. */
+        TIME_LIMIT,
+        /** The best tour did not improve for the configured number of iterations. */
+        STAGNATION,
+        /** A tour at most as long as the target length was found. */
+        TARGET_LENGTH,
+        /** An iteration listener stopped the solve, e.g. because another island reached the target length. */
+        STOPPED
+    }
+
+    /** The instance that was solved. */
+    public final Instance instance;
+
+    /** The method that found the route. */
+    public final SolverConfig.Method method;
+
+    /** The best route as a permutation of the cities starting with city 0. */
+    private final int[] route;
+
+    /** The total length of the route, including the edge back to the first city. */
+    public final double length;
+
+    /** Number of iterations run, 0 for the exact methods. */
+    public final int iterations;
+
+    /** Time the solve took in nanoseconds. */
+    public final long nanos;
+
+    /** Why the solve stopped, null for a best-so-far result published while the solve runs. */
+    public final Termination termination;
+
+    /** Measurements of every iteration, null if telemetry was off. */
+    public final Telemetry telemetry;
+
+    /**
+     * Creates a result.
+     *
+     * @param instance The instance that was solved.
+     * @param method The method that found the route.
+     * @param route The best route as a permutation of the cities starting with city 0, not copied.
+     * @param length The total length of the route.
+     * @param iterations The number of iterations run.
+     * @param nanos The time the solve took in nanoseconds.
+     * @param termination Why the solve stopped, null while it runs.
+     * @param telemetry The measurements of every iteration, or null.
+     */
+    public SolverResult(Instance instance, SolverConfig.Method method, int[] route, double length, int iterations, long nanos,
+            Termination termination, Telemetry telemetry) {
+        this.instance = instance;
+        this.method = method;
+        this.route = route;
+        this.length = length;
+        this.iterations = iterations;
+        this.nanos = nanos;
+        this.termination = termination;
+        this.telemetry = telemetry;
+    }
+
+    /**
+     * Returns the best route.
+     *
+     * @return A copy of the route as a permutation of the cities starting with city 0.
+     */
+    public int[] route() {
+        return route.clone();
+    }
+
+    /**
+     * Returns the best route in the printed form: cities numbered from 1, ending with the first city again.
+     *
+     * @return The numbered cycle.
+     */
+    public int[] cycle() {
+        return BruteForce.editedRoute(route);
+    }
+}
@@ -0,0 +1,283 @@
+/**
+ * The SymmetricMatrix class is the storage layer of the pheromone, heuristic and edge value matrices.
+ * Entries are kept in a single contiguous primitive store, either the full matrix in row-major order or only the lower
+ * triangle in packed order, which halves the memory. Setting (i, j) always sets (j, i) as well.
+ * The store may use double or float precision and may live on the heap or off-heap for very large instances.
+ * With candidate lists, CandidateMatrix stores only the candidate edges, n * k entries indexed like the candidate lists.
+ */
+import java.nio.ByteBuffer;
+
+public abstract class SymmetricMatrix {
+
+    /** How the entries are arranged in the store. */
+    public enum Layout {
+        /** Every entry in row-major order, n * n entries. */
+        FULL,
+        /** Only the entries with i >= j, row by row, n * (n + 1) / 2 entries. */
+        TRIANGULAR
+    }
+
+    /** Largest number of entries an on-heap array can hold. */
+    public static final long MAX_ARRAY_ENTRIES = Integer.MAX_VALUE - 8;
+
+    /** Number of rows and columns. */
+    protected final int n;
+
+    /** True if only the lower triangle is stored. */
+    protected final boolean triangular;
+
+    /**
+     * Creates a matrix of the given size and layout.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     */
+    protected SymmetricMatrix(int n, Layout layout) {
+        this.n = n;
+        this.triangular = layout == Layout.TRIANGULAR;
+    }
+
+    /**
+     * Creates a matrix with the given storage. Stores too large for an array are always placed off-heap.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     * @param singlePrecision If true, entries are stored as floats.
+     * @param offHeap If true, entries are stored outside of the heap.
+     * @return A matrix filled with zeros.
+     */
+    public static SymmetricMatrix create(int n, Layout layout, boolean singlePrecision, boolean offHeap) {
+        long entries = entries(n, layout);
+        if (offHeap || entries > MAX_ARRAY_ENTRIES)
+            return new OffHeapMatrix(n, layout, singlePrecision);
+        if (singlePrecision)
+            return new FloatMatrix(n, layout);
+        return new DoubleMatrix(n, layout);
+    }
+
+    /**
+     * Returns the number of stored entries of a matrix.
+     *
+     * @param n The number of rows and columns.
+     * @param layout The arrangement of the entries.
+     * @return The number of stored entries.
+     */
+    public static long entries(int n, Layout layout) {
+        return layout == Layout.TRIANGULAR ? (long) n * (n + 1) / 2 : (long) n * n;
+    }
+
+    /**
+     * Returns the number of entries below the diagonal, the entries that describe the edges of a symmetric instance.
+     *
+     * @param n The number of rows and columns.
+     * @return The number of entries with i > j.
+     */
+    public static long edges(int n) {
+        return (long) n * (n - 1) / 2;
+    }
+
+    /**
+     * Returns the number of rows and columns.
+     *
+     * @return The size of the matrix.
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Returns the position of an entry in the store.
+     *
+     * @param i The row.
+     * @param j The column.
+     * @return The position of the entry.
+     */
+    protected final long index(int i, int j) {
+        if (!triangular)
+            return (long) i * n + j;
+        if (i < j) { // only the lower triangle is stored
+            int temp = i;
+            i = j;
+            j = temp;
+        }
+        return (long) i * (i + 1) / 2 + j;
+    }
+
+    /**
+     * Returns an entry of the matrix.
+     *
+     * @param i The row.
+     * @param j The column.
+     * @return The entry at (i, j).
+     */
+    public double get(int i, int j) {
+        return load(index(i, j));
+    }
+
+    /**
+     * Sets an entry of the matrix and its mirrored entry.
+     *
+     * @param i The row.
+     * @param j The column.
+     * @param value The new value of (i, j) and (j, i).
+     */
+    public void set(int i, int j, double value) {
+        if (triangular) {
+            store(index(i, j), value);
+        } else {
+            store((long) i * n + j, value);
+            store((long) j * n + i, value);
+        }
+    }
+
+    /**
+     * Returns the entry of the edge from a city to one of its candidates, by its slot in the candidate lists.
+     * Matrices stored by candidate slot read the slot directly, the others look the entry up.
+     *
+     * @param slot The slot of the candidate, i.e. its index into CandidateLists.neighbours.
+     * @param i The city whose list holds the slot.
+     * @param j The candidate at the slot.
+     * @return The entry at (i, j).
+     */
+    public double candidateEntry(int slot, int i, int j) {
+        return get(i, j);
+    }
+
+    /**
+     * Adds a value to an entry of the matrix and its mirrored entry.
+     *
+     * @param i The row.
+     * @param j The column.
+     * @param value The value to add.
+     */
+    public final void add(int i, int j, double value) {
+        set(i, j, get(i, j) + value);
+    }
+
+    /**
+     * Reads the entry at a position of the store.
+     *
+     * @param index The position in the store.
+     * @return The stored value.
+     */
+    protected abstract double load(long index);
+
+    /**
+     * Writes the entry at a position of the store.
+     *
+     * @param index The position in the store.
+     * @param value The value to store.
+     */
+    protected abstract void store(long index, double value);
+
+    /**
+     * Sets every entry to the same value.
+     *
+     * @param value The new value of every entry.
+     */
+    public abstract void fill(double value);
+
+    /**
+     * Multiplies every entry by a factor.
+     *
+     * @param factor The factor.
+     */
+    public abstract void scale(double factor);
+
+    /**
+     * Sets every entry below the diagonal, and its mirrored entry, to base^exponent * factor of the same edge, as in the
+     * edge value tau^alpha * eta^beta.
+     *
+     * @param base The matrix of the bases, e.g. the pheromone levels.
+     * @param exponent The exponent, e.g. alpha.
+     * @param factor The matrix of the factors, e.g. the heuristic values.
+     */
+    public void setPowerProduct(SymmetricMatrix base, double exponent, SymmetricMatrix factor) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                set(i, j, Math.pow(base.get(i, j), exponent) * factor.get(i, j));
+            }
+        }
+    }
+
+    /**
+     * Multiplies every entry by a factor and keeps it between the bounds.
+     *
+     * @param factor The factor.
+     * @param min The lower bound.
+     * @param max The upper bound.
+     */
+    public void scaleClamp(double factor, double min, double max) {
+        long entries = entries(n, triangular ? Layout.TRIANGULAR : Layout.FULL);
+        for (long k = 0; k < entries; k++) {
+            store(k, Math.max(min, Math.min(max, load(k) * factor)));
+        }
+    }
+
+    /**
+     * Returns the store itself if it holds every entry as a double in row-major order, so that row i starts at i * n.
+     * Callers may read the array but must not change it.
+     *
+     * @return The store, or null for other storages.
+     */
+    public double[] fullRows() {
+        return null;
+    }
+
+    /**
+     * Returns whether another matrix has the same size and layout, so the stores line up entry by entry.
+     *
+     * @param other The other matrix.
+     * @return True if position k of both stores holds the same entry.
+     */
+    protected final boolean sameLayout(SymmetricMatrix other) {
+        return other.n == n && other.triangular == triangular;
+    }
+
+    /**
+     * Returns the number of bytes taken by the store.
+     *
+     * @return The size of the store in bytes.
+     */
+    public abstract long bytes();
+
+    /**
+     * Returns the number of entries writeEdges writes.
+     *
+     * @return The number of entries below the diagonal.
+     */
+    public long storedEdges() {
+        return edges(n);
+    }
+
+    /**
+     * Writes the entries below the diagonal row by row to a buffer, starting at its position.
+     *
+     * @param buffer The buffer, with room for storedEdges() entries.
+     * @param singlePrecision If true, the entries are written as floats.
+     */
+    public void writeEdges(ByteBuffer buffer, boolean singlePrecision) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                if (singlePrecision)
+                    buffer.putFloat((float) load(index(i, j)));
+                else
+                    buffer.putDouble(load(index(i, j)));
+            }
+        }
+    }
+
+    /**
+     * Sets the entries below the diagonal, and their mirrored entries, from a buffer written by writeEdges.
+     *
+     * @param buffer The buffer, positioned at the first entry.
+     * @param singlePrecision If true, the entries were written as floats.
+     */
+    public void readEdges(ByteBuffer buffer, boolean singlePrecision) {
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < i; j++) {
+                set(i, j, singlePrecision ? buffer.getFloat() : buffer.getDouble());
+            }
+        }
+    }
+}
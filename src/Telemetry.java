@@ -0,0 +1,229 @@
+/**
+ * The Telemetry class collects the IterationStats of a colony solve, commits an IterationEvent for each iteration
+ * and exports the measurements as CSV or JSON.
+ * Only the last capacity iterations are kept, in a ring buffer, so telemetry can stay on for long runs; the flight
+ * recorder events stream every iteration.
+ * Phase timings cost a few System.nanoTime calls per ant and the allocation counter one call per iteration;
+ * the convergence measures take a pass over the pheromone matrix and are only computed every sampleInterval iterations.
+ */
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+public class Telemetry {
+
+    /** Share of the pheromone range an edge needs above the smallest level to count for the branching factor. */
+    public static final double BRANCHING_LAMBDA = 0.05;
+
+    /** Number of iterations kept if no capacity is given. */
+    public static final int DEFAULT_CAPACITY = 10_000;
+
+    /** Thread bean used to read the number of bytes allocated by the counted threads, null if not supported. */
+    private static final com.sun.management.ThreadMXBean threadBean = allocationBean();
+
+    /** Name of the instance being solved. */
+    public final String instance;
+
+    /** Number of iterations between two computations of the entropy and branching factor, 0 to never compute them. */
+    public final int sampleInterval;
+
+    /** Measurements of the last iterations, the one recorded as number k at index k % length. */
+    private final IterationStats[] window;
+
+    /** Number of iterations recorded so far. */
+    private long recorded;
+
+    /** Ids of the threads whose allocations are counted: the solving thread and the workers of the colony. Guarded by this. */
+    private long[] threadIds;
+
+    /**
+     * Creates an empty collector keeping DEFAULT_CAPACITY iterations, counting the allocations of the calling thread.
+     *
+     * @param instance The name of the instance being solved.
+     * @param sampleInterval The number of iterations between two computations of the convergence measures, 0 for never.
+     */
+    public Telemetry(String instance, int sampleInterval) {
+        this(instance, sampleInterval, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Creates an empty collector, counting the allocations of the calling thread.
+     *
+     * @param instance The name of the instance being solved.
+     * @param sampleInterval The number of iterations between two computations of the convergence measures, 0 for never.
+     * @param capacity The number of iterations kept.
+     */
+    public Telemetry(String instance, int sampleInterval, int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("Telemetry capacity must be positive: " + capacity);
+        this.instance = instance;
+        this.sampleInterval = sampleInterval;
+        window = new IterationStats[capacity];
+        threadIds = new long[] {Thread.currentThread().getId()};
+    }
+
+    /**
+     * Returns the thread bean if it can measure allocations.
+     *
+     * @return The thread bean, or null.
+     */
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        if (!(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean))
+            return null;
+        com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        return bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled() ? bean : null;
+    }
+
+    /**
+     * Counts the allocations of another thread from now on, e.g. a worker constructing tours.
+     *
+     * @param thread The thread.
+     */
+    public synchronized void countThread(Thread thread) {
+        threadIds = Arrays.copyOf(threadIds, threadIds.length + 1);
+        threadIds[threadIds.length - 1] = thread.getId();
+    }
+
+    /**
+     * Returns the number of bytes each counted thread allocated so far, to be passed to allocatedSince.
+     *
+     * @return The number of bytes of each thread, -1 for a thread that ended, or null if the JVM cannot measure it.
+     */
+    public synchronized long[] allocatedBytes() {
+        return threadBean != null ? threadBean.getThreadAllocatedBytes(threadIds) : null;
+    }
+
+    /**
+     * Returns the number of bytes the counted threads allocated since allocatedBytes was called, including threads counted
+     * since then. Threads that ended in between are left out.
+     *
+     * @param start The result of allocatedBytes.
+     * @return The number of bytes, or -1 if the JVM cannot measure it.
+     */
+    public synchronized long allocatedSince(long[] start) {
+        if (start == null)
+            return -1;
+        long[] now = threadBean.getThreadAllocatedBytes(threadIds);
+        long bytes = 0;
+        for (int k = 0; k < now.length; k++) {
+            if (now[k] >= 0)
+                bytes += now[k] - (k < start.length ? Math.max(start[k], 0) : 0);
+        }
+        return bytes;
+    }
+
+    /**
+     * Checks whether the convergence measures are computed in an iteration.
+     *
+     * @param iteration The index of the iteration.
+     * @return True if the iteration is sampled.
+     */
+    public boolean samples(int iteration) {
+        return sampleInterval > 0 && iteration % sampleInterval == 0;
+    }
+
+    /**
+     * Stores the measurements of an iteration and commits its flight recorder event.
+     *
+     * @param stats The measurements of the iteration.
+     */
+    public void record(IterationStats stats) {
+        window[(int) (recorded++ % window.length)] = stats;
+        IterationEvent event = new IterationEvent();
+        if (!event.isEnabled())
+            return;
+        event.instance = instance;
+        event.iteration = stats.iteration;
+        event.construction = stats.constructionNanos;
+        event.deposit = stats.depositNanos;
+        event.evaporation = stats.evaporationNanos;
+        event.edgeValues = stats.edgeValueNanos;
+        event.bestLength = stats.bestLength;
+        event.iterationBestLength = stats.iterationBestLength;
+        event.meanLength = stats.meanLength;
+        event.entropy = stats.entropy;
+        event.branchingFactor = stats.branchingFactor;
+        event.allocatedBytes = stats.allocatedBytes;
+        event.commit();
+    }
+
+    /**
+     * Returns the number of iterations recorded so far, including those no longer kept.
+     *
+     * @return The number of iterations.
+     */
+    public long recorded() {
+        return recorded;
+    }
+
+    /**
+     * Returns the measurements of the kept iterations, the last capacity ones.
+     *
+     * @return An unmodifiable list in iteration order.
+     */
+    public List<IterationStats> iterations() {
+        int kept = (int) Math.min(recorded, window.length);
+        List<IterationStats> iterations = new ArrayList<>(kept);
+        for (long k = recorded - kept; k < recorded; k++) {
+            iterations.add(window[(int) (k % window.length)]);
+        }
+        return Collections.unmodifiableList(iterations);
+    }
+
+    /**
+     * Writes the measurements of the kept iterations as CSV with a header line, one line per iteration.
+     * Measures that were not sampled are left empty.
+     *
+     * @param out The destination.
+     * @throws IOException If writing fails.
+     */
+    public void writeCsv(Appendable out) throws IOException {
+        out.append("iteration,construction_ns,deposit_ns,evaporation_ns,edge_values_ns,best_length,iteration_best_length,"
+                + "mean_length,entropy,branching_factor,allocated_bytes\n");
+        for (IterationStats stats : iterations()) {
+            out.append(String.format(Locale.ROOT, "%d,%d,%d,%d,%d,%s,%s,%s,%s,%s,%d%n", stats.iteration, stats.constructionNanos,
+                    stats.depositNanos, stats.evaporationNanos, stats.edgeValueNanos, number(stats.bestLength, ""),
+                    number(stats.iterationBestLength, ""), number(stats.meanLength, ""), number(stats.entropy, ""),
+                    number(stats.branchingFactor, ""), stats.allocatedBytes));
+        }
+    }
+
+    /**
+     * Writes the measurements of the kept iterations as a JSON object holding the instance name and an array with one
+     * object per iteration.
+     * Measures that were not sampled are null.
+     *
+     * @param out The destination.
+     * @throws IOException If writing fails.
+     */
+    public void writeJson(Appendable out) throws IOException {
+        out.append("{\"instance\":\"").append(instance.replace("\\", "\\\\").replace("\"", "\\\"")).append("\",\"iterations\":[");
+        List<IterationStats> iterations = iterations();
+        for (int k = 0; k < iterations.size(); k++) {
+            IterationStats stats = iterations.get(k);
+            out.append(k == 0 ? "\n" : ",\n");
+            out.append(String.format(Locale.ROOT, "{\"iteration\":%d,\"constructionNanos\":%d,\"depositNanos\":%d,"
+                    + "\"evaporationNanos\":%d,\"edgeValueNanos\":%d,\"bestLength\":%s,\"iterationBestLength\":%s,"
+                    + "\"meanLength\":%s,\"entropy\":%s,\"branchingFactor\":%s,\"allocatedBytes\":%d}", stats.iteration,
+                    stats.constructionNanos, stats.depositNanos, stats.evaporationNanos, stats.edgeValueNanos,
+                    number(stats.bestLength, "null"), number(stats.iterationBestLength, "null"), number(stats.meanLength, "null"),
+                    number(stats.entropy, "null"), number(stats.branchingFactor, "null"), stats.allocatedBytes));
+        }
+        out.append("\n]}\n");
+    }
+
+    /**
+     * Formats a measure, replacing values that are not finite.
+     *
+     * @param value The value.
+     * @param missing The text written for NaN or infinite values.
+     * @return The formatted value.
+     */
+    private static String number(double value, String missing) {
+        return Double.isFinite(value) ? String.valueOf(value) : missing;
+    }
+}
@@ -0,0 +1,123 @@
+/**
+ * The VectorKernels class implements the kernels with the vector API of jdk.incubator.vector, using the widest vectors
+ * the processor supports, e.g. 4 doubles with AVX2 and 8 with AVX-512. The entries after the last full vector are done
+ * one at a time.
+ * A power is computed as exp(exponent * log(base)) over whole vectors, so the edge values may differ from Math.pow in
+ * the last bits. Only Kernels loads this class, and only when the incubator module is present.
+ */
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+public class VectorKernels implements Kernels {
+
+    /** The widest double vectors of the processor. */
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+
+    /** The widest float vectors of the processor. */
+    private static final VectorSpecies<Float> FLOATS = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public String name() {
+        return "vector " + DOUBLES.vectorBitSize() + " bit";
+    }
+
+    @Override
+    public boolean vectorized() {
+        return true;
+    }
+
+    @Override
+    public void powerProduct(double[] base, double exponent, double[] factor, double[] result, int length) {
+        int upper = DOUBLES.loopBound(length);
+        int k = 0;
+        if (exponent == 1) { // alpha = 1 needs no logarithm
+            for (; k < upper; k += DOUBLES.length()) {
+                DoubleVector.fromArray(DOUBLES, base, k).mul(DoubleVector.fromArray(DOUBLES, factor, k)).intoArray(result, k);
+            }
+        } else {
+            for (; k < upper; k += DOUBLES.length()) {
+                DoubleVector.fromArray(DOUBLES, base, k).lanewise(VectorOperators.LOG).mul(exponent)
+                        .lanewise(VectorOperators.EXP).mul(DoubleVector.fromArray(DOUBLES, factor, k)).intoArray(result, k);
+            }
+        }
+        for (; k < length; k++) {
+            result[k] = Math.pow(base[k], exponent) * factor[k];
+        }
+    }
+
+    @Override
+    public void powerProduct(float[] base, double exponent, float[] factor, float[] result, int length) {
+        int upper = FLOATS.loopBound(length);
+        int k = 0;
+        if (exponent == 1) {
+            for (; k < upper; k += FLOATS.length()) {
+                FloatVector.fromArray(FLOATS, base, k).mul(FloatVector.fromArray(FLOATS, factor, k)).intoArray(result, k);
+            }
+        } else {
+            float power = (float) exponent;
+            for (; k < upper; k += FLOATS.length()) {
+                FloatVector.fromArray(FLOATS, base, k).lanewise(VectorOperators.LOG).mul(power)
+                        .lanewise(VectorOperators.EXP).mul(FloatVector.fromArray(FLOATS, factor, k)).intoArray(result, k);
+            }
+        }
+        for (; k < length; k++) {
+            result[k] = (float) (Math.pow(base[k], exponent) * factor[k]);
+        }
+    }
+
+    @Override
+    public void scaleClamp(double[] values, double factor, double min, double max, int length) {
+        int upper = DOUBLES.loopBound(length);
+        int k = 0;
+        for (; k < upper; k += DOUBLES.length()) {
+            DoubleVector.fromArray(DOUBLES, values, k).mul(factor).min(max).max(min).intoArray(values, k);
+        }
+        for (; k < length; k++) {
+            values[k] = Math.max(min, Math.min(max, values[k] * factor));
+        }
+    }
+
+    @Override
+    public void scaleClamp(float[] values, double factor, double min, double max, int length) {
+        int upper = FLOATS.loopBound(length);
+        int k = 0;
+        for (; k < upper; k += FLOATS.length()) {
+            FloatVector.fromArray(FLOATS, values, k).mul((float) factor).min((float) max).max((float) min).intoArray(values, k);
+        }
+        for (; k < length; k++) {
+            values[k] = (float) Math.max(min, Math.min(max, values[k] * factor));
+        }
+    }
+
+    @Override
+    public double maskedBlockSums(double[] values, int offset, boolean[] excluded, int length, double[] blockSums) {
+        int upper = length - length % MASKED_BLOCK;
+        double total = 0;
+        int block = 0;
+        for (int k = 0; k < upper; k += MASKED_BLOCK) {
+            DoubleVector first = DoubleVector.zero(DOUBLES);
+            DoubleVector second = first; // two sums, so consecutive additions do not wait for each other
+            for (int c = k; c < k + MASKED_BLOCK; c += 2 * DOUBLES.length()) {
+                int d = c + DOUBLES.length();
+                first = first.add(DoubleVector.fromArray(DOUBLES, values, offset + c), VectorMask.fromArray(DOUBLES, excluded, c).not());
+                second = second.add(DoubleVector.fromArray(DOUBLES, values, offset + d), VectorMask.fromArray(DOUBLES, excluded, d).not());
+            }
+            double sum = first.add(second).reduceLanes(VectorOperators.ADD);
+            blockSums[block++] = sum;
+            total += sum;
+        }
+        if (upper < length) {
+            double sum = 0;
+            for (int c = upper; c < length; c++) {
+                if (!excluded[c])
+                    sum += values[offset + c];
+            }
+            blockSums[block] = sum;
+            total += sum;
+        }
+        return total;
+    }
+}